@@ -0,0 +1,73 @@
+package se.lexicon.todo_app.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import se.lexicon.todo_app.security.JwtTokenUtil;
+import se.lexicon.todo_app.security.SecurityConfig;
+import se.lexicon.todo_app.security.TokenBlacklistStorage;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token generation and validation as done on login and on every authenticated request,
+ * and password hashing with the encoder configured in SecurityConfig.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthBenchmark {
+
+    private static final String SECRET = "TlsCBLCI/2hXl4BiyHcIV1hL2531VO9WQvbRGT531YMgowbIEoSpEBpKiFe6FN5aouGIcLND8CKWo/Eq6nWsjw==";
+
+    private JwtTokenUtil jwtTokenUtil;
+    private UserDetails userDetails;
+    private String token;
+    private PasswordEncoder passwordEncoder;
+    private String encodedPassword;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jwtTokenUtil = new JwtTokenUtil(new TokenBlacklistStorage());
+        ReflectionTestUtils.setField(jwtTokenUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtTokenUtil, "expiration", 10800L);
+
+        userDetails = User.builder()
+                .username("user1")
+                .password("ignored")
+                .roles("USER", "ADMIN")
+                .build();
+        token = jwtTokenUtil.generateToken(userDetails);
+
+        // Same encoder (and strength) as the application uses
+        passwordEncoder = new SecurityConfig(null, null, null).passwordEncoder();
+        encodedPassword = passwordEncoder.encode("password");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtTokenUtil.generateToken(userDetails);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtTokenUtil.validateToken(token, userDetails);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public String bcryptEncode() {
+        return passwordEncoder.encode("password");
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean bcryptMatches() {
+        return passwordEncoder.matches("password", encodedPassword);
+    }
+}
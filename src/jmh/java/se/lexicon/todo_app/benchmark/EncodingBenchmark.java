@@ -0,0 +1,118 @@
+package se.lexicon.todo_app.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import se.lexicon.todo_app.config.BinaryEncodingConfig;
+import se.lexicon.todo_app.dto.AttachmentDto;
+import se.lexicon.todo_app.dto.TodoDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares JSON (the default response format) with CBOR on realistic todo lists.
+ * Payload sizes are printed once per trial; the benchmarks measure encode and decode CPU time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodingBenchmark {
+
+    private static final TypeReference<List<TodoDto>> TODO_LIST = new TypeReference<>() {
+    };
+
+    @Param({"20", "500"})
+    public int todos;
+
+    // Size of the attachment carried by every fifth todo; 0 means no attachments at all
+    @Param({"0", "65536"})
+    public int attachmentBytes;
+
+    private ObjectMapper jsonMapper;
+    private ObjectMapper cborMapper;
+    private List<TodoDto> todoList;
+    private byte[] jsonPayload;
+    private byte[] cborPayload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        jsonMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        cborMapper = BinaryEncodingConfig.cborObjectMapper();
+        todoList = TodoFixtures.todoList(todos, attachmentBytes, new Random(42));
+
+        jsonPayload = jsonMapper.writeValueAsBytes(todoList);
+        cborPayload = cborMapper.writeValueAsBytes(todoList);
+        System.out.printf("%n[payload] todos=%d attachmentBytes=%d json=%d bytes cbor=%d bytes (%.1f%%)%n",
+                todos, attachmentBytes, jsonPayload.length, cborPayload.length,
+                100.0 * cborPayload.length / jsonPayload.length);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws Exception {
+        return jsonMapper.writeValueAsBytes(todoList);
+    }
+
+    @Benchmark
+    public byte[] encodeCbor() throws Exception {
+        return cborMapper.writeValueAsBytes(todoList);
+    }
+
+    @Benchmark
+    public List<TodoDto> decodeJson() throws Exception {
+        return jsonMapper.readValue(jsonPayload, TODO_LIST);
+    }
+
+    @Benchmark
+    public List<TodoDto> decodeCbor() throws Exception {
+        return cborMapper.readValue(cborPayload, TODO_LIST);
+    }
+
+    static final class TodoFixtures {
+
+        private static final String[] TITLES = {
+                "Buy groceries", "Prepare sprint demo", "Review pull request", "Call the dentist",
+                "Renew car insurance", "Write quarterly report", "Plan team offsite", "Fix login bug"
+        };
+
+        private TodoFixtures() {
+        }
+
+        static List<TodoDto> todoList(int size, int attachmentBytes, Random random) {
+            LocalDateTime base = LocalDateTime.of(2025, 3, 1, 9, 0);
+            List<TodoDto> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                List<AttachmentDto> attachments = new ArrayList<>();
+                if (attachmentBytes > 0 && i % 5 == 0) {
+                    byte[] data = new byte[attachmentBytes];
+                    random.nextBytes(data);
+                    attachments.add(new AttachmentDto((long) i, "file-" + i + ".pdf", "application/pdf", data));
+                }
+                LocalDateTime createdAt = base.plusMinutes(random.nextInt(60 * 24 * 90));
+                list.add(TodoDto.builder()
+                        .id((long) i + 1)
+                        .title(TITLES[random.nextInt(TITLES.length)])
+                        .description("Generated description number " + i + " with some realistic length to it")
+                        .completed(random.nextInt(3) == 0)
+                        .createdAt(createdAt)
+                        .updatedAt(random.nextBoolean() ? createdAt.plusHours(random.nextInt(48)) : null)
+                        .dueDate(random.nextInt(4) == 0 ? null : createdAt.plusDays(1 + random.nextInt(30)))
+                        .personId(1L + random.nextInt(50))
+                        .numberOfAttachments(attachments.size())
+                        .attachments(attachments)
+                        .build());
+            }
+            return list;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package se.lexicon.todo_app.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import se.lexicon.todo_app.security.TokenBlacklistStorage;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TokenBlacklistStorage.isBlacklisted runs on every authenticated request; this measures how it scales
+ * with the number of revoked, not yet expired tokens.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenBlacklistBenchmark {
+
+    @Param({"0", "1000", "100000"})
+    public int blacklistedTokens;
+
+    private TokenBlacklistStorage storage;
+    private String revokedToken;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        storage = new TokenBlacklistStorage();
+        Instant expiry = Instant.now().plusSeconds(3600);
+        for (int i = 0; i < blacklistedTokens; i++) {
+            storage.blacklistToken("token-" + i, "user-" + (i % 100), expiry);
+        }
+        revokedToken = blacklistedTokens > 0 ? "token-" + (blacklistedTokens / 2) : "token-0";
+    }
+
+    @Benchmark
+    public boolean isBlacklisted_miss() {
+        return storage.isBlacklisted("not-revoked");
+    }
+
+    @Benchmark
+    public boolean isBlacklisted_hit() {
+        return storage.isBlacklisted(revokedToken);
+    }
+}
@@ -0,0 +1,54 @@
+package se.lexicon.todo_app.service;
+
+import org.openjdk.jmh.annotations.*;
+import se.lexicon.todo_app.dto.TodoDto;
+import se.lexicon.todo_app.entity.Attachment;
+import se.lexicon.todo_app.entity.Person;
+import se.lexicon.todo_app.entity.Todo;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping in TodoServiceImpl.convertToDto, which copies the attachment data of every todo moved
+ * between shards (the endpoints list attachments without their data).
+ * Lives in the service package because convertToDto is package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TodoMappingBenchmark {
+
+    @Param({"0", "5"})
+    public int attachments;
+
+    @Param({"65536"})
+    public int attachmentBytes;
+
+    private TodoServiceImpl todoService;
+    private Todo todo;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        todoService = new TodoServiceImpl(null, null, null, null, null, null, null, null, null, null);
+
+        Person person = new Person("John Doe", "john@example.com");
+        person.setId(1L);
+        todo = new Todo("Write report", "Quarterly numbers for the board", false, LocalDateTime.now().plusDays(2));
+        todo.setId(1L);
+        todo.setPerson(person);
+        for (int i = 0; i < attachments; i++) {
+            Attachment attachment = new Attachment("file-" + i + ".pdf", "application/pdf", new byte[attachmentBytes]);
+            attachment.setId((long) i);
+            todo.addAttachment(attachment);
+        }
+    }
+
+    @Benchmark
+    public TodoDto convertToDto() {
+        return todoService.convertToDto(todo);
+    }
+}
@@ -0,0 +1,291 @@
+package se.lexicon.todo_app.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import se.lexicon.todo_app.ToDoAppApplication;
+import se.lexicon.todo_app.entity.Person;
+import se.lexicon.todo_app.entity.Role;
+import se.lexicon.todo_app.entity.Todo;
+import se.lexicon.todo_app.entity.User;
+import se.lexicon.todo_app.loadtest.LoadTestSettings.Operation;
+import se.lexicon.todo_app.repository.PersonRepository;
+import se.lexicon.todo_app.repository.TodoRepository;
+
+import java.io.File;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * End-to-end load test: boots the application on an in-memory H2 database, seeds a synthetic dataset,
+ * and lets one virtual user per thread replay a weighted mix of API calls through the full stack
+ * (CORS filter, JWT filter, method security, controller, JPA) over real HTTP.
+ * <p>
+ * Latencies are recorded in HdrHistograms after the warmup period. The report is printed and written as JSON;
+ * the process exits with status 1 when a configured threshold (p99, throughput, error rate) is violated,
+ * which fails the Maven build and makes the run usable as a regression gate.
+ */
+public class LoadTestRunner {
+
+    private static final String PASSWORD = "password";
+    private static final long HIGHEST_TRACKABLE_MICROS = Duration.ofMinutes(1).toNanos() / 1000;
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        // DevTools is on the test classpath; its restart classloader must not wrap the measured application
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ToDoAppApplication.class).run(
+                // Database, rate limits and logging are set in src/loadtest/resources/application-loadtest.properties
+                "--spring.profiles.active=loadtest",
+                "--server.port=0");
+
+        boolean passed;
+        try {
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            List<Long> todoIds = seedTodos(context, settings.todos());
+            List<String> usernames = seedUsers(context, settings.concurrency());
+            System.out.printf("Seeded %d todos and %d users, running %ds warmup + %ds measurement with %d virtual users%n",
+                    todoIds.size(), usernames.size(), settings.warmupSeconds(), settings.durationSeconds(), settings.concurrency());
+
+            Recording recording = run(settings, "http://localhost:" + port, usernames, todoIds);
+            passed = report(settings, recording);
+        } finally {
+            context.close();
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static List<String> seedUsers(ConfigurableApplicationContext context, int count) {
+        PersonRepository personRepository = context.getBean(PersonRepository.class);
+        // Hash once: BCrypt is deliberately slow and every load user shares the same password
+        String passwordHash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+
+        List<String> usernames = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // One user per virtual user, since logout revokes every token of that user
+            String username = "loaduser" + i;
+            Person person = new Person("Load User " + i, username + "@loadtest.se");
+            User user = new User(username, passwordHash);
+            user.addRole(Role.USER);
+            person.setUser(user);
+            personRepository.save(person);
+            usernames.add(username);
+        }
+        return usernames;
+    }
+
+    private static List<Long> seedTodos(ConfigurableApplicationContext context, int count) {
+        TodoRepository todoRepository = context.getBean(TodoRepository.class);
+        List<Person> persons = context.getBean(PersonRepository.class).findAll();
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Long> ids = new ArrayList<>(count);
+        List<Todo> batch = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // 30% without due date, 20% overdue, the rest due within the next month
+            int dueRoll = random.nextInt(10);
+            LocalDateTime dueDate = dueRoll < 3 ? null
+                    : dueRoll < 5 ? now.minusHours(1 + random.nextInt(24 * 30))
+                    : now.plusHours(1 + random.nextInt(24 * 30));
+            Todo todo = new Todo("Synthetic todo " + i, "Generated for load testing", random.nextInt(10) < 3, dueDate);
+            if (!persons.isEmpty() && random.nextInt(10) < 8) {
+                todo.setPerson(persons.get(random.nextInt(persons.size())));
+            }
+            batch.add(todo);
+            if (batch.size() == 500 || i == count - 1) {
+                todoRepository.saveAll(batch).forEach(saved -> ids.add(saved.getId()));
+                batch.clear();
+            }
+        }
+        return ids;
+    }
+
+    private static Recording run(LoadTestSettings settings, String baseUrl,
+                                 List<String> usernames, List<Long> todoIds) throws Exception {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        long measureStart = System.nanoTime() + Duration.ofSeconds(settings.warmupSeconds()).toNanos();
+        long end = measureStart + Duration.ofSeconds(settings.durationSeconds()).toNanos();
+        WeightedMix mix = new WeightedMix(settings.mix());
+        byte[] attachment = new byte[16 * 1024];
+        new Random(7).nextBytes(attachment);
+
+        ExecutorService executor = Executors.newFixedThreadPool(usernames.size());
+        List<Future<Recording>> results = new ArrayList<>();
+        for (String username : usernames) {
+            results.add(executor.submit(() -> {
+                // Each virtual user records into its own histograms; they are merged once the run is over
+                Recording recording = new Recording(measureStart);
+                TodoApiClient client = new TodoApiClient(httpClient, baseUrl, username, PASSWORD);
+                if (!client.login()) {
+                    throw new IllegalStateException("Login failed for " + username);
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long now;
+                while ((now = System.nanoTime()) < end) {
+                    Operation operation = mix.pick(random);
+                    boolean ok = switch (operation) {
+                        case LIST -> client.listTodos();
+                        case GET -> client.getTodo(todoIds.get(random.nextInt(todoIds.size())));
+                        case OVERDUE -> client.overdueTodos();
+                        case CREATE -> client.createTodo(attachment);
+                        case LOGOUT -> client.logout();
+                        case LOGIN -> client.login();
+                    };
+                    recording.record(operation, now, ok);
+
+                    if (operation == Operation.LOGOUT) {
+                        long loginStart = System.nanoTime();
+                        recording.record(Operation.LOGIN, loginStart, client.login());
+                    }
+                }
+                return recording;
+            }));
+        }
+
+        Recording merged = new Recording(measureStart);
+        for (Future<Recording> result : results) {
+            merged.add(result.get());
+        }
+        executor.shutdown();
+        return merged;
+    }
+
+    private static boolean report(LoadTestSettings settings, Recording recording) throws Exception {
+        double seconds = settings.durationSeconds();
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        Map<String, Object> operations = new LinkedHashMap<>();
+
+        System.out.printf("%n%-10s %10s %12s %10s %10s %10s %10s%n", "operation", "count", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = recording.latencies.get(operation);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            total.add(histogram);
+            operations.put(operation.name().toLowerCase(), summary(histogram, seconds));
+            printRow(operation.name().toLowerCase(), histogram, seconds);
+        }
+        printRow("total", total, seconds);
+
+        long errors = recording.errors;
+        double throughput = total.getTotalCount() / seconds;
+        double errorRate = total.getTotalCount() == 0 ? 1.0 : (double) errors / total.getTotalCount();
+        double p99Millis = total.getValueAtPercentile(99.0) / 1000.0;
+        System.out.printf("errors: %d (%.2f%%)%n", errors, errorRate * 100);
+
+        List<String> violations = new ArrayList<>();
+        if (settings.maxP99Millis() > 0 && p99Millis > settings.maxP99Millis()) {
+            violations.add(String.format("p99 %.1f ms exceeds %.1f ms", p99Millis, settings.maxP99Millis()));
+        }
+        if (settings.minThroughput() > 0 && throughput < settings.minThroughput()) {
+            violations.add(String.format("throughput %.1f req/s is below %.1f req/s", throughput, settings.minThroughput()));
+        }
+        if (errorRate > settings.maxErrorRate()) {
+            violations.add(String.format("error rate %.2f%% exceeds %.2f%%", errorRate * 100, settings.maxErrorRate() * 100));
+        }
+        violations.forEach(violation -> System.out.println("THRESHOLD VIOLATED: " + violation));
+
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("concurrency", settings.concurrency());
+        json.put("durationSeconds", settings.durationSeconds());
+        json.put("todos", settings.todos());
+        json.put("total", summary(total, seconds));
+        json.put("errors", errors);
+        json.put("operations", operations);
+        json.put("violations", violations);
+        File reportFile = new File(settings.reportFile());
+        reportFile.getAbsoluteFile().getParentFile().mkdirs();
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(reportFile, json);
+        System.out.println("Report written to " + reportFile.getAbsolutePath());
+
+        return violations.isEmpty();
+    }
+
+    private static Map<String, Object> summary(Histogram histogram, double seconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.getTotalCount());
+        summary.put("throughput", histogram.getTotalCount() / seconds);
+        summary.put("p50Ms", histogram.getValueAtPercentile(50.0) / 1000.0);
+        summary.put("p99Ms", histogram.getValueAtPercentile(99.0) / 1000.0);
+        summary.put("p999Ms", histogram.getValueAtPercentile(99.9) / 1000.0);
+        summary.put("maxMs", histogram.getMaxValue() / 1000.0);
+        return summary;
+    }
+
+    private static void printRow(String name, Histogram histogram, double seconds) {
+        System.out.printf("%-10s %10d %12.1f %10.2f %10.2f %10.2f %10.2f%n", name, histogram.getTotalCount(),
+                histogram.getTotalCount() / seconds,
+                histogram.getValueAtPercentile(50.0) / 1000.0,
+                histogram.getValueAtPercentile(99.0) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    private static final class Recording {
+        private final long measureStart;
+        private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+        private long errors;
+
+        private Recording(long measureStart) {
+            this.measureStart = measureStart;
+            for (Operation operation : Operation.values()) {
+                latencies.put(operation, new Histogram(HIGHEST_TRACKABLE_MICROS, 3));
+            }
+        }
+
+        private void record(Operation operation, long startNanos, boolean ok) {
+            if (startNanos < measureStart) {
+                return;
+            }
+            long micros = (System.nanoTime() - startNanos) / 1000;
+            latencies.get(operation).recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        private void add(Recording other) {
+            other.latencies.forEach((operation, histogram) -> latencies.get(operation).add(histogram));
+            errors += other.errors;
+        }
+    }
+
+    private static final class WeightedMix {
+        private final Operation[] operations;
+        private final int[] cumulativeWeights;
+
+        private WeightedMix(Map<Operation, Integer> weights) {
+            operations = weights.keySet().toArray(Operation[]::new);
+            cumulativeWeights = new int[operations.length];
+            int sum = 0;
+            for (int i = 0; i < operations.length; i++) {
+                sum += weights.get(operations[i]);
+                cumulativeWeights[i] = sum;
+            }
+        }
+
+        private Operation pick(Random random) {
+            int roll = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                if (roll < cumulativeWeights[i]) {
+                    return operations[i];
+                }
+            }
+            return operations[operations.length - 1];
+        }
+    }
+}
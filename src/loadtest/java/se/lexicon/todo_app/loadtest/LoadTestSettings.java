@@ -0,0 +1,66 @@
+package se.lexicon.todo_app.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Load test settings, read from -Dloadtest.* system properties (see the loadtest profile in pom.xml).
+ */
+record LoadTestSettings(
+        int concurrency,
+        int warmupSeconds,
+        int durationSeconds,
+        int todos,
+        Map<Operation, Integer> mix,
+        double maxP99Millis,
+        double minThroughput,
+        double maxErrorRate,
+        String reportFile
+) {
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.getInteger("loadtest.concurrency", 16),
+                Integer.getInteger("loadtest.warmup", 10),
+                Integer.getInteger("loadtest.duration", 60),
+                Integer.getInteger("loadtest.todos", 1000),
+                parseMix(System.getProperty("loadtest.mix", "list:30,get:30,overdue:20,create:15,logout:5")),
+                Double.parseDouble(System.getProperty("loadtest.max-p99-ms", "0")),
+                Double.parseDouble(System.getProperty("loadtest.min-throughput", "0")),
+                Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01")),
+                System.getProperty("loadtest.report", "target/loadtest-report.json"));
+    }
+
+    // Format: "list:30,get:30,overdue:20,create:15,logout:5"
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry: " + entry);
+            }
+            Operation operation = Operation.valueOf(parts[0].trim().toUpperCase());
+            if (!operation.scenario) {
+                throw new IllegalArgumentException("Operation cannot be weighted: " + parts[0]);
+            }
+            weights.put(operation, Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+
+    enum Operation {
+        LIST(true),
+        GET(true),
+        OVERDUE(true),
+        CREATE(true),
+        LOGOUT(true),
+        // Not part of the mix: every logout is followed by a fresh login
+        LOGIN(false);
+
+        private final boolean scenario;
+
+        Operation(boolean scenario) {
+            this.scenario = scenario;
+        }
+    }
+}
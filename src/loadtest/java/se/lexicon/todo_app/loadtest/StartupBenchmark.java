@@ -0,0 +1,111 @@
+package se.lexicon.todo_app.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup benchmark: starts the baseline and the candidate command in turn and measures the time from launch
+ * until the first HTTP response (any status) at startup.url. By default it compares the plain image (Dockerfile)
+ * with the fast-startup image (Dockerfile.fast-startup); both need a database, passed in through startup.env.
+ * <p>
+ * The commands are run through "sh -c exec ...", so stopping the process also stops a container started with
+ * "docker run" in the foreground. The report is printed and written as JSON.
+ */
+public class StartupBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> commands = new LinkedHashMap<>();
+        commands.put("baseline", System.getProperty("startup.baseline",
+                "docker run --rm -p 8080:8080 --env-file startup.env -e SPRING_PROFILES_ACTIVE=prd todo-api"));
+        commands.put("candidate", System.getProperty("startup.candidate",
+                "docker run --rm -p 8080:8080 --env-file startup.env todo-api:fast"));
+        URI url = URI.create(System.getProperty("startup.url", "http://localhost:8080/actuator/health"));
+        int runs = Integer.getInteger("startup.runs", 5);
+        Duration timeout = Duration.ofSeconds(Integer.getInteger("startup.timeout", 180));
+        String reportFile = System.getProperty("startup.report", "target/startup-report.json");
+
+        HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        Map<String, List<Long>> results = new LinkedHashMap<>();
+        commands.keySet().forEach(name -> results.put(name, new ArrayList<>()));
+        // Alternate the commands, so a slower machine phase affects both alike
+        for (int run = 1; run <= runs; run++) {
+            for (Map.Entry<String, String> command : commands.entrySet()) {
+                long millis = measure(command.getValue(), httpClient, url, timeout);
+                results.get(command.getKey()).add(millis);
+                System.out.printf("run %d %-10s %6d ms%n", run, command.getKey(), millis);
+            }
+        }
+
+        Map<String, Object> json = new LinkedHashMap<>();
+        System.out.printf("%n%-10s %10s %10s %10s%n", "command", "min ms", "median ms", "max ms");
+        for (Map.Entry<String, List<Long>> result : results.entrySet()) {
+            List<Long> sorted = result.getValue().stream().sorted().toList();
+            long median = sorted.get(sorted.size() / 2);
+            System.out.printf("%-10s %10d %10d %10d%n", result.getKey(), sorted.getFirst(), median, sorted.getLast());
+            json.put(result.getKey(), Map.of(
+                    "command", commands.get(result.getKey()),
+                    "timeToFirstRequestMillis", result.getValue(),
+                    "medianMillis", median));
+        }
+        File report = new File(reportFile);
+        report.getAbsoluteFile().getParentFile().mkdirs();
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(report, json);
+        System.out.println("Report written to " + report.getAbsolutePath());
+    }
+
+    private static long measure(String command, HttpClient httpClient, URI url, Duration timeout)
+            throws IOException, InterruptedException {
+        waitUntilDown(httpClient, url);
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder("sh", "-c", "exec " + command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            while (System.nanoTime() - started < timeout.toNanos()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Exited with status " + process.exitValue() + " before serving: " + command);
+                }
+                if (responds(httpClient, url)) {
+                    return (System.nanoTime() - started) / 1_000_000;
+                }
+                Thread.sleep(50);
+            }
+            throw new IllegalStateException("No response within " + timeout.toSeconds() + "s: " + command);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static void waitUntilDown(HttpClient httpClient, URI url) throws InterruptedException {
+        for (int attempt = 0; attempt < 600 && responds(httpClient, url); attempt++) {
+            Thread.sleep(100);
+        }
+    }
+
+    private static boolean responds(HttpClient httpClient, URI url) throws InterruptedException {
+        try {
+            httpClient.send(HttpRequest.newBuilder(url).timeout(Duration.ofSeconds(1)).GET().build(),
+                    HttpResponse.BodyHandlers.discarding());
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
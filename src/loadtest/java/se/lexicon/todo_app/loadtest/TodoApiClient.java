@@ -0,0 +1,105 @@
+package se.lexicon.todo_app.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Minimal HTTP client for the todo API. One instance per virtual user, since it holds that user's token.
+ * Every call returns true when the response status was the expected one.
+ */
+class TodoApiClient {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final String username;
+    private final String password;
+    private String token;
+
+    TodoApiClient(HttpClient httpClient, String baseUrl, String username, String password) {
+        this.httpClient = httpClient;
+        this.baseUrl = baseUrl;
+        this.username = username;
+        this.password = password;
+    }
+
+    boolean login() throws IOException, InterruptedException {
+        String body = MAPPER.writeValueAsString(Map.of("username", username, "password", password));
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            return false;
+        }
+        JsonNode json = MAPPER.readTree(response.body());
+        token = json.get("token").asText();
+        return true;
+    }
+
+    boolean logout() throws IOException, InterruptedException {
+        return send(authorized("/api/auth/logout").POST(HttpRequest.BodyPublishers.noBody()), 200);
+    }
+
+    boolean listTodos() throws IOException, InterruptedException {
+        return send(authorized("/api/todo").GET(), 200);
+    }
+
+    boolean getTodo(long id) throws IOException, InterruptedException {
+        return send(authorized("/api/todo/" + id).GET(), 200);
+    }
+
+    boolean overdueTodos() throws IOException, InterruptedException {
+        return send(authorized("/api/todo/overdue").GET(), 200);
+    }
+
+    boolean createTodo(byte[] attachment) throws IOException, InterruptedException {
+        String boundary = "----loadtest" + UUID.randomUUID();
+        String todoJson = MAPPER.writeValueAsString(Map.of(
+                "title", "Load test todo",
+                "description", "Created by the load test harness",
+                "completed", false,
+                "dueDate", LocalDateTime.now().plusDays(7).toString()));
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream(attachment.length + 1024);
+        writePart(body, boundary, "form-data; name=\"todo\"", "application/json", todoJson.getBytes(StandardCharsets.UTF_8));
+        writePart(body, boundary, "form-data; name=\"files\"; filename=\"attachment.bin\"", "application/octet-stream", attachment);
+        body.write(("--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        return send(authorized("/api/todo")
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray())), 201);
+    }
+
+    private static void writePart(ByteArrayOutputStream body, String boundary, String disposition,
+                                  String contentType, byte[] content) throws IOException {
+        body.write(("--" + boundary + "\r\n"
+                + "Content-Disposition: " + disposition + "\r\n"
+                + "Content-Type: " + contentType + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.write(content);
+        body.write("\r\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private HttpRequest.Builder authorized(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + token);
+    }
+
+    private boolean send(HttpRequest.Builder request, int expectedStatus) throws IOException, InterruptedException {
+        // Drain the body so the measured latency includes the full response transfer
+        HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        return response.statusCode() == expectedStatus;
+    }
+}
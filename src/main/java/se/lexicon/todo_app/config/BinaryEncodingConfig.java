@@ -0,0 +1,79 @@
+package se.lexicon.todo_app.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdScalarSerializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Adds CBOR (application/cbor) next to JSON for content negotiation on all controllers.
+ * JSON stays the default; internal services opt in with {@code Accept: application/cbor}
+ * and may send request bodies (or the multipart "todo" part) as {@code Content-Type: application/cbor}.
+ * <p>
+ * In CBOR, byte arrays such as {@code AttachmentDto.data} are written as raw byte strings instead of base64 text,
+ * and LocalDateTime values are written as epoch milliseconds (interpreted as UTC) instead of ISO-8601 strings.
+ */
+@Configuration
+public class BinaryEncodingConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter() {
+        // Replaces the default CBOR converter Spring MVC registers when jackson-dataformat-cbor is on the classpath
+        return new MappingJackson2CborHttpMessageConverter(cborObjectMapper());
+    }
+
+    public static ObjectMapper cborObjectMapper() {
+        SimpleModule compactTimeModule = new SimpleModule("CompactTimeModule");
+        compactTimeModule.addSerializer(LocalDateTime.class, new EpochMillisSerializer());
+        compactTimeModule.addDeserializer(LocalDateTime.class, new EpochMillisDeserializer());
+
+        return Jackson2ObjectMapperBuilder.cbor()
+                .modulesToInstall(compactTimeModule)
+                .build();
+    }
+
+    static class EpochMillisSerializer extends StdScalarSerializer<LocalDateTime> {
+
+        EpochMillisSerializer() {
+            super(LocalDateTime.class);
+        }
+
+        @Override
+        public void serialize(LocalDateTime value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeNumber(value.toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+    }
+
+    static class EpochMillisDeserializer extends StdScalarDeserializer<LocalDateTime> {
+
+        EpochMillisDeserializer() {
+            super(LocalDateTime.class);
+        }
+
+        @Override
+        public LocalDateTime deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.hasToken(JsonToken.VALUE_NUMBER_INT)) {
+                return LocalDateTime.ofInstant(Instant.ofEpochMilli(p.getLongValue()), ZoneOffset.UTC);
+            }
+            if (p.hasToken(JsonToken.VALUE_STRING)) {
+                // Accept ISO-8601 text as well, so clients can migrate field by field
+                return LocalDateTime.parse(p.getText().trim());
+            }
+            return (LocalDateTime) ctxt.handleUnexpectedToken(LocalDateTime.class, p);
+        }
+    }
+}
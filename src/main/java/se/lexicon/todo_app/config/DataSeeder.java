@@ -0,0 +1,62 @@
+package se.lexicon.todo_app.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import se.lexicon.todo_app.datasource.ShardRouter;
+import se.lexicon.todo_app.repository.PersonBatchRepository;
+import se.lexicon.todo_app.repository.UserRepository;
+import se.lexicon.todo_app.service.TodoChangeLog;
+import se.lexicon.todo_app.service.TodoStatsCounter;
+
+import javax.sql.DataSource;
+
+/**
+ * Fills the database with synthetic data when the seed profile is active, e.g.
+ * --spring.profiles.active=dev,seed --app.seed.todos=10000000 (see SeedProperties and application-seed.properties).
+ * Runs after DataInitializer and does nothing when the seeded users exist already.
+ */
+@Slf4j
+@Configuration
+@Profile("seed")
+@EnableConfigurationProperties(SeedProperties.class)
+public class DataSeeder {
+
+    @Bean
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    CommandLineRunner seed(SeedProperties properties, DataSource dataSource, PlatformTransactionManager transactionManager,
+                           PasswordEncoder passwordEncoder, PersonBatchRepository personBatchRepository,
+                           UserRepository userRepository, TodoChangeLog todoChangeLog, TodoStatsCounter todoStatsCounter,
+                           ShardRouter shardRouter, ConfigurableApplicationContext context) {
+        return args -> {
+            String firstUsername = SyntheticDataGenerator.username(0);
+            boolean seeded = shardRouter.onShard(shardRouter.shardForUsername(firstUsername),
+                    () -> userRepository.existsByUsername(firstUsername));
+            if (seeded) {
+                log.info("Seed data exists already, skipping");
+            } else {
+                log.info("Seeding {} persons and {} todos with random seed {}",
+                        properties.persons(), properties.todos(), properties.randomSeed());
+                // All seeded users share one password, so it is hashed once
+                new SyntheticDataGenerator(properties, new JdbcTemplate(dataSource), new TransactionTemplate(transactionManager),
+                        personBatchRepository, todoChangeLog, shardRouter, passwordEncoder.encode(properties.password()))
+                        .generate();
+                todoStatsCounter.reconcile();
+            }
+            if (properties.exitWhenDone()) {
+                System.exit(SpringApplication.exit(context, () -> 0));
+            }
+        };
+    }
+}
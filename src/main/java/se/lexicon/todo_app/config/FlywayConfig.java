@@ -0,0 +1,32 @@
+package se.lexicon.todo_app.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import se.lexicon.todo_app.datasource.ShardRouter;
+
+/**
+ * Applies the versioned scripts in db/migration on startup when spring.flyway.enabled=true (the prd profile).
+ * Every shard is migrated, not only the default one (see ShardingConfig).
+ * app.flyway.migrate-on-startup=false leaves the schema alone, e.g. for the training run in Dockerfile.fast-startup.
+ */
+@Slf4j
+@Configuration
+public class FlywayConfig {
+
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(ShardRouter shardRouter,
+                                                           @Value("${app.flyway.migrate-on-startup:true}") boolean migrateOnStartup) {
+        return flyway -> {
+            if (!migrateOnStartup) {
+                log.info("Skipping database migrations");
+                return;
+            }
+            for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+                shardRouter.onShard(shard, flyway::migrate);
+            }
+        };
+    }
+}
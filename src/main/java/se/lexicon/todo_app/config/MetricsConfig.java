@@ -0,0 +1,40 @@
+package se.lexicon.todo_app.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import se.lexicon.todo_app.datasource.ConnectionHoldTimeDataSource;
+
+import javax.sql.DataSource;
+
+/**
+ * Enables Micrometer's @Timed annotation on Spring beans (used on the service layer) and times how long each
+ * endpoint holds a database connection (db.connection.hold, see ConnectionHoldTimeDataSource).
+ * HTTP endpoints, repository invocations and the connection pool are instrumented by Spring Boot Actuator,
+ * see the management.* settings in application.properties.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    // Static, so it is registered before the data source is created; only the bean JPA and JDBC use is wrapped
+    @Bean
+    public static BeanPostProcessor connectionHoldTimeMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && beanName.equals("dataSource")) {
+                    return new ConnectionHoldTimeDataSource(dataSource, meterRegistry);
+                }
+                return bean;
+            }
+        };
+    }
+}
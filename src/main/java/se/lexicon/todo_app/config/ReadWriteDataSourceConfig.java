@@ -0,0 +1,57 @@
+package se.lexicon.todo_app.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import se.lexicon.todo_app.datasource.ReadWriteRoutingDataSource;
+import se.lexicon.todo_app.datasource.ReplicaLagMonitor;
+
+import javax.sql.DataSource;
+
+/**
+ * Splits reads and writes between a primary and a replica database when app.datasource.routing.enabled=true.
+ * Read-only transactions go to the replica, everything else to the primary. Each side has its own Hikari pool,
+ * configured with app.datasource.primary.* and app.datasource.replica.* (jdbc-url, username, password, ...).
+ * When disabled (the default) the single spring.datasource.* pool is used as before.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.routing.enabled", havingValue = "true")
+public class ReadWriteDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("app.datasource.primary")
+    public HikariDataSource primaryDataSource() {
+        return DataSourceBuilder.create().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        return DataSourceBuilder.create().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                               @Value("${app.datasource.routing.lag-query:}") String lagQuery,
+                                               @Value("${app.datasource.routing.max-lag-seconds:5}") long maxLagSeconds,
+                                               @Value("${app.datasource.routing.fallback-to-primary:true}") boolean fallbackToPrimary) {
+        return new ReplicaLagMonitor(replicaDataSource, lagQuery, maxLagSeconds, fallbackToPrimary);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                 ReplicaLagMonitor replicaLagMonitor) {
+        // The lazy proxy delays fetching the physical connection until the read-only flag is known
+        return new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource, replicaLagMonitor));
+    }
+}
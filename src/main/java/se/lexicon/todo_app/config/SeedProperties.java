@@ -0,0 +1,31 @@
+package se.lexicon.todo_app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Size and shape of the synthetic data written by the seed profile, configured as app.seed.persons,
+ * app.seed.todos, ... The same random-seed on an empty database always produces the same data.
+ *
+ * @param attachmentRatio share of todos that get one attachment, between 0 and 1
+ * @param historyDays     todos are created over this many days before now, more of them recently
+ * @param writers         threads inserting batches in parallel
+ * @param batchSize       rows per JDBC batch and per transaction
+ * @param password        password of every seeded user (usernames are seed0, seed1, ...)
+ * @param exitWhenDone    stop the application after seeding, so the profile can be used as a command line tool
+ */
+@ConfigurationProperties("app.seed")
+public record SeedProperties(
+        @DefaultValue("42") long randomSeed,
+        @DefaultValue("1000") int persons,
+        @DefaultValue("100000") long todos,
+        @DefaultValue("0.05") double attachmentRatio,
+        @DefaultValue("1024") int attachmentMinSize,
+        @DefaultValue("65536") int attachmentMaxSize,
+        @DefaultValue("365") int historyDays,
+        @DefaultValue("4") int writers,
+        @DefaultValue("1000") int batchSize,
+        @DefaultValue("password") String password,
+        @DefaultValue("false") boolean exitWhenDone
+) {
+}
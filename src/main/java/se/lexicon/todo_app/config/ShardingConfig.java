@@ -0,0 +1,85 @@
+package se.lexicon.todo_app.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import se.lexicon.todo_app.datasource.ShardRouter;
+import se.lexicon.todo_app.datasource.ShardRoutingDataSource;
+import se.lexicon.todo_app.datasource.ShardSchemaInitializer;
+import se.lexicon.todo_app.service.PersonService;
+import se.lexicon.todo_app.service.ShardedPersonService;
+import se.lexicon.todo_app.service.ShardedTodoService;
+import se.lexicon.todo_app.service.TodoService;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shards people and their todos by person id across the databases listed under app.sharding.shards
+ * when app.sharding.enabled=true (see ShardRouter). Person-scoped calls go to one shard,
+ * global queries run on all shards in parallel and are merged.
+ * When disabled (the default) there is a single shard: the spring.datasource.* pool.
+ * Not meant to be combined with app.datasource.routing.enabled.
+ */
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    @Bean
+    public ShardRouter shardRouter(ShardingProperties properties) {
+        return new ShardRouter(properties.enabled() ? properties.shards().size() : 1);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+    public ShardRoutingDataSource shardRoutingDataSource(ShardingProperties properties) {
+        List<HikariDataSource> shards = new ArrayList<>();
+        for (ShardingProperties.Shard shard : properties.shards()) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("shard-" + shards.size());
+            dataSource.setJdbcUrl(shard.url());
+            dataSource.setUsername(shard.username());
+            dataSource.setPassword(shard.password());
+            dataSource.setMaximumPoolSize(shard.maximumPoolSize());
+            shards.add(dataSource);
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+    public ShardSchemaInitializer shardSchemaInitializer(EntityManagerFactory entityManagerFactory, DataSource dataSource,
+                                                         ShardRouter shardRouter,
+                                                         @Value("${spring.jpa.hibernate.ddl-auto:none}") String ddlAuto) {
+        return new ShardSchemaInitializer(entityManagerFactory, dataSource, shardRouter, ddlAuto);
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+    public TodoService shardedTodoService(@Qualifier("todoServiceImpl") TodoService todoService, ShardRouter shardRouter) {
+        return new ShardedTodoService(todoService, shardRouter);
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+    public PersonService shardedPersonService(@Qualifier("personServiceImpl") PersonService personService, ShardRouter shardRouter) {
+        return new ShardedPersonService(personService, shardRouter);
+    }
+}
@@ -0,0 +1,24 @@
+package se.lexicon.todo_app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+
+/**
+ * Shard databases, configured as app.sharding.shards[0].url, app.sharding.shards[0].username, ...
+ */
+@ConfigurationProperties("app.sharding")
+public record ShardingProperties(
+        boolean enabled,
+        @DefaultValue List<Shard> shards
+) {
+
+    public record Shard(
+            String url,
+            String username,
+            String password,
+            @DefaultValue("10") int maximumPoolSize
+    ) {
+    }
+}
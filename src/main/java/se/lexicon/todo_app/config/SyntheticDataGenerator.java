@@ -0,0 +1,261 @@
+package se.lexicon.todo_app.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+import se.lexicon.todo_app.datasource.ShardRouter;
+import se.lexicon.todo_app.entity.Person;
+import se.lexicon.todo_app.entity.Role;
+import se.lexicon.todo_app.entity.User;
+import se.lexicon.todo_app.repository.PersonBatchRepository;
+import se.lexicon.todo_app.service.TodoChangeLog;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * Writes synthetic persons, todos and attachments for scale testing, see DataSeeder.
+ * Work is cut into batches of app.seed.batch-size rows that app.seed.writers threads insert with JDBC batching,
+ * one transaction per batch and shard. Every batch draws from its own random generator, derived from
+ * app.seed.random-seed and the batch number, so the data does not depend on which thread writes which batch.
+ * Only the generated ids depend on the insert order, and dates are relative to the start of the run.
+ */
+@Slf4j
+class SyntheticDataGenerator {
+
+    private static final String[] FIRST_NAMES = {"Anna", "Erik", "Maria", "Lars", "Sara", "Johan", "Emma", "Karl",
+            "Elin", "Nils", "Ida", "Oskar", "Linnea", "Axel", "Maja", "Hugo"};
+    private static final String[] LAST_NAMES = {"Andersson", "Johansson", "Karlsson", "Nilsson", "Eriksson",
+            "Larsson", "Olsson", "Persson", "Svensson", "Gustafsson"};
+    private static final String[] VERBS = {"Review", "Write", "Plan", "Fix", "Call", "Prepare", "Update", "Book",
+            "Clean", "Order", "Test", "Send"};
+    private static final String[] OBJECTS = {"quarterly report", "team meeting", "login bug", "supplier",
+            "release notes", "dentist appointment", "garage", "office supplies", "invoice", "presentation",
+            "travel plans", "backup"};
+    private static final String[] FILE_TYPES = {"application/pdf", "image/png", "image/jpeg", "text/plain"};
+
+    private final SeedProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final PersonBatchRepository personBatchRepository;
+    private final TodoChangeLog todoChangeLog;
+    private final ShardRouter shardRouter;
+    private final String passwordHash;
+    private final LocalDateTime now = LocalDateTime.now();
+
+    SyntheticDataGenerator(SeedProperties properties, JdbcTemplate jdbcTemplate, TransactionTemplate transaction,
+                           PersonBatchRepository personBatchRepository, TodoChangeLog todoChangeLog,
+                           ShardRouter shardRouter, String passwordHash) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = transaction;
+        this.personBatchRepository = personBatchRepository;
+        this.todoChangeLog = todoChangeLog;
+        this.shardRouter = shardRouter;
+        this.passwordHash = passwordHash;
+    }
+
+    void generate() {
+        long[] personIds = new long[properties.persons()];
+        int[] personShards = new int[properties.persons()];
+        for (int i = 0; i < personShards.length; i++) {
+            personShards[i] = shardRouter.shardForUsername(username(i));
+        }
+        int personBatches = batches(properties.persons());
+        runInParallel("persons", properties.persons(), personBatches, batch -> insertPersons(batch, personIds, personShards));
+
+        if (properties.persons() == 0) {
+            return;
+        }
+        // One range of change numbers per shard, so delta sync sees the seeded todos without taking the lock per batch
+        long[] firstChangeSeq = new long[shardRouter.getShardCount()];
+        for (int shard = 0; shard < firstChangeSeq.length; shard++) {
+            firstChangeSeq[shard] = shardRouter.onShard(shard,
+                    () -> transaction.execute(status -> todoChangeLog.next((int) Math.min(properties.todos(), Integer.MAX_VALUE))));
+        }
+        runInParallel("todos", properties.todos(), batches(properties.todos()),
+                batch -> insertTodos(batch, personIds, personShards, firstChangeSeq));
+    }
+
+    private void insertPersons(int batch, long[] personIds, int[] personShards) {
+        int from = batch * properties.batchSize();
+        int to = Math.min(properties.persons(), from + properties.batchSize());
+        SplittableRandom random = random(~batch);
+        List<List<Integer>> rowsByShard = rowsByShard();
+        List<List<Person>> personsByShard = rowsByShard();
+        for (int i = from; i < to; i++) {
+            String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            User user = new User(username(i), passwordHash);
+            user.addRole(Role.USER);
+            Person person = new Person(name, username(i) + "@seed.test");
+            person.setUser(user);
+            user.setPerson(person);
+            rowsByShard.get(personShards[i]).add(i);
+            personsByShard.get(personShards[i]).add(person);
+        }
+        for (int shard = 0; shard < rowsByShard.size(); shard++) {
+            List<Person> persons = personsByShard.get(shard);
+            if (!persons.isEmpty()) {
+                shardRouter.onShard(shard, () -> personBatchRepository.insertAll(persons));
+                for (int k = 0; k < persons.size(); k++) {
+                    personIds[rowsByShard.get(shard).get(k)] = persons.get(k).getId();
+                }
+            }
+        }
+    }
+
+    private void insertTodos(int batch, long[] personIds, int[] personShards, long[] firstChangeSeq) {
+        long from = (long) batch * properties.batchSize();
+        long to = Math.min(properties.todos(), from + properties.batchSize());
+        SplittableRandom random = random(batch);
+        List<List<TodoRow>> rowsByShard = rowsByShard();
+        for (long index = from; index < to; index++) {
+            int owner = random.nextInt(personIds.length);
+            TodoRow row = todoRow(random, index, personIds[owner]);
+            rowsByShard.get(personShards[owner]).add(row);
+        }
+        for (int shard = 0; shard < rowsByShard.size(); shard++) {
+            List<TodoRow> rows = rowsByShard.get(shard);
+            long changeSeq = firstChangeSeq[shard];
+            if (!rows.isEmpty()) {
+                shardRouter.onShard(shard, () -> transaction.executeWithoutResult(status -> writeTodos(rows, changeSeq)));
+            }
+        }
+    }
+
+    // Recent todos are more likely than old ones; most have a due date, and the older the due date the more
+    // likely the todo is done, which leaves a realistic tail of overdue work
+    private TodoRow todoRow(SplittableRandom random, long index, long personId) {
+        double age = random.nextDouble();
+        LocalDateTime createdAt = now.minusMinutes((long) (age * age * properties.historyDays() * 24 * 60));
+        LocalDateTime dueDate = random.nextDouble() < 0.2 ? null
+                : createdAt.plusHours((long) (-Math.log(1 - random.nextDouble()) * 14 * 24));
+        boolean pastDue = dueDate != null && dueDate.isBefore(now);
+        boolean completed = random.nextDouble() < (pastDue ? 0.85 : 0.25);
+        LocalDateTime updatedAt = completed
+                ? createdAt.plusSeconds((long) (random.nextDouble() * Duration.between(createdAt, now).getSeconds()))
+                : null;
+        String title = VERBS[random.nextInt(VERBS.length)] + " " + OBJECTS[random.nextInt(OBJECTS.length)];
+        String description = random.nextDouble() < 0.7 ? "Seeded todo #" + index + ": " + title.toLowerCase() : null;
+
+        byte[] attachment = null;
+        if (random.nextDouble() < properties.attachmentRatio()) {
+            int size = properties.attachmentMinSize()
+                    + random.nextInt(Math.max(1, properties.attachmentMaxSize() - properties.attachmentMinSize() + 1));
+            attachment = new byte[size];
+            random.nextBytes(attachment);
+        }
+        return new TodoRow(index, title, description, completed, createdAt, updatedAt, dueDate, personId,
+                attachment, FILE_TYPES[random.nextInt(FILE_TYPES.length)]);
+    }
+
+    private void writeTodos(List<TodoRow> rows, long firstChangeSeq) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(
+                        "INSERT INTO todos (title, description, completed, created_at, updated_at, due_date, person_id, " +
+                                "change_seq, deleted) VALUES (?, ?, ?, ?, ?, ?, ?, ?, false)", new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        TodoRow row = rows.get(i);
+                        ps.setString(1, row.title());
+                        ps.setString(2, row.description());
+                        ps.setBoolean(3, row.completed());
+                        ps.setTimestamp(4, Timestamp.valueOf(row.createdAt()));
+                        ps.setTimestamp(5, row.updatedAt() == null ? null : Timestamp.valueOf(row.updatedAt()));
+                        ps.setTimestamp(6, row.dueDate() == null ? null : Timestamp.valueOf(row.dueDate()));
+                        ps.setLong(7, row.personId());
+                        ps.setLong(8, firstChangeSeq + row.index());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                }, keys);
+
+        List<Object[]> attachments = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            TodoRow row = rows.get(i);
+            if (row.attachment() != null) {
+                Object todoId = keys.getKeyList().get(i).values().iterator().next();
+                attachments.add(new Object[]{"seed-" + row.index(), row.fileType(), row.attachment(), todoId});
+            }
+        }
+        if (!attachments.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO attachments (file_name, file_type, data, todo_id) VALUES (?, ?, ?, ?)",
+                    attachments);
+        }
+    }
+
+    private void runInParallel(String what, long rows, int batches, IntConsumer batchWriter) {
+        long started = System.nanoTime();
+        AtomicLong written = new AtomicLong();
+        long logEvery = Math.max(properties.batchSize(), rows / 10);
+        List<Future<?>> futures = new ArrayList<>(batches);
+        try (ExecutorService writers = Executors.newFixedThreadPool(Math.max(1, properties.writers()))) {
+            for (int batch = 0; batch < batches; batch++) {
+                int current = batch;
+                futures.add(writers.submit(() -> {
+                    batchWriter.accept(current);
+                    long size = Math.min(properties.batchSize(), rows - (long) current * properties.batchSize());
+                    long total = written.addAndGet(size);
+                    if (total / logEvery != (total - size) / logEvery) {
+                        log.info("Seeded {} of {} {}", total, rows, what);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Seeding " + what + " failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while seeding " + what, e);
+        }
+        long millis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        log.info("Seeded {} {} in {} ms ({} rows/s)", rows, what, millis, rows * 1000 / millis);
+    }
+
+    private int batches(long rows) {
+        return (int) ((rows + properties.batchSize() - 1) / properties.batchSize());
+    }
+
+    private <T> List<List<T>> rowsByShard() {
+        List<List<T>> rows = new ArrayList<>(shardRouter.getShardCount());
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            rows.add(new ArrayList<>());
+        }
+        return rows;
+    }
+
+    // The first output of a generator seeded with seed + batch is well mixed, so neighbouring batches get unrelated streams
+    private SplittableRandom random(long batch) {
+        return new SplittableRandom(new SplittableRandom(properties.randomSeed() + batch).nextLong());
+    }
+
+    static String username(int index) {
+        return "seed" + index;
+    }
+
+    private record TodoRow(long index, String title, String description, boolean completed, LocalDateTime createdAt,
+                           LocalDateTime updatedAt, LocalDateTime dueDate, long personId, byte[] attachment,
+                           String fileType) {
+    }
+}
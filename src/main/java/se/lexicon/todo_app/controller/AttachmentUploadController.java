@@ -0,0 +1,122 @@
+package se.lexicon.todo_app.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import se.lexicon.todo_app.dto.AttachmentDto;
+import se.lexicon.todo_app.dto.UploadSessionDto;
+import se.lexicon.todo_app.dto.UploadSessionRequestDto;
+import se.lexicon.todo_app.service.AttachmentUploadService;
+
+import java.io.InputStream;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/todo/uploads")
+@Validated
+@SecurityRequirement(name = "Bearer Authentication")
+@Tag(name = "Attachment Upload API", description = "Resumable chunked uploads of large attachments")
+public class AttachmentUploadController {
+
+    private final AttachmentUploadService attachmentUploadService;
+
+    public AttachmentUploadController(AttachmentUploadService attachmentUploadService) {
+        this.attachmentUploadService = attachmentUploadService;
+    }
+
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Start upload", description = "Opens an upload session for a file of the given size")
+    @ApiResponses({
+            @ApiResponse(responseCode = "201", description = "Upload session created"),
+            @ApiResponse(responseCode = "400", description = "Invalid file details or file too large")
+    })
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public UploadSessionDto startUpload(
+            @Parameter(description = "Name, type and size of the file")
+            @RequestBody @Valid UploadSessionRequestDto request,
+            Authentication authentication) {
+        return attachmentUploadService.open(authentication.getName(), request);
+    }
+
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Get upload status", description = "Returns how many bytes were received, i.e. where to resume")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved upload session"),
+            @ApiResponse(responseCode = "400", description = "Upload not found or expired")
+    })
+    @GetMapping("/{uploadId}")
+    @ResponseStatus(HttpStatus.OK)
+    public UploadSessionDto getUpload(
+            @Parameter(description = "ID of the upload session")
+            @PathVariable String uploadId,
+            Authentication authentication) {
+        return attachmentUploadService.status(authentication.getName(), uploadId);
+    }
+
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Upload chunk", description = "Writes the request body into the file at offset. The offset may " +
+            "not be past the bytes received so far; bytes that arrive before a connection breaks are kept")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Chunk written"),
+            @ApiResponse(responseCode = "400", description = "Invalid offset, chunk past the file size or upload not found")
+    })
+    @PutMapping(value = "/{uploadId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public UploadSessionDto uploadChunk(
+            @Parameter(description = "ID of the upload session")
+            @PathVariable String uploadId,
+            @Parameter(description = "Position of the chunk in the file")
+            @RequestParam @PositiveOrZero(message = "Offset cannot be negative") long offset,
+            InputStream body,
+            Authentication authentication) {
+        return attachmentUploadService.writeChunk(authentication.getName(), uploadId, offset, body);
+    }
+
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Complete upload", description = "Adds the uploaded file to a todo as an attachment and closes the session")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Attachment added"),
+            @ApiResponse(responseCode = "400", description = "Upload incomplete, upload not found or todo not found"),
+            @ApiResponse(responseCode = "409", description = "Todo is archived")
+    })
+    @PostMapping("/{uploadId}/complete")
+    @ResponseStatus(HttpStatus.OK)
+    public AttachmentDto completeUpload(
+            @Parameter(description = "ID of the upload session")
+            @PathVariable String uploadId,
+            @Parameter(description = "ID of the todo to attach the file to")
+            @RequestParam @NotNull(message = "Todo id cannot be null") Long todoId,
+            Authentication authentication) {
+        log.debug("Completing upload {} into todo {}", uploadId, todoId);
+        return attachmentUploadService.complete(authentication.getName(), uploadId, todoId);
+    }
+
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Cancel upload", description = "Discards an upload session and the data received")
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Upload cancelled"),
+            @ApiResponse(responseCode = "400", description = "Upload not found")
+    })
+    @DeleteMapping("/{uploadId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void cancelUpload(
+            @Parameter(description = "ID of the upload session")
+            @PathVariable String uploadId,
+            Authentication authentication) {
+        attachmentUploadService.cancel(authentication.getName(), uploadId);
+    }
+}
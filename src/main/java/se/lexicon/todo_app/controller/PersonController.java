@@ -1,12 +1,21 @@
 package se.lexicon.todo_app.controller;
 
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.access.annotation.Secured;
@@ -15,12 +24,14 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import se.lexicon.todo_app.dto.PersonDto;
 import se.lexicon.todo_app.dto.PersonRegistrationDto;
+import se.lexicon.todo_app.dto.PersonRegistrationResultDto;
 import se.lexicon.todo_app.entity.Person;
 import se.lexicon.todo_app.repository.PersonRepository;
 import se.lexicon.todo_app.service.PersonService;
 
 import java.util.List;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/person")
 @Validated
@@ -37,9 +48,20 @@ public class PersonController {
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
     @GetMapping
     @ResponseStatus(HttpStatus.OK) // 200 OK
-    public List<PersonDto> getPerson() {
-        System.out.println("Fetching all persons");
-        return personService.findAll();
+    public List<PersonDto> getPerson(
+            @Parameter(description = "Page number, starting at 0")
+            @RequestParam(defaultValue = "0") @Min(value = 0, message = "Page must not be negative") int page,
+            @Parameter(description = "Page size (1-1000); all persons are returned when omitted")
+            @RequestParam(required = false) @Min(value = 1, message = "Size must be at least 1")
+            @Max(value = 1000, message = "Size must be at most 1000") Integer size,
+            @Parameter(description = "Sort property (id, name or email), optionally followed by ,asc or ,desc")
+            @RequestParam(defaultValue = "id") String sort) {
+        log.debug("Fetching persons, page {} size {} sorted by {}", page, size, sort);
+        String[] parts = sort.split(",");
+        Sort order = Sort.by(parts.length > 1 && parts[1].trim().equalsIgnoreCase("desc")
+                ? Sort.Direction.DESC : Sort.Direction.ASC, parts[0].trim());
+        Pageable pageable = size == null ? Pageable.unpaged(order) : PageRequest.of(page, size, order);
+        return personService.findAll(pageable);
     }
 
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
@@ -49,7 +71,7 @@ public class PersonController {
             @PathVariable("id")
             @Positive(message = "Id must be a positive number")
             Long id) {
-        System.out.println("id = " + id);
+        log.debug("Fetching person with ID: {}", id);
         return personService.findById(id);
     }
 
@@ -57,17 +79,28 @@ public class PersonController {
     @PostMapping("/register")
     @ResponseStatus(HttpStatus.CREATED) // 201 Created
     public PersonDto createPerson(@RequestBody @NotNull(message = "Person cannot be null") @Valid PersonRegistrationDto personDto) {
-        System.out.println("Creating person: " + personDto);
+        log.debug("Creating person with username: {}", personDto.username()); // never log the DTO, it carries the password
         return personService.create(personDto);
     }
 
+    @RolesAllowed({"ADMIN", "MODERATOR"})
+    @PostMapping("/register/bulk")
+    @ResponseStatus(HttpStatus.OK) // 200 OK, each row carries its own outcome
+    public List<PersonRegistrationResultDto> createPersons(
+            @RequestBody @NotEmpty(message = "Persons cannot be empty")
+            @Size(max = 1000, message = "At most 1000 persons can be registered at once")
+            List<PersonRegistrationDto> personDtos) {
+        log.debug("Registering {} persons", personDtos.size());
+        return personService.createAll(personDtos);
+    }
+
     // Allow only ADMIN, and check if user is trying to modify their own data
     @PreAuthorize("hasRole('ADMIN') or #personDto.userId == authentication.principal.id")
     @PutMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT) // 204 No Content
     public void updatePerson(@PathVariable @NotNull(message = "Id cannot be null") Long id,
                              @RequestBody @NotNull(message = "Person cannot be null") PersonDto personDto) {
-        System.out.println("Updating person with ID: " + id);
+        log.debug("Updating person with ID: {}", id);
         personService.update(id, personDto);
     }
 
@@ -76,7 +109,7 @@ public class PersonController {
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT) // 204 No Content
     public void deletePerson(@PathVariable @NotNull(message = "Id cannot be null") Long id) {
-        System.out.println("Deleting person with ID: " + id);
+        log.info("Deleting person with ID: {}", id);
         personService.delete(id);
     }
 
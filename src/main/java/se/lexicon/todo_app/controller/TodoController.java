@@ -7,24 +7,48 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import se.lexicon.todo_app.dto.AttachmentDto;
+import se.lexicon.todo_app.dto.TodoChangesDto;
+import se.lexicon.todo_app.dto.TodoCountsDto;
 import se.lexicon.todo_app.dto.TodoDto;
+import se.lexicon.todo_app.dto.TodoPageDto;
+import se.lexicon.todo_app.dto.TodoQueryDto;
+import se.lexicon.todo_app.dto.TodoStatsDto;
+import se.lexicon.todo_app.service.TodoChangeStream;
 import se.lexicon.todo_app.service.TodoService;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/todo")
 @Validated
@@ -33,9 +57,11 @@ import java.util.List;
 public class TodoController {
 
     private final TodoService todoService;
+    private final TodoChangeStream todoChangeStream;
 
-    public TodoController(TodoService todoService) {
+    public TodoController(TodoService todoService, TodoChangeStream todoChangeStream) {
         this.todoService = todoService;
+        this.todoChangeStream = todoChangeStream;
     }
 
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
@@ -43,8 +69,41 @@ public class TodoController {
     @ApiResponse(responseCode = "200", description = "Successfully retrieved todo list")
     @GetMapping
     @ResponseStatus(HttpStatus.OK)
-    public List<TodoDto> getAllTodos() {
-        return todoService.findAll();
+    public List<TodoDto> getAllTodos(
+            @Parameter(description = "Also return todos moved to the archive")
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        return todoService.findAll(includeArchived);
+    }
+
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Stream todo changes", description = "Server-Sent Events feed of created, updated and deleted todos. " +
+            "Reconnect with the Last-Event-ID header to resume; a \"reset\" event means the todo list must be reloaded")
+    @ApiResponse(responseCode = "200", description = "Stream opened")
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTodoChanges(
+            @Parameter(description = "Id of the last event received before the connection dropped")
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @Parameter(description = "Only stream changes of this person's todos")
+            @RequestParam(required = false) Long personId) {
+        return todoChangeStream.subscribe(lastEventId, personId);
+    }
+
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Get todo changes", description = "Returns todos created or updated and tombstones of todos deleted " +
+            "after the watermark, oldest first, plus the watermark to send next time. Omit since for a full sync")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved changes"),
+            @ApiResponse(responseCode = "400", description = "Invalid watermark")
+    })
+    @GetMapping("/changes")
+    @ResponseStatus(HttpStatus.OK)
+    public TodoChangesDto getTodoChanges(
+            @Parameter(description = "Watermark returned by the previous call")
+            @RequestParam(required = false) String since,
+            @Parameter(description = "Maximum number of changes to return (1-1000)")
+            @RequestParam(defaultValue = "500") @Min(value = 1, message = "Limit must be at least 1")
+            @Max(value = 1000, message = "Limit must be at most 1000") int limit) {
+        return todoService.findChangesSince(since, limit);
     }
 
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
@@ -60,13 +119,109 @@ public class TodoController {
             @PathVariable("id")
             @NotNull(message = "Id cannot be null")
             @Positive(message = "Id must be positive")
-            Long id) {
-        return todoService.findById(id);
+            Long id,
+            @Parameter(description = "Also return todos moved to the archive")
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        return todoService.findById(id, includeArchived);
+    }
+
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Download attachment", description = "Returns the file of an attachment. Files stored compressed " +
+            "are sent as stored with Content-Encoding to clients that accept it, and decompressed while sending otherwise")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved file"),
+            @ApiResponse(responseCode = "404", description = "Attachment not found")
+    })
+    @GetMapping("/{todoId}/attachments/{attachmentId}")
+    public void getAttachment(
+            @Parameter(description = "ID of the todo")
+            @PathVariable @NotNull(message = "Todo id cannot be null") Long todoId,
+            @Parameter(description = "ID of the attachment")
+            @PathVariable @NotNull(message = "Attachment id cannot be null") Long attachmentId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletResponse response) {
+        // Copied from the database to the client as it is read (decompressed on the way when needed), so the file is
+        // never loaded into a byte array; the read-only transaction is held until the last byte is written
+        boolean found = todoService.writeAttachment(todoId, attachmentId, (file, data) -> {
+            response.setContentType(mediaTypeOf(file.fileType()).toString());
+            if (file.fileName() != null) {
+                response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(file.fileName(), StandardCharsets.UTF_8).build().toString());
+            }
+            if (file.codec() != null) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            }
+            if (file.codec() == null || acceptsEncoding(acceptEncoding, file.codec().getContentEncoding())) {
+                if (file.codec() != null) {
+                    response.setHeader(HttpHeaders.CONTENT_ENCODING, file.codec().getContentEncoding());
+                }
+                response.setContentLengthLong(file.size());
+                data.transferTo(response.getOutputStream());
+                return;
+            }
+            try (InputStream decoded = file.codec().decoding(data)) {
+                decoded.transferTo(response.getOutputStream());
+            }
+        });
+        if (!found) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+
+    private static MediaType mediaTypeOf(String fileType) {
+        try {
+            return fileType != null ? MediaType.parseMediaType(fileType) : MediaType.APPLICATION_OCTET_STREAM;
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
+
+    // True when the Accept-Encoding header lists the coding (or *) without q=0
+    private static boolean acceptsEncoding(String acceptEncoding, String coding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String name = parts[0].trim();
+            if (name.equalsIgnoreCase(coding) || name.equals("*")) {
+                for (int i = 1; i < parts.length; i++) {
+                    String parameter = parts[i].trim().replace(" ", "");
+                    if (parameter.matches("q=0(\\.0*)?")) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Get attachment preview", description = "Returns the thumbnail of an image attachment, " +
+            "as linked by previewUrl. Thumbnails are generated in the background shortly after the upload")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved thumbnail (JPEG or PNG)"),
+            @ApiResponse(responseCode = "404", description = "No thumbnail (not an image, not generated yet, or unknown attachment)")
+    })
+    @GetMapping("/{todoId}/attachments/{attachmentId}/preview")
+    public ResponseEntity<byte[]> getAttachmentPreview(
+            @Parameter(description = "ID of the todo")
+            @PathVariable @NotNull(message = "Todo id cannot be null") Long todoId,
+            @Parameter(description = "ID of the attachment")
+            @PathVariable @NotNull(message = "Attachment id cannot be null") Long attachmentId) {
+        // A replaced attachment gets a new id, so a thumbnail never changes and can be cached by the client
+        return todoService.findPreview(todoId, attachmentId)
+                .map(preview -> ResponseEntity.ok()
+                        .contentType(MediaType.parseMediaType(preview.contentType()))
+                        .cacheControl(CacheControl.maxAge(Duration.ofDays(1)).cachePrivate())
+                        .body(preview.data()))
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @PostMapping(
             consumes = {MediaType.MULTIPART_FORM_DATA_VALUE},
-            produces = {MediaType.APPLICATION_JSON_VALUE}
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE}
     )
     @ResponseStatus(HttpStatus.CREATED)
     public TodoDto createTodo(
@@ -77,7 +232,7 @@ public class TodoController {
         validateFiles(files);
         List<AttachmentDto> attachments = convertFilesToAttachments(files);
         todoDto = todoDto.withAttachments(attachments);
-        System.out.println("todoDto = " + todoDto);
+        log.debug("Creating todo for person {} with {} attachment(s)", todoDto.personId(), attachments.size());
         return todoService.create(todoDto);
     }
 
@@ -86,12 +241,13 @@ public class TodoController {
     @Operation(summary = "Update todo", description = "Updates an existing todo item with optional attachments (max 5 files, 2MB each)")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Todo successfully updated"),
-            @ApiResponse(responseCode = "404", description = "Todo not found")
+            @ApiResponse(responseCode = "404", description = "Todo not found"),
+            @ApiResponse(responseCode = "409", description = "Todo is archived")
     })
     @PutMapping(
             value = "/{id}",
             consumes = {MediaType.MULTIPART_FORM_DATA_VALUE},
-            produces = {MediaType.APPLICATION_JSON_VALUE}
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE}
     )
     @ResponseStatus(HttpStatus.OK)
     public TodoDto updateTodo(
@@ -125,10 +281,10 @@ public class TodoController {
             }
 
             if (file.getSize() > 2 * 1024 * 1024) { // 2MB in bytes
-                throw new IllegalArgumentException("File size exceeds 2MB limit: " + file.getOriginalFilename());
+                throw new IllegalArgumentException("File size exceeds 2MB limit, use /api/todo/uploads for larger files: " + file.getOriginalFilename());
             }
 
-            System.out.println("file = " + file);
+            log.debug("Accepted file name={} type={} size={}", file.getOriginalFilename(), file.getContentType(), file.getSize());
         }
     }
 
@@ -156,7 +312,7 @@ public class TodoController {
 
 
     @PreAuthorize("hasRole('ADMIN')")
-    @Operation(summary = "Delete todo", description = "Deletes a todo item")
+    @Operation(summary = "Delete todo", description = "Deletes a todo item, archived ones included")
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "Todo successfully deleted"),
             @ApiResponse(responseCode = "404", description = "Todo not found")
@@ -176,8 +332,10 @@ public class TodoController {
     @ResponseStatus(HttpStatus.OK)
     public List<TodoDto> getTodosByPerson(
             @Parameter(description = "ID of the person")
-            @PathVariable @NotNull(message = "Person id cannot be null") Long personId) {
-        return todoService.findByPersonId(personId);
+            @PathVariable @NotNull(message = "Person id cannot be null") Long personId,
+            @Parameter(description = "Also return todos moved to the archive")
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        return todoService.findByPersonId(personId, includeArchived);
     }
 
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
@@ -187,8 +345,10 @@ public class TodoController {
     @ResponseStatus(HttpStatus.OK)
     public List<TodoDto> getTodosByStatus(
             @Parameter(description = "Completion status of todos")
-            @RequestParam(required = true) boolean completed) {
-        return todoService.findByCompleted(completed);
+            @RequestParam(required = true) boolean completed,
+            @Parameter(description = "Also return todos moved to the archive")
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        return todoService.findByCompleted(completed, includeArchived);
     }
 
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
@@ -199,4 +359,83 @@ public class TodoController {
     public List<TodoDto> getOverdueTodos() {
         return todoService.findOverdueTodos();
     }
-}
\ No newline at end of file
+
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Query todos", description = "Returns todos matching all given filters as summaries (no description " +
+            "or attachments), one page at a time. Pass nextCursor back as cursor, with the same filters and sort, for the next page")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved todos"),
+            @ApiResponse(responseCode = "400", description = "Invalid sort or cursor")
+    })
+    @GetMapping("/query")
+    @ResponseStatus(HttpStatus.OK)
+    public TodoPageDto queryTodos(
+            @Parameter(description = "Only todos of this person")
+            @RequestParam(required = false) Long personId,
+            @Parameter(description = "Only completed (true) or open (false) todos")
+            @RequestParam(required = false) Boolean completed,
+            @Parameter(description = "Only todos due on or after this time, e.g. 2025-01-31T00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dueFrom,
+            @Parameter(description = "Only todos due before this time")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dueTo,
+            @Parameter(description = "Only todos with (true) or without (false) a due date")
+            @RequestParam(required = false) Boolean hasDueDate,
+            @Parameter(description = "Only unassigned (true) or assigned (false) todos")
+            @RequestParam(required = false) Boolean unassigned,
+            @Parameter(description = "Only todos whose title contains this text, ignoring case")
+            @RequestParam(required = false) String title,
+            @Parameter(description = "Sort property (id, dueDate, createdAt or title), optionally followed by ,asc or ,desc")
+            @RequestParam(defaultValue = "id") String sort,
+            @Parameter(description = "nextCursor of the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Maximum number of todos to return (1-1000)")
+            @RequestParam(defaultValue = "50") @Min(value = 1, message = "Limit must be at least 1")
+            @Max(value = 1000, message = "Limit must be at most 1000") int limit) {
+        TodoQueryDto filter = TodoQueryDto.builder()
+                .personId(personId)
+                .completed(completed)
+                .dueFrom(dueFrom)
+                .dueTo(dueTo)
+                .hasDueDate(hasDueDate)
+                .unassigned(unassigned)
+                .title(title)
+                .build();
+        String[] parts = sort.split(",");
+        Sort.Order order = new Sort.Order(parts.length > 1 && parts[1].trim().equalsIgnoreCase("desc")
+                ? Sort.Direction.DESC : Sort.Direction.ASC, parts[0].trim());
+        return todoService.query(filter, order, cursor, limit);
+    }
+
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Claim unassigned todos", description = "Atomically assigns up to limit unassigned todos to the current user")
+    @ApiResponse(responseCode = "200", description = "Successfully claimed todos (empty when none are left)")
+    @PostMapping("/claim")
+    @ResponseStatus(HttpStatus.OK)
+    public List<TodoDto> claimTodos(
+            @Parameter(description = "Maximum number of todos to claim (1-100)")
+            @RequestParam(defaultValue = "1") @Min(value = 1, message = "Limit must be at least 1")
+            @Max(value = 100, message = "Limit must be at most 100") int limit,
+            Authentication authentication) {
+        return todoService.claim(authentication.getName(), limit);
+    }
+
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Get todo statistics", description = "Retrieves total, completed, open and overdue counts of all todos")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved statistics")
+    @GetMapping("/stats")
+    @ResponseStatus(HttpStatus.OK)
+    public TodoStatsDto getTodoStats() {
+        return todoService.getStats();
+    }
+
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Get todo statistics by person", description = "Retrieves total, completed, open and overdue counts for a specific person")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved statistics")
+    @GetMapping("/stats/person/{personId}")
+    @ResponseStatus(HttpStatus.OK)
+    public TodoCountsDto getTodoStatsByPerson(
+            @Parameter(description = "ID of the person")
+            @PathVariable @NotNull(message = "Person id cannot be null") Long personId) {
+        return todoService.getStatsByPerson(personId);
+    }
+}
@@ -0,0 +1,99 @@
+package se.lexicon.todo_app.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ConnectionHoldTimeDataSource records how long each connection is held, from getConnection() until close(),
+ * as the timer db.connection.hold tagged with the endpoint (uri pattern and method) of the current request.
+ * Connections taken before the request is mapped (security filters) are tagged uri=UNKNOWN, and those taken
+ * outside a request (scheduled jobs, shard fan-out threads) uri=NONE.
+ * Behind a LazyConnectionDataSourceProxy (read/write splitting, sharding) this is the time the transaction holds
+ * its logical connection, which includes the physical hold time.
+ */
+public class ConnectionHoldTimeDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    public static final String METRIC_NAME = "db.connection.hold";
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public ConnectionHoldTimeDataSource(DataSource targetDataSource, ObjectProvider<MeterRegistry> meterRegistry) {
+        super(targetDataSource);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return track(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return track(super.getConnection(username, password));
+    }
+
+    private Connection track(Connection connection) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) {
+            return connection;
+        }
+        Timer timer = timerForCurrentRequest(registry);
+        long borrowed = System.nanoTime();
+        return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(), new Class<?>[]{ConnectionProxy.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "getTargetConnection" -> connection;
+                    default -> {
+                        if (method.getName().equals("close") && !connection.isClosed()) {
+                            timer.record(System.nanoTime() - borrowed, TimeUnit.NANOSECONDS);
+                        }
+                        try {
+                            yield method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        }
+                    }
+                });
+    }
+
+    // Replaces the pool as the bean, so it has to close the pool on shutdown
+    @Override
+    public void close() throws Exception {
+        if (obtainTargetDataSource() instanceof AutoCloseable pool) {
+            pool.close();
+        }
+    }
+
+    private static Timer timerForCurrentRequest(MeterRegistry registry) {
+        String uri = "NONE";
+        String method = "NONE";
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            HttpServletRequest request = servletAttributes.getRequest();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            uri = pattern != null ? pattern.toString() : "UNKNOWN";
+            method = request.getMethod();
+        }
+        return Timer.builder(METRIC_NAME)
+                .description("Time a JDBC connection is held, per endpoint")
+                .tag("uri", uri)
+                .tag("method", method)
+                .register(registry);
+    }
+}
@@ -0,0 +1,38 @@
+package se.lexicon.todo_app.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * ReadWriteRoutingDataSource sends connections of read-only transactions (@Transactional(readOnly = true))
+ * to the replica and everything else to the primary.
+ * It must be wrapped in a LazyConnectionDataSourceProxy: the transaction manager asks for a connection before
+ * the read-only flag is bound to the thread, so the physical connection has to be fetched on first use.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final ReplicaLagMonitor replicaLagMonitor;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor replicaLagMonitor) {
+        this.replicaLagMonitor = replicaLagMonitor;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && replicaLagMonitor.isReplicaUsable()) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+}
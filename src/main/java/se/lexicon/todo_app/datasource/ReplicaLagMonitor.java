@@ -0,0 +1,63 @@
+package se.lexicon.todo_app.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+
+/**
+ * ReplicaLagMonitor periodically checks that the replica is reachable and, when a lag query is configured,
+ * that it is not lagging more than the allowed number of seconds behind the primary.
+ * While the replica is unusable, read-only transactions fall back to the primary (if fallback is enabled).
+ * <p>
+ * The lag query must return a single number of seconds, e.g. against a heartbeat table on MySQL:
+ * {@code SELECT TIMESTAMPDIFF(SECOND, MAX(ts), NOW()) FROM heartbeat}.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final String lagQuery;
+    private final long maxLagSeconds;
+    private final boolean fallbackToPrimary;
+
+    private volatile boolean replicaHealthy = true;
+
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, long maxLagSeconds, boolean fallbackToPrimary) {
+        this.replicaJdbcTemplate = new JdbcTemplate(replica);
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLagSeconds;
+        this.fallbackToPrimary = fallbackToPrimary;
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaHealthy || !fallbackToPrimary;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.routing.lag-check-interval:5000}")
+    public void checkReplica() {
+        boolean healthy;
+        try {
+            if (lagQuery == null || lagQuery.isBlank()) {
+                healthy = Boolean.TRUE.equals(replicaJdbcTemplate.execute((ConnectionCallback<Boolean>) con -> con.isValid(2)));
+            } else {
+                Number lag = replicaJdbcTemplate.queryForObject(lagQuery, Number.class);
+                healthy = lag != null && lag.longValue() <= maxLagSeconds;
+                if (!healthy) {
+                    log.debug("Replica lag {}s exceeds {}s", lag, maxLagSeconds);
+                }
+            }
+        } catch (Exception e) {
+            log.debug("Replica check failed: {}", e.getMessage());
+            healthy = false;
+        }
+
+        if (healthy != replicaHealthy) {
+            log.warn(healthy ? "Replica is healthy again, routing read-only transactions to it"
+                    : "Replica is unavailable or lagging, routing read-only transactions to the primary");
+        }
+        replicaHealthy = healthy;
+    }
+}
@@ -0,0 +1,28 @@
+package se.lexicon.todo_app.datasource;
+
+/**
+ * ShardContext holds the shard the current thread works against. It is read by ShardRoutingDataSource
+ * and set through ShardRouter; shard 0 is used when nothing is set.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static int currentShard() {
+        Integer shard = CURRENT_SHARD.get();
+        return shard != null ? shard : 0;
+    }
+
+    static Integer set(Integer shard) {
+        Integer previous = CURRENT_SHARD.get();
+        if (shard == null) {
+            CURRENT_SHARD.remove();
+        } else {
+            CURRENT_SHARD.set(shard);
+        }
+        return previous;
+    }
+}
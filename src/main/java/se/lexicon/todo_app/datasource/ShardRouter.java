@@ -0,0 +1,130 @@
+package se.lexicon.todo_app.datasource;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * ShardRouter maps people, usernames and ids to shards and runs work on one or all of them.
+ * <p>
+ * A person, their user and their todos live on the same shard. New people are placed by a hash of their username,
+ * so logins are routed without a lookup. Every shard allocates ids from its own range of {@link #SHARD_ID_RANGE} ids,
+ * so the shard of a person or todo can be derived from its id. New unassigned todos are created on shard 0.
+ * <p>
+ * With a single shard (sharding disabled) everything runs inline on the calling thread.
+ */
+public class ShardRouter implements AutoCloseable {
+
+    // 2^40 ids per shard keeps ids below 2^53, the largest integer a JSON (JavaScript) number holds exactly
+    public static final long SHARD_ID_RANGE = 1L << 40;
+
+    /**
+     * Orders text the way the shards' database does (MySQL's default collation utf8mb4_0900_ai_ci ignores case and
+     * accents), so rows merged from several shards end up in the order each shard returned them in.
+     */
+    public static final Comparator<String> TEXT_ORDER = textOrder();
+
+    private final int shardCount;
+    private final ExecutorService executor;
+
+    public ShardRouter(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shardCount = shardCount;
+        this.executor = shardCount > 1 ? Executors.newVirtualThreadPerTaskExecutor() : null;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public int shardForId(Long id) {
+        if (id == null) {
+            return 0;
+        }
+        long shard = id / SHARD_ID_RANGE;
+        if (id < 0 || shard >= shardCount) {
+            throw new IllegalArgumentException("Id " + id + " does not belong to any shard");
+        }
+        return (int) shard;
+    }
+
+    public int shardForUsername(String username) {
+        return Math.floorMod(username.hashCode(), shardCount);
+    }
+
+    public static long firstIdOf(int shard) {
+        return shard == 0 ? 1 : shard * SHARD_ID_RANGE;
+    }
+
+    public <T> T onShard(int shard, Supplier<T> work) {
+        Integer previous = ShardContext.set(shard);
+        try {
+            return work.get();
+        } finally {
+            ShardContext.set(previous);
+        }
+    }
+
+    public void onShard(int shard, Runnable work) {
+        onShard(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs the work on every shard in parallel and returns the results in shard order.
+     * Each shard gets its own thread, so the work must start its own transaction (e.g. by calling a service or repository).
+     */
+    public <T> List<T> onAllShards(Supplier<T> work) {
+        if (executor == null) {
+            return List.of(onShard(0, work));
+        }
+
+        List<Future<T>> futures = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int target = shard;
+            futures.add(executor.submit(() -> onShard(target, work)));
+        }
+
+        List<T> results = new ArrayList<>(shardCount);
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Shard query failed", e.getCause());
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for shards", e);
+        }
+        return results;
+    }
+
+    private static Comparator<String> textOrder() {
+        Collator collator = Collator.getInstance(Locale.ROOT);
+        collator.setStrength(Collator.PRIMARY);
+        return collator::compare;
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
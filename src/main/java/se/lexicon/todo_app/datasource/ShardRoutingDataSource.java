@@ -0,0 +1,39 @@
+package se.lexicon.todo_app.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ShardRoutingDataSource picks the shard pool selected by ShardContext.
+ * Like ReadWriteRoutingDataSource it is wrapped in a LazyConnectionDataSourceProxy, so a transaction
+ * may select its shard after it has started, as long as it does so before the first statement.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private final List<HikariDataSource> shards;
+
+    public ShardRoutingDataSource(List<HikariDataSource> shards) {
+        this.shards = shards;
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i, shards.get(i));
+        }
+        setTargetDataSources(targets);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.currentShard();
+    }
+
+    @Override
+    public void close() {
+        shards.forEach(HikariDataSource::close);
+    }
+}
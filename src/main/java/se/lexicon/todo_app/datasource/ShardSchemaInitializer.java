@@ -0,0 +1,81 @@
+package se.lexicon.todo_app.datasource;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.util.List;
+
+/**
+ * ShardSchemaInitializer prepares every shard at startup.
+ * Hibernate only applies spring.jpa.hibernate.ddl-auto to shard 0, so the mapped schema is exported to the other shards here.
+ * It also moves the id sequences of the sharded tables into each shard's id range (see ShardRouter).
+ */
+@Slf4j
+public class ShardSchemaInitializer implements InitializingBean {
+
+    private static final List<String> SHARDED_ID_TABLES = List.of("persons", "todos");
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final DataSource dataSource;
+    private final ShardRouter shardRouter;
+    private final String ddlAuto;
+
+    public ShardSchemaInitializer(EntityManagerFactory entityManagerFactory, DataSource dataSource,
+                                  ShardRouter shardRouter, String ddlAuto) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.dataSource = dataSource;
+        this.shardRouter = shardRouter;
+        this.ddlAuto = ddlAuto;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        var schemaManager = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getSchemaManager();
+
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            int target = shard;
+            if (shard > 0 && ddlAuto.startsWith("create")) {
+                shardRouter.onShard(target, () -> {
+                    schemaManager.dropMappedObjects(false);
+                    schemaManager.exportMappedObjects(false);
+                });
+            } else if (shard > 0 && ddlAuto.equals("update")) {
+                shardRouter.onShard(target, () -> schemaManager.exportMappedObjects(false));
+            }
+
+            String databaseProduct = shardRouter.onShard(target, () -> productName());
+            for (String table : SHARDED_ID_TABLES) {
+                shardRouter.onShard(target, () -> restartIdentity(jdbcTemplate, databaseProduct, table, target));
+            }
+            log.info("Shard {} ready, ids start at {}", shard, ShardRouter.firstIdOf(shard));
+        }
+    }
+
+    private String productName() {
+        try {
+            return JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Could not read shard database metadata", e);
+        }
+    }
+
+    private static void restartIdentity(JdbcTemplate jdbcTemplate, String databaseProduct, String table, int shard) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        long next = Math.max(ShardRouter.firstIdOf(shard), maxId != null ? maxId + 1 : 0);
+
+        String sql = switch (databaseProduct) {
+            case "H2" -> "ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next;
+            case "MySQL", "MariaDB" -> "ALTER TABLE " + table + " AUTO_INCREMENT = " + next;
+            default -> throw new IllegalStateException("Sharding does not support " + databaseProduct);
+        };
+        jdbcTemplate.execute(sql);
+    }
+}
@@ -0,0 +1,15 @@
+package se.lexicon.todo_app.dto;
+
+import se.lexicon.todo_app.entity.AttachmentCodec;
+
+// Attachment file as stored, served by GET /api/todo/{todoId}/attachments/{attachmentId}; data is compressed with codec unless null
+public record AttachmentContentDto(
+        String fileName,
+
+        String fileType,
+
+        AttachmentCodec codec,
+
+        byte[] data
+) {
+}
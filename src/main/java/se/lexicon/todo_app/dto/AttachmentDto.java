@@ -4,5 +4,15 @@ public record AttachmentDto(
     Long id,
     String fileName,
     String fileType,
-    byte[] data
-) {}
\ No newline at end of file
+    // Only set on upload and when todos move between shards; responses link to the file through url instead
+    byte[] data,
+    // Small image to show instead of the file, set once its thumbnail has been generated
+    String previewUrl,
+    // Where the file is downloaded (GET /api/todo/{todoId}/attachments/{attachmentId})
+    String url
+) {
+
+    public AttachmentDto(Long id, String fileName, String fileType, byte[] data) {
+        this(id, fileName, fileType, data, null, null);
+    }
+}
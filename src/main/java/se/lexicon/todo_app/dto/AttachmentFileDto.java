@@ -0,0 +1,16 @@
+package se.lexicon.todo_app.dto;
+
+import se.lexicon.todo_app.entity.AttachmentCodec;
+
+// Attachment file as stored, without the data: the data is streamed alongside it (see AttachmentStreamRepository).
+// size is the stored length, i.e. compressed with codec unless null
+public record AttachmentFileDto(
+        String fileName,
+
+        String fileType,
+
+        AttachmentCodec codec,
+
+        long size
+) {
+}
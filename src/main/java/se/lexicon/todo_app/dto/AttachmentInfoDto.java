@@ -0,0 +1,15 @@
+package se.lexicon.todo_app.dto;
+
+// Attachment of a todo read without its data or thumbnail (used to publish changes that must not load the files)
+public record AttachmentInfoDto(
+        Long todoId,
+
+        Long id,
+
+        String fileName,
+
+        String fileType,
+
+        boolean hasPreview
+) {
+}
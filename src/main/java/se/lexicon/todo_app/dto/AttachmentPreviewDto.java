@@ -0,0 +1,9 @@
+package se.lexicon.todo_app.dto;
+
+// Thumbnail of an image attachment, served by GET /api/todo/{todoId}/attachments/{attachmentId}/preview
+public record AttachmentPreviewDto(
+        String contentType,
+
+        byte[] data
+) {
+}
@@ -0,0 +1,9 @@
+package se.lexicon.todo_app.dto;
+
+// Identifies an attachment by todo, read without the attachment's columns (used for preview urls)
+public record AttachmentRefDto(
+        Long todoId,
+
+        Long attachmentId
+) {
+}
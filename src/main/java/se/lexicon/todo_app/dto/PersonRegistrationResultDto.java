@@ -0,0 +1,15 @@
+package se.lexicon.todo_app.dto;
+
+import lombok.Builder;
+
+/**
+ * Outcome of one row of a bulk registration: the created person, or the reason the row was rejected.
+ * index is the position of the row in the request.
+ */
+@Builder
+public record PersonRegistrationResultDto(
+        int index,
+        PersonDto person,
+        String error
+) {
+}
@@ -0,0 +1,15 @@
+package se.lexicon.todo_app.dto;
+
+import lombok.Builder;
+
+/**
+ * A todo change as pushed by GET /api/todo/stream. Attachment contents are left out; the todo is null for deletions.
+ */
+@Builder
+public record TodoChangeDto(
+        String type,
+        Long todoId,
+        Long personId,
+        TodoDto todo
+) {
+}
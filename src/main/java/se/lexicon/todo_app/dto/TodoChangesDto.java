@@ -0,0 +1,19 @@
+package se.lexicon.todo_app.dto;
+
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+public record TodoChangesDto(
+        List<TodoDto> changed,
+
+        List<TodoTombstoneDto> deleted,
+
+        // Pass back as "since" on the next call
+        String watermark,
+
+        // More changes are waiting; call again right away with the new watermark
+        boolean hasMore
+) {
+}
@@ -0,0 +1,12 @@
+package se.lexicon.todo_app.dto;
+
+import lombok.Builder;
+
+@Builder
+public record TodoCountsDto(
+        long total,
+        long completed,
+        long open,
+        long overdue
+) {
+}
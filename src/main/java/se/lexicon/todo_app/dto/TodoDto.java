@@ -30,7 +30,10 @@ public record TodoDto(
 
         int numberOfAttachments,
 
-        List<AttachmentDto> attachments
+        List<AttachmentDto> attachments,
+
+        // Read from the archive; archived todos cannot be changed
+        boolean archived
 
 ) {
 
@@ -39,7 +42,7 @@ public record TodoDto(
                         id, title, description, completed,
                         createdAt, updatedAt, dueDate, personId,
                         newAttachments != null ? newAttachments.size() : 0,
-                        newAttachments
+                        newAttachments, archived
                 );
         }
 
@@ -0,0 +1,11 @@
+package se.lexicon.todo_app.dto;
+
+/**
+ * Row of a GROUP BY count query over todos. personId is null for unassigned todos.
+ */
+public record TodoGroupCountDto(
+        Long personId,
+        boolean completed,
+        long count
+) {
+}
@@ -0,0 +1,14 @@
+package se.lexicon.todo_app.dto;
+
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+public record TodoPageDto(
+        List<TodoSummaryDto> items,
+
+        // Pass back as "cursor" with the same filter and sort for the next page; null on the last page
+        String nextCursor
+) {
+}
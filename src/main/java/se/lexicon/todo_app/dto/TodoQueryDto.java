@@ -0,0 +1,27 @@
+package se.lexicon.todo_app.dto;
+
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+
+// Filter of GET /api/todo/query; null fields do not restrict the result
+@Builder
+public record TodoQueryDto(
+        Long personId,
+
+        Boolean completed,
+
+        // Due on or after
+        LocalDateTime dueFrom,
+
+        // Due before
+        LocalDateTime dueTo,
+
+        Boolean hasDueDate,
+
+        Boolean unassigned,
+
+        // Case-insensitive part of the title
+        String title
+) {
+}
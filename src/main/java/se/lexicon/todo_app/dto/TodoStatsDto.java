@@ -0,0 +1,15 @@
+package se.lexicon.todo_app.dto;
+
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+
+@Builder
+public record TodoStatsDto(
+        // All todos, including unassigned ones; the counts of one person are at /api/todo/stats/person/{personId}
+        TodoCountsDto global,
+
+        // Last time the counters were reconciled against the database
+        LocalDateTime reconciledAt
+) {
+}
@@ -0,0 +1,35 @@
+package se.lexicon.todo_app.dto;
+
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// List row of GET /api/todo/query, read straight from the todos columns (no description, no attachment data)
+@Builder
+public record TodoSummaryDto(
+        Long id,
+
+        String title,
+
+        boolean completed,
+
+        LocalDateTime createdAt,
+
+        LocalDateTime dueDate,
+
+        Long personId,
+
+        // Thumbnails of the image attachments, fetched separately by the client
+        List<String> previewUrls
+) {
+
+    // Used by the query, the preview urls are added afterwards
+    public TodoSummaryDto(Long id, String title, boolean completed, LocalDateTime createdAt, LocalDateTime dueDate, Long personId) {
+        this(id, title, completed, createdAt, dueDate, personId, List.of());
+    }
+
+    public TodoSummaryDto withPreviewUrls(List<String> newPreviewUrls) {
+        return new TodoSummaryDto(id, title, completed, createdAt, dueDate, personId, newPreviewUrls);
+    }
+}
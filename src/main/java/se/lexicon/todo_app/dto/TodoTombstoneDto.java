@@ -0,0 +1,13 @@
+package se.lexicon.todo_app.dto;
+
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+
+@Builder
+public record TodoTombstoneDto(
+        Long id,
+        Long personId,
+        LocalDateTime deletedAt
+) {
+}
@@ -0,0 +1,23 @@
+package se.lexicon.todo_app.dto;
+
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+
+@Builder
+public record UploadSessionDto(
+        String id,
+
+        String fileName,
+
+        String fileType,
+
+        long size,
+
+        // Bytes received from the start of the file; the next chunk continues at this offset
+        long received,
+
+        // Dropped with its data when no chunk arrives before then
+        LocalDateTime expiresAt
+) {
+}
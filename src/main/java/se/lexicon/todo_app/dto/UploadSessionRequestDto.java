@@ -0,0 +1,21 @@
+package se.lexicon.todo_app.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.Builder;
+
+@Builder
+public record UploadSessionRequestDto(
+        @NotBlank(message = "File name is required")
+        @Size(max = 255, message = "File name must be less than 255 characters")
+        String fileName,
+
+        @Size(max = 255, message = "File type must be less than 255 characters")
+        String fileType,
+
+        // Total size in bytes, known up front so the upload can tell when it is complete
+        @Positive(message = "Size must be positive")
+        long size
+) {
+}
@@ -0,0 +1,31 @@
+package se.lexicon.todo_app.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Table(name = "attachments_archive", indexes = @Index(name = "idx_attachments_archive_todo", columnList = "todo_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString(exclude = "todo")
+@EqualsAndHashCode(exclude = "todo")
+public class ArchivedAttachment {
+
+    @Id
+    private Long id;
+
+    private String fileName;
+    private String fileType;
+
+    @Lob
+    private byte[] data;
+
+    // Compression of data, null when stored as uploaded (see AttachmentCompressor)
+    @Enumerated(EnumType.STRING)
+    private AttachmentCodec codec;
+
+    @ManyToOne
+    @JoinColumn(name = "todo_id")
+    private ArchivedTodo todo;
+}
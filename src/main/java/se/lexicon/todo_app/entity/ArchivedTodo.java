@@ -0,0 +1,49 @@
+package se.lexicon.todo_app.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+// Completed todo moved out of the todos table by TodoArchiver; keeps its id and is read-only
+@Entity
+@Table(name = "todos_archive", indexes = @Index(name = "idx_todos_archive_person", columnList = "person_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString(exclude = "attachments")
+@EqualsAndHashCode(exclude = "attachments")
+public class ArchivedTodo {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String title;
+
+    @Column(length = 500)
+    private String description;
+
+    @Column(nullable = false)
+    private boolean completed;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime dueDate;
+
+    // Plain column rather than a relationship, so purging a person is not blocked by its archive
+    @Column(name = "person_id")
+    private Long personId;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+
+    @OneToMany(mappedBy = "todo", fetch = FetchType.LAZY)
+    @Setter(AccessLevel.NONE)
+    private Set<ArchivedAttachment> attachments = new HashSet<>();
+}
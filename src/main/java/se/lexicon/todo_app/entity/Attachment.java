@@ -24,6 +24,15 @@ public class Attachment {
     @Lob
     private byte[] data; // Store the file content
 
+    // Compression of data, null when stored as uploaded (see AttachmentCompressor)
+    @Enumerated(EnumType.STRING)
+    private AttachmentCodec codec;
+
+    // Small preview of image attachments, written in the background after commit (see AttachmentThumbnailer)
+    @Lob
+    private byte[] thumbnail;
+    private String thumbnailType;
+
     @ManyToOne
     @JoinColumn(name = "todo_id")
     private Todo todo;
@@ -0,0 +1,65 @@
+package se.lexicon.todo_app.entity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compression of stored attachment data, kept in the codec column; attachments without a codec are stored as uploaded.
+ * contentEncoding is the HTTP content coding of the same format, so compressed data can be sent to clients as is.
+ */
+public enum AttachmentCodec {
+    // zlib format, which is what HTTP calls "deflate"
+    DEFLATE("deflate") {
+        @Override
+        public OutputStream encoding(OutputStream out) {
+            return new DeflaterOutputStream(out);
+        }
+
+        @Override
+        public InputStream decoding(InputStream in) {
+            return new InflaterInputStream(in);
+        }
+    };
+
+    private final String contentEncoding;
+
+    AttachmentCodec(String contentEncoding) {
+        this.contentEncoding = contentEncoding;
+    }
+
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    public abstract OutputStream encoding(OutputStream out);
+
+    public abstract InputStream decoding(InputStream in);
+
+    public byte[] encode(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2);
+        try (OutputStream encoding = encoding(out)) {
+            encoding.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // Data stored with the given codec as uploaded; data without a codec is returned unchanged
+    public static byte[] decode(AttachmentCodec codec, byte[] data) {
+        if (codec == null || data == null) {
+            return data;
+        }
+        try (InputStream decoding = codec.decoding(new ByteArrayInputStream(data))) {
+            return decoding.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
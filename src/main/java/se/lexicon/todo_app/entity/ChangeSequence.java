@@ -0,0 +1,21 @@
+package se.lexicon.todo_app.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Single-row counter that hands out the modification sequence of todos and tombstones (see TodoChangeLog)
+@Entity
+@Table(name = "change_sequence")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeSequence {
+
+    @Id
+    private Integer id;
+
+    @Column(name = "last_value", nullable = false)
+    private long lastValue;
+}
@@ -4,15 +4,17 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "persons")
+@Table(name = "persons", indexes = @Index(name = "idx_persons_name", columnList = "name")) // See V5__query_indexes.sql
 @Data // Generates getters, setters, toString, equals, hashCode
 @NoArgsConstructor // No-args constructor
 @AllArgsConstructor // All-args constructor
+@SQLRestriction("deleted = false") // Soft-deleted persons are hidden from every query, see TodoPurger
 public class Person {
 
     @Id
@@ -31,6 +33,9 @@ public class Person {
     @JoinColumn(name = "user_id")
     private User user;
 
+    @Column(nullable = false)
+    private boolean deleted;
+
     public Person(String name, String email) {
         this.name = name;
         this.email = email;
@@ -2,18 +2,26 @@ package se.lexicon.todo_app.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "todos")
+@Table(name = "todos", indexes = { // Created by db/migration in production, see V5__query_indexes.sql
+        @Index(name = "idx_todos_change_seq", columnList = "change_seq, id"),
+        @Index(name = "idx_todos_person_completed_due", columnList = "person_id, completed, due_date"),
+        @Index(name = "idx_todos_completed_due", columnList = "completed, due_date"),
+        @Index(name = "idx_todos_due_date", columnList = "due_date")
+})
 @Data // Generates getters, setters, toString, equals, hashCode
 @NoArgsConstructor // No-args constructor
 @AllArgsConstructor // All-args constructor
-@ToString(exclude = "attachments") // Exclude person from toString to avoid circular reference
-@EqualsAndHashCode(exclude = "attachments")
+@ToString(exclude = {"person", "attachments"}) // Both are lazy, printing them would load them
+@EqualsAndHashCode(exclude = {"person", "attachments"})
+@SQLRestriction("deleted = false") // Soft-deleted todos are hidden from every query, see TodoPurger
 public class Todo {
 
     @Id
@@ -36,12 +44,22 @@ public class Todo {
 
     private LocalDateTime dueDate;
 
-    // Relationship with Person
-    @ManyToOne
+    // Modification sequence, renumbered after every change (see TodoChangeLog) and NULL until then; delta sync reads
+    // todos changed after a client's watermark
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
+    @Column(nullable = false)
+    private boolean deleted;
+
+    // Relationship with Person; lazy, since a todo only needs the person id (which does not load the person)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "person_id")
     private Person person;
 
+    // Fetched with the todos by the ...WithAttachments queries; otherwise loaded for up to 50 todos at a time
     @OneToMany(mappedBy = "todo", cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
+    @BatchSize(size = 50)
     @Setter(AccessLevel.NONE)
     private Set<Attachment> attachments = new HashSet<>();
 
@@ -59,9 +77,12 @@ public class Todo {
         this.completed = completed;
     }
 
+    // A todo moved to another shard keeps the creation time it was given
     @PrePersist
     protected void onCreate() {
-        this.createdAt = LocalDateTime.now();
+        if (this.createdAt == null) {
+            this.createdAt = LocalDateTime.now();
+        }
     }
 
     @PreUpdate
@@ -0,0 +1,40 @@
+package se.lexicon.todo_app.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Left behind by a deleted todo so delta-sync clients learn about the delete
+@Entity
+@Table(name = "todo_tombstones", indexes = @Index(name = "idx_todo_tombstones_change_seq", columnList = "change_seq"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoTombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "todo_id", nullable = false)
+    private Long todoId;
+
+    @Column(name = "person_id")
+    private Long personId;
+
+    // NULL until numbered after the delete commits (see TodoChangeLog)
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
+    @Column(nullable = false)
+    private LocalDateTime deletedAt;
+
+    public TodoTombstone(Long todoId, Long personId) {
+        this.todoId = todoId;
+        this.personId = personId;
+        this.deletedAt = LocalDateTime.now();
+    }
+}
@@ -2,6 +2,7 @@ package se.lexicon.todo_app.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -11,6 +12,7 @@ import java.util.Set;
 @Data
 @Entity
 @Table(name = "users")
+@SQLRestriction("deleted = false") // Deleted with its person, so the login stops working right away
 public class User {
     @Id
     @Column(nullable = false, updatable = false)
@@ -30,6 +32,9 @@ public class User {
 
     private boolean expired;
 
+    @Column(nullable = false)
+    private boolean deleted;
+
     @OneToOne(mappedBy = "user")
     private Person person;
 
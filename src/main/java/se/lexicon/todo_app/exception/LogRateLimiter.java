@@ -0,0 +1,54 @@
+package se.lexicon.todo_app.exception;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * LogRateLimiter lets a limited number of log events per key through within a time window.
+ * Events over the limit are counted instead of logged, and the count is handed to the next permitted event
+ * so a burst of identical failures ends up as a few log lines plus a "suppressed N similar" note.
+ */
+class LogRateLimiter {
+
+    // Keys are exception class names, so the map stays small; this is a safety net against unbounded keys
+    private static final int MAX_KEYS = 1_000;
+
+    private final int permitsPerWindow;
+    private final long windowNanos;
+    private final ConcurrentHashMap<String, Window> windows = new ConcurrentHashMap<>();
+
+    LogRateLimiter(int permitsPerWindow, long windowMillis) {
+        this.permitsPerWindow = permitsPerWindow;
+        this.windowNanos = windowMillis * 1_000_000L;
+    }
+
+    /**
+     * @return -1 when the event should be dropped, otherwise the number of events suppressed since the last permitted one
+     */
+    long tryAcquire(String key) {
+        if (windows.size() >= MAX_KEYS && !windows.containsKey(key)) {
+            windows.clear();
+        }
+        return windows.computeIfAbsent(key, k -> new Window()).tryAcquire(System.nanoTime());
+    }
+
+    private class Window {
+        private long startNanos = System.nanoTime();
+        private int used;
+        private long suppressed;
+
+        private synchronized long tryAcquire(long now) {
+            if (now - startNanos >= windowNanos) {
+                startNanos = now;
+                used = 0;
+            }
+            if (used >= permitsPerWindow) {
+                suppressed++;
+                return -1;
+            }
+            used++;
+            long dropped = suppressed;
+            suppressed = 0;
+            return dropped;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package se.lexicon.todo_app.exception;
 
 import jakarta.validation.ConstraintViolationException;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -11,14 +12,18 @@ import org.springframework.web.servlet.resource.NoResourceFoundException;
 import javax.naming.AuthenticationException;
 import java.nio.file.AccessDeniedException;
 
+@Slf4j
 @ControllerAdvice
 public class MyExceptionHandler {
 
+    // Client errors are logged at debug level; warnings and errors are rate limited per exception type
+    private final LogRateLimiter logRateLimiter = new LogRateLimiter(10, 60_000);
+
 
     // Handle resource not found
     @ExceptionHandler(NoResourceFoundException.class)
     public ResponseEntity<ErrorResponse> handleNoResourceFound(NoResourceFoundException ex) {
-        System.out.println("HandleNoResourceFound: " + ex.getMessage());
+        log.debug("HandleNoResourceFound: {}", ex.getMessage());
         String errorMessage = "Resource not found: " + ex.getMessage();
         return createErrorResponse(HttpStatus.NOT_FOUND, errorMessage);
     }
@@ -27,7 +32,7 @@ public class MyExceptionHandler {
     // Handle invalid URI parameters (type mismatch)
     @ExceptionHandler(MethodArgumentTypeMismatchException.class)
     public ResponseEntity<ErrorResponse> handleMethodArgumentTypeMismatch(MethodArgumentTypeMismatchException ex) {
-        System.out.println("HandleMethodArgumentTypeMismatch: " + ex.getMessage());
+        log.debug("HandleMethodArgumentTypeMismatch: {}", ex.getMessage());
         String invalidParamMessage = "Parameter '%s' should be of type %s";
         String errorMessage = String.format(invalidParamMessage,
                 ex.getName(),
@@ -39,17 +44,24 @@ public class MyExceptionHandler {
     // Handle validation errors
     @ExceptionHandler(ConstraintViolationException.class)
     public ResponseEntity<ErrorResponse> handleValidationViolation(ConstraintViolationException ex) {
-        System.out.println("HandleValidationViolation: " + ex.getMessage());
+        log.debug("HandleValidationViolation: {}", ex.getMessage());
         String[] violations = ex.getConstraintViolations().stream()
                 .map(violation -> violation.getMessage())
                 .toArray(String[]::new);
         return createErrorResponse(HttpStatus.BAD_REQUEST, violations);
     }
 
+    // Handle changes to archived todos
+    @ExceptionHandler(TodoArchivedException.class)
+    public ResponseEntity<ErrorResponse> handleTodoArchived(TodoArchivedException ex) {
+        log.debug("HandleTodoArchived: {}", ex.getMessage());
+        return createErrorResponse(HttpStatus.CONFLICT, ex.getMessage());
+    }
+
     // Handle runtime exceptions
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<ErrorResponse> handleRuntimeException(RuntimeException ex) {
-        System.out.println("HandleRuntimeException: " + ex.getMessage());
+        log.debug("HandleRuntimeException: {}", ex.getMessage());
         return createErrorResponse(HttpStatus.BAD_REQUEST, ex.getMessage());
     }
 
@@ -57,22 +69,28 @@ public class MyExceptionHandler {
     @ExceptionHandler(Exception.class)
     // ResponseEntity is a Spring class that represents the entire HTTP response, including status code, headers, and body.
     public ResponseEntity<ErrorResponse> handleGlobalException(Exception ex) {
-        System.out.println("HandleGlobalException: " + ex.getMessage());
         String uuid = java.util.UUID.randomUUID().toString().toUpperCase();
-        System.err.println("Error ID: " + uuid + " - " + ex.getMessage());
+        long suppressed = logRateLimiter.tryAcquire(ex.getClass().getName());
+        if (suppressed >= 0) {
+            log.error("Error ID: {} - {} (suppressed {} similar)", uuid, ex.getMessage(), suppressed, ex);
+        } else {
+            log.debug("Error ID: {} - {}", uuid, ex.getMessage());
+        }
         return createErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "An unexpected error occurred: " + uuid);
     }
 
     @ExceptionHandler(AccessDeniedException.class)
     public ResponseEntity<ErrorResponse> handleAccessDeniedException(AccessDeniedException ex) {
-        System.out.println("HandleAccessDeniedException: " + ex.getMessage());
-        ex.printStackTrace();
+        long suppressed = logRateLimiter.tryAcquire(ex.getClass().getName());
+        if (suppressed >= 0) {
+            log.warn("HandleAccessDeniedException: {} (suppressed {} similar)", ex.getMessage(), suppressed);
+        }
         return createErrorResponse(HttpStatus.FORBIDDEN, "Access denied: " + ex.getMessage());
     }
 
     @ExceptionHandler(AuthenticationException.class)
     public ResponseEntity<ErrorResponse> handleAuthenticationException(AuthenticationException ex) {
-        System.out.println("HandleAuthenticationException: " + ex.getMessage());
+        log.debug("HandleAuthenticationException: {}", ex.getMessage());
         return createErrorResponse(HttpStatus.UNAUTHORIZED, "Authentication failed: " + ex.getMessage());
     }
 
@@ -83,4 +101,4 @@ public class MyExceptionHandler {
     }
 
 
-}
\ No newline at end of file
+}
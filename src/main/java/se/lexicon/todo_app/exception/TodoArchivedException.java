@@ -0,0 +1,9 @@
+package se.lexicon.todo_app.exception;
+
+// Archived todos are read-only; changing one is answered with 409 Conflict (see MyExceptionHandler)
+public class TodoArchivedException extends RuntimeException {
+
+    public TodoArchivedException(Long id) {
+        super("Todo " + id + " is archived and cannot be changed");
+    }
+}
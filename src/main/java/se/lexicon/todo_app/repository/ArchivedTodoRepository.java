@@ -0,0 +1,74 @@
+package se.lexicon.todo_app.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import se.lexicon.todo_app.dto.AttachmentInfoDto;
+import se.lexicon.todo_app.dto.TodoGroupCountDto;
+import se.lexicon.todo_app.entity.ArchivedTodo;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ArchivedTodoRepository extends JpaRepository<ArchivedTodo, Long> {
+
+    // 👤 Find archived todos by person ID
+    List<ArchivedTodo> findByPersonId(Long personId);
+
+    // ✅ Find archived todos by completed status
+    List<ArchivedTodo> findByCompleted(boolean completed);
+
+    // 📎 Attachments of these archived todos without their data (archived attachments have no thumbnail)
+    @Query("select new se.lexicon.todo_app.dto.AttachmentInfoDto(a.todo.id, a.id, a.fileName, a.fileType, false) " +
+            "from ArchivedAttachment a where a.todo.id in :todoIds order by a.id")
+    List<AttachmentInfoDto> findAttachmentInfoByTodoIds(@Param("todoIds") Collection<Long> todoIds);
+
+    // 🔒 Lock one archived todo without its attachments, to delete it
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from ArchivedTodo t where t.id = :id")
+    Optional<ArchivedTodo> lockById(@Param("id") Long id);
+
+    // 📊 Count archived tasks grouped by person and completed status (added to the stats counters)
+    @Query("select new se.lexicon.todo_app.dto.TodoGroupCountDto(t.personId, t.completed, count(t)) " +
+            "from ArchivedTodo t group by t.personId, t.completed")
+    List<TodoGroupCountDto> countGroupedByPersonAndCompleted();
+
+    // 🧊 Copy todos into the archive inside the database, so attachment data never passes through the application
+    @Modifying
+    @Query(value = "INSERT INTO todos_archive (id, title, description, completed, created_at, updated_at, due_date, person_id, archived_at) " +
+            "SELECT id, title, description, completed, created_at, updated_at, due_date, person_id, :archivedAt " +
+            "FROM todos WHERE id IN (:ids)", nativeQuery = true)
+    int copyFromTodos(@Param("ids") List<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+
+    // 🧊 Copy the attachments of those todos
+    @Modifying
+    @Query(value = "INSERT INTO attachments_archive (id, file_name, file_type, data, codec, todo_id) " +
+            "SELECT id, file_name, file_type, data, codec, todo_id FROM attachments WHERE todo_id IN (:ids)", nativeQuery = true)
+    int copyAttachmentsFromTodos(@Param("ids") List<Long> ids);
+
+    // 🗑️ Remove the archive of purged persons, attachments first
+    @Modifying
+    @Query(value = "DELETE FROM attachments_archive WHERE todo_id IN (SELECT id FROM todos_archive WHERE person_id IN (:personIds))",
+            nativeQuery = true)
+    void purgeAttachmentsByPersonIds(@Param("personIds") List<Long> personIds);
+
+    @Modifying
+    @Query(value = "DELETE FROM todos_archive WHERE person_id IN (:personIds)", nativeQuery = true)
+    void purgeByPersonIds(@Param("personIds") List<Long> personIds);
+
+    // 🗑️ Remove one archived todo, attachments first; archived todos are deleted right away, not soft-deleted
+    @Modifying
+    @Query(value = "DELETE FROM attachments_archive WHERE todo_id = :id", nativeQuery = true)
+    void purgeAttachmentsById(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "DELETE FROM todos_archive WHERE id = :id", nativeQuery = true)
+    void purgeById(@Param("id") Long id);
+}
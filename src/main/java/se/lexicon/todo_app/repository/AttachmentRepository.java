@@ -1,9 +1,53 @@
 package se.lexicon.todo_app.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import se.lexicon.todo_app.dto.AttachmentContentDto;
+import se.lexicon.todo_app.dto.AttachmentInfoDto;
+import se.lexicon.todo_app.dto.AttachmentPreviewDto;
+import se.lexicon.todo_app.dto.AttachmentRefDto;
 import se.lexicon.todo_app.entity.Attachment;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface AttachmentRepository extends JpaRepository<Attachment, Long> {
+public interface AttachmentRepository extends JpaRepository<Attachment, Long>, AttachmentStreamRepository {
+
+    // 🗑️ Remove the attachments of purged todos without loading their data
+    @Modifying
+    @Query(value = "DELETE FROM attachments WHERE todo_id IN (:todoIds)", nativeQuery = true)
+    int purgeByTodoIds(@Param("todoIds") List<Long> todoIds);
+
+    // 📎 File of one attachment of a live todo as stored (possibly compressed), without the thumbnail
+    // (joined like findPreview, so attachments of deleted todos are not found)
+    @Query("select new se.lexicon.todo_app.dto.AttachmentContentDto(a.fileName, a.fileType, a.codec, a.data) from Attachment a " +
+            "join a.todo t where a.id = :id and t.id = :todoId and t.deleted = false")
+    Optional<AttachmentContentDto> findContent(@Param("todoId") Long todoId, @Param("id") Long id);
+
+    // 🖼️ Store a generated thumbnail; updates nothing when the attachment was replaced in the meantime
+    @Modifying
+    @Query("update Attachment a set a.thumbnail = :thumbnail, a.thumbnailType = :thumbnailType where a.id = :id")
+    int saveThumbnail(@Param("id") Long id, @Param("thumbnail") byte[] thumbnail, @Param("thumbnailType") String thumbnailType);
+
+    // 🖼️ Thumbnail of one attachment of a live todo, without loading the attachment's data
+    // (a.todo.id alone would only compare the foreign key, so the todo is joined to check it is not deleted)
+    @Query("select new se.lexicon.todo_app.dto.AttachmentPreviewDto(a.thumbnailType, a.thumbnail) from Attachment a " +
+            "join a.todo t where a.id = :id and t.id = :todoId and t.deleted = false and a.thumbnail is not null")
+    Optional<AttachmentPreviewDto> findPreview(@Param("todoId") Long todoId, @Param("id") Long id);
+
+    // 🖼️ Attachments of these todos that have a thumbnail
+    @Query("select new se.lexicon.todo_app.dto.AttachmentRefDto(a.todo.id, a.id) from Attachment a " +
+            "where a.todo.id in :todoIds and a.thumbnail is not null order by a.id")
+    List<AttachmentRefDto> findPreviewRefs(@Param("todoIds") Collection<Long> todoIds);
+
+    // 📎 Attachments of these todos without their data or thumbnail
+    @Query("select new se.lexicon.todo_app.dto.AttachmentInfoDto(a.todo.id, a.id, a.fileName, a.fileType, " +
+            "case when a.thumbnail is not null then true else false end) from Attachment a " +
+            "where a.todo.id in :todoIds order by a.id")
+    List<AttachmentInfoDto> findInfoByTodoIds(@Param("todoIds") Collection<Long> todoIds);
 }
@@ -0,0 +1,26 @@
+package se.lexicon.todo_app.repository;
+
+import se.lexicon.todo_app.dto.AttachmentFileDto;
+import se.lexicon.todo_app.entity.AttachmentCodec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Custom part of AttachmentRepository for files too large to load into memory, see AttachmentStreamRepositoryImpl.
+ */
+public interface AttachmentStreamRepository {
+
+    // Inserts an attachment of the todo with its data read from the file (stored with codec), returns the new id
+    Long insertFromFile(Long todoId, String fileName, String fileType, AttachmentCodec codec, Path data);
+
+    // Passes the stored data of an attachment of a live or archived todo to the writer while it is read from the
+    // database; false when there is no such attachment
+    boolean streamContent(Long todoId, Long id, ContentWriter writer);
+
+    @FunctionalInterface
+    interface ContentWriter {
+        void write(AttachmentFileDto file, InputStream data) throws IOException;
+    }
+}
@@ -0,0 +1,80 @@
+package se.lexicon.todo_app.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import se.lexicon.todo_app.dto.AttachmentFileDto;
+import se.lexicon.todo_app.entity.AttachmentCodec;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+
+/**
+ * Hands the file to the driver as a stream, so the data is not read into a byte array first, and reads it back as the
+ * column's stream. Runs in the caller's transaction. MySQL Connector/J sends it in pieces only with server-side prepared
+ * statements (useServerPrepStmts=true); otherwise the driver builds the whole statement in memory.
+ */
+class AttachmentStreamRepositoryImpl implements AttachmentStreamRepository {
+
+    // Joined like AttachmentRepository.findContent, so attachments of deleted todos are not found
+    private static final String LIVE_CONTENT = "SELECT a.file_name, a.file_type, a.codec, OCTET_LENGTH(a.data) AS stored_size, a.data " +
+            "FROM attachments a JOIN todos t ON t.id = a.todo_id WHERE a.id = ? AND t.id = ? AND t.deleted = false";
+
+    private static final String ARCHIVED_CONTENT = "SELECT file_name, file_type, codec, OCTET_LENGTH(data) AS stored_size, data " +
+            "FROM attachments_archive WHERE id = ? AND todo_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    AttachmentStreamRepositoryImpl(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public Long insertFromFile(Long todoId, String fileName, String fileType, AttachmentCodec codec, Path data) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        try (InputStream in = Files.newInputStream(data)) {
+            long length = Files.size(data);
+            jdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(
+                        "INSERT INTO attachments (todo_id, file_name, file_type, codec, data) VALUES (?, ?, ?, ?, ?)",
+                        new String[]{"id"});
+                ps.setLong(1, todoId);
+                ps.setString(2, fileName);
+                ps.setString(3, fileType);
+                ps.setString(4, codec != null ? codec.name() : null);
+                ps.setBinaryStream(5, in, length);
+                return ps;
+            }, keys);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return keys.getKey().longValue();
+    }
+
+    @Override
+    public boolean streamContent(Long todoId, Long id, ContentWriter writer) {
+        return streamContent(LIVE_CONTENT, todoId, id, writer) || streamContent(ARCHIVED_CONTENT, todoId, id, writer);
+    }
+
+    private boolean streamContent(String sql, Long todoId, Long id, ContentWriter writer) {
+        return Boolean.TRUE.equals(jdbcTemplate.query(sql, rs -> {
+            if (!rs.next()) {
+                return false;
+            }
+            String codec = rs.getString("codec");
+            AttachmentFileDto file = new AttachmentFileDto(rs.getString("file_name"), rs.getString("file_type"),
+                    codec != null ? AttachmentCodec.valueOf(codec) : null, rs.getLong("stored_size"));
+            try (InputStream in = rs.getBinaryStream("data")) {
+                writer.write(file, in != null ? in : InputStream.nullInputStream());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return true;
+        }, id, todoId));
+    }
+}
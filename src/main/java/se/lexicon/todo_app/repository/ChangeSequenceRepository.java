@@ -0,0 +1,20 @@
+package se.lexicon.todo_app.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import se.lexicon.todo_app.entity.ChangeSequence;
+
+import java.util.Optional;
+
+@Repository
+public interface ChangeSequenceRepository extends JpaRepository<ChangeSequence, Integer> {
+
+    // 🔒 Read the counter and lock it until the transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from ChangeSequence s where s.id = :id")
+    Optional<ChangeSequence> lockById(@Param("id") Integer id);
+}
@@ -0,0 +1,75 @@
+package se.lexicon.todo_app.repository;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import se.lexicon.todo_app.entity.Person;
+import se.lexicon.todo_app.entity.User;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inserts new persons with their user and roles as JDBC batches, one round trip per table instead of one per row.
+ * Persons use IDENTITY ids, which keeps Hibernate from batching these inserts itself.
+ */
+@Repository
+public class PersonBatchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PersonBatchRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    // Sets the generated ids on the persons. Users go first, because persons.user_id references them
+    @Transactional
+    public void insertAll(List<Person> persons) {
+        List<User> users = persons.stream().map(Person::getUser).toList();
+        jdbcTemplate.batchUpdate("INSERT INTO users (username, password, expired, deleted) VALUES (?, ?, false, false)",
+                users, users.size(), (ps, user) -> {
+                    ps.setString(1, user.getUsername());
+                    ps.setString(2, user.getPassword());
+                });
+
+        List<Object[]> roles = users.stream()
+                .flatMap(user -> user.getRoles().stream().map(role -> new Object[]{user.getUsername(), role.name()}))
+                .toList();
+        jdbcTemplate.batchUpdate("INSERT INTO user_roles (username, role) VALUES (?, ?)", roles);
+
+        LocalDate today = LocalDate.now();
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(
+                        "INSERT INTO persons (name, email, created_at, user_id, deleted) VALUES (?, ?, ?, ?, false)",
+                        new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Person person = persons.get(i);
+                        ps.setString(1, person.getName());
+                        ps.setString(2, person.getEmail());
+                        ps.setDate(3, Date.valueOf(today));
+                        ps.setString(4, person.getUser().getUsername());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return persons.size();
+                    }
+                }, keys);
+
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < persons.size(); i++) {
+            persons.get(i).setId(((Number) generated.get(i).values().iterator().next()).longValue());
+            persons.get(i).setCreatedAt(today);
+        }
+    }
+}
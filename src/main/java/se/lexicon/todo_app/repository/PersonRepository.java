@@ -1,9 +1,16 @@
 package se.lexicon.todo_app.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import se.lexicon.todo_app.dto.PersonDto;
 import se.lexicon.todo_app.entity.Person;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,5 +18,40 @@ public interface PersonRepository extends JpaRepository<Person, Long> {
 
     Optional<Person> findByEmail(String email);
     Optional<Person> findByUserUsername(String username);
-    boolean existsByEmail(String email);
+
+    // 📇 Read-only views select only id, name and email, skipping the eager User and roles graph
+    @Query("select new se.lexicon.todo_app.dto.PersonDto(p.id, p.name, p.email) from Person p")
+    List<PersonDto> findAllDtos(Pageable pageable);
+
+    @Query("select new se.lexicon.todo_app.dto.PersonDto(p.id, p.name, p.email) from Person p where p.id = :id")
+    Optional<PersonDto> findDtoById(@Param("id") Long id);
+
+    @Query("select new se.lexicon.todo_app.dto.PersonDto(p.id, p.name, p.email) from Person p where p.email = :email")
+    Optional<PersonDto> findDtoByEmail(@Param("email") String email);
+
+    // 📧 Emails of soft-deleted persons stay taken until they are purged, so this check includes them
+    @Query(value = "SELECT COUNT(*) FROM persons WHERE email = :email", nativeQuery = true)
+    long countByEmailIncludingDeleted(@Param("email") String email);
+
+    default boolean existsByEmail(String email) {
+        return countByEmailIncludingDeleted(email) > 0;
+    }
+
+    // 📧 Which of these emails are taken, soft-deleted persons included: one query for a whole bulk registration
+    @Query(value = "SELECT email FROM persons WHERE email IN (:emails)", nativeQuery = true)
+    List<String> findTakenEmails(@Param("emails") Collection<String> emails);
+
+    // 🗑️ Soft-deleted persons whose todos have been purged already
+    @Query(value = "SELECT id FROM persons p WHERE p.deleted = true " +
+            "AND NOT EXISTS (SELECT 1 FROM todos t WHERE t.person_id = p.id) ORDER BY id LIMIT :limit", nativeQuery = true)
+    List<Long> findPurgeableIds(@Param("limit") int limit);
+
+    // 👤 Usernames of persons, including soft-deleted ones
+    @Query(value = "SELECT user_id FROM persons WHERE id IN (:ids) AND user_id IS NOT NULL", nativeQuery = true)
+    List<String> findUsernamesIncludingDeleted(@Param("ids") List<Long> ids);
+
+    // 🗑️ Physically remove soft-deleted persons
+    @Modifying
+    @Query(value = "DELETE FROM persons WHERE id IN (:ids) AND deleted = true", nativeQuery = true)
+    int purgeByIds(@Param("ids") List<Long> ids);
 }
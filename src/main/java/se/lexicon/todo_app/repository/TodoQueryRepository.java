@@ -0,0 +1,15 @@
+package se.lexicon.todo_app.repository;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import se.lexicon.todo_app.dto.TodoSummaryDto;
+import se.lexicon.todo_app.entity.Todo;
+
+import java.util.List;
+
+// Part of TodoRepository, implemented by TodoQueryRepositoryImpl
+public interface TodoQueryRepository {
+
+    // 🔎 Todos matching a specification (see TodoSpecifications) as summaries, reading only the summary columns
+    List<TodoSummaryDto> findSummaries(Specification<Todo> specification, Sort sort, int limit);
+}
@@ -0,0 +1,44 @@
+package se.lexicon.todo_app.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import se.lexicon.todo_app.dto.TodoSummaryDto;
+import se.lexicon.todo_app.entity.Todo;
+
+import java.util.List;
+
+/**
+ * Builds one select of the summary columns with the specification as where clause. The person id is read from the
+ * person_id column, so persons is not joined.
+ */
+class TodoQueryRepositoryImpl implements TodoQueryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<TodoSummaryDto> findSummaries(Specification<Todo> specification, Sort sort, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TodoSummaryDto> query = cb.createQuery(TodoSummaryDto.class);
+        Root<Todo> todo = query.from(Todo.class);
+        query.select(cb.construct(TodoSummaryDto.class,
+                todo.get("id"), todo.get("title"), todo.get("completed"),
+                todo.get("createdAt"), todo.get("dueDate"), todo.get("person").get("id")));
+
+        Predicate where = specification.toPredicate(todo, query, cb);
+        if (where != null) {
+            query.where(where);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, todo, cb));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -1,21 +1,27 @@
 package se.lexicon.todo_app.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import se.lexicon.todo_app.dto.TodoGroupCountDto;
 import se.lexicon.todo_app.entity.Todo;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface TodoRepository extends JpaRepository<Todo, Long> {
+public interface TodoRepository extends JpaRepository<Todo, Long>, TodoQueryRepository {
 
     // 🔍 Find todos by title keyword (case-insensitive contains)
     List<Todo> findByTitleContainingIgnoreCase(String title);
     // SELECT * FROM todos WHERE LOWER(title) LIKE LOWER(CONCAT('%', :title, '%'));
 
-    // 👤 Find todos by person ID
-    List<Todo> findByPerson_Id(Long personId);
+    // 👤 Find todos by person ID (compares the person_id column, a derived query would join persons first)
+    @Query("select t from Todo t where t.person.id = :personId")
+    List<Todo> findByPerson_Id(@Param("personId") Long personId);
     // SELECT * FROM todos WHERE person_id = :personId;
 
     // ✅ Find todos by completed status
@@ -32,15 +38,75 @@ public interface TodoRepository extends JpaRepository<Todo, Long> {
     // ❌ Find unassigned todos (person is null)
     List<Todo> findByPersonIsNull();
 
+    // 🔒 Lock up to :limit unassigned todos, skipping rows other transactions already locked (work-queue claiming)
+    @Query(value = "SELECT * FROM todos WHERE person_id IS NULL AND deleted = false ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Todo> lockUnassigned(@Param("limit") int limit);
+
+    // ❌ Ids of unassigned todos after :afterId, without locking them
+    @Query("select t.id from Todo t where t.person is null and t.id > :afterId order by t.id")
+    List<Long> findUnassignedIds(@Param("afterId") long afterId, Limit limit);
+
+    // 🔒 Lock those of the given todos that are still unassigned, skipping rows other transactions already locked
+    @Query(value = "SELECT * FROM todos WHERE id IN (:ids) AND person_id IS NULL AND deleted = false FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Todo> lockUnassignedByIds(@Param("ids") List<Long> ids);
+
+    // 🔄 Todos changed after a (change_seq, id) position up to :maxSeq, in that order (delta sync, uses idx_todos_change_seq)
+    @Query("select t from Todo t where t.changeSeq >= :changeSeq and t.changeSeq <= :maxSeq " +
+            "and (t.changeSeq > :changeSeq or t.id > :id) order by t.changeSeq, t.id")
+    List<Todo> findChangedAfter(@Param("changeSeq") long changeSeq, @Param("id") long id,
+                                @Param("maxSeq") long maxSeq, Limit limit);
+
+    // 🔢 Lock up to :limit committed todos waiting for a change number, skipping rows a writer still holds (see TodoChangeLog)
+    @Query(value = "SELECT id FROM todos WHERE change_seq IS NULL ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockUnstamped(@Param("limit") int limit);
+
+    // 🔢 Give a todo its change number
+    @Modifying
+    @Query(value = "UPDATE todos SET change_seq = :changeSeq WHERE id = :id", nativeQuery = true)
+    int stamp(@Param("id") Long id, @Param("changeSeq") long changeSeq);
+
     // 🔥 Find unfinished & overdue tasks (custom query)
     List<Todo> findByCompletedFalseAndDueDateBefore(LocalDateTime dateTime);
 
     // ✅ Find completed tasks assigned to a specific person
-    List<Todo> findByPersonIdAndCompletedTrue(Long personId);
+    @Query("select t from Todo t where t.person.id = :personId and t.completed = true")
+    List<Todo> findByPersonIdAndCompletedTrue(@Param("personId") Long personId);
 
     // 📅 Find all with no due date
     List<Todo> findByDueDateIsNull();
 
     // 📌 Count all tasks assigned to a person
-    long countByPersonId(Long personId);
+    @Query("select count(t) from Todo t where t.person.id = :personId")
+    long countByPersonId(@Param("personId") Long personId);
+
+    // 📊 Count tasks grouped by person and completed status (used to reconcile the stats counters)
+    @Query("select new se.lexicon.todo_app.dto.TodoGroupCountDto(p.id, t.completed, count(t)) " +
+            "from Todo t left join t.person p group by p.id, t.completed")
+    List<TodoGroupCountDto> countGroupedByPersonAndCompleted();
+
+    // 📊 Count unfinished overdue tasks grouped by person
+    @Query("select new se.lexicon.todo_app.dto.TodoGroupCountDto(p.id, false, count(t)) " +
+            "from Todo t left join t.person p where t.completed = false and t.dueDate < :dateTime group by p.id")
+    List<TodoGroupCountDto> countOverdueGroupedByPerson(@Param("dateTime") LocalDateTime dateTime);
+
+    // 🗑️ Soft-deleted todos waiting to be purged (native, so the deleted filter does not apply)
+    @Query(value = "SELECT id FROM todos WHERE deleted = true ORDER BY id LIMIT :limit", nativeQuery = true)
+    List<Long> findDeletedIds(@Param("limit") int limit);
+
+    // 🗑️ Physically remove soft-deleted todos
+    @Modifying
+    @Query(value = "DELETE FROM todos WHERE id IN (:ids) AND deleted = true", nativeQuery = true)
+    int purgeByIds(@Param("ids") List<Long> ids);
+
+    // 🧊 Lock completed todos last changed before :cutoff for archiving, skipping rows being edited right now
+    @Query(value = "SELECT id FROM todos WHERE completed = true AND deleted = false " +
+            "AND COALESCE(updated_at, created_at) < :cutoff ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockArchivable(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    // 🧊 Remove todos that were copied into the archive
+    @Modifying
+    @Query(value = "DELETE FROM todos WHERE id IN (:ids) AND completed = true", nativeQuery = true)
+    int deleteArchived(@Param("ids") List<Long> ids);
 }
@@ -0,0 +1,110 @@
+package se.lexicon.todo_app.repository;
+
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+import se.lexicon.todo_app.dto.TodoQueryDto;
+import se.lexicon.todo_app.entity.Todo;
+
+import java.time.LocalDateTime;
+
+/**
+ * Building blocks of the composable todo query (TodoQueryRepository). Each one is a plain column comparison,
+ * so the combined where clause can use the indexes of V5__query_indexes.sql; only the title search cannot.
+ */
+public final class TodoSpecifications {
+
+    private TodoSpecifications() {
+    }
+
+    // ➕ All given filters combined with AND
+    public static Specification<Todo> matching(TodoQueryDto filter) {
+        Specification<Todo> specification = Specification.where(null);
+        if (filter.personId() != null) {
+            specification = specification.and(personIdEquals(filter.personId()));
+        }
+        if (filter.completed() != null) {
+            specification = specification.and(completedEquals(filter.completed()));
+        }
+        if (filter.dueFrom() != null) {
+            specification = specification.and(dueFrom(filter.dueFrom()));
+        }
+        if (filter.dueTo() != null) {
+            specification = specification.and(dueBefore(filter.dueTo()));
+        }
+        if (filter.hasDueDate() != null) {
+            specification = specification.and(hasDueDate(filter.hasDueDate()));
+        }
+        if (filter.unassigned() != null) {
+            specification = specification.and(unassigned(filter.unassigned()));
+        }
+        if (filter.title() != null && !filter.title().isBlank()) {
+            specification = specification.and(titleContains(filter.title()));
+        }
+        return specification;
+    }
+
+    // 👤 person_id = :personId (the foreign key column, persons is not joined)
+    public static Specification<Todo> personIdEquals(Long personId) {
+        return (todo, query, cb) -> cb.equal(todo.get("person").get("id"), personId);
+    }
+
+    // ✅ completed = :completed
+    public static Specification<Todo> completedEquals(boolean completed) {
+        return (todo, query, cb) -> cb.equal(todo.get("completed"), completed);
+    }
+
+    // 🗓️ due_date >= :from
+    public static Specification<Todo> dueFrom(LocalDateTime from) {
+        return (todo, query, cb) -> cb.greaterThanOrEqualTo(todo.get("dueDate"), from);
+    }
+
+    // 🗓️ due_date < :to
+    public static Specification<Todo> dueBefore(LocalDateTime to) {
+        return (todo, query, cb) -> cb.lessThan(todo.get("dueDate"), to);
+    }
+
+    // 📅 due_date IS [NOT] NULL
+    public static Specification<Todo> hasDueDate(boolean hasDueDate) {
+        return (todo, query, cb) -> hasDueDate ? cb.isNotNull(todo.get("dueDate")) : cb.isNull(todo.get("dueDate"));
+    }
+
+    // ❌ person_id IS [NOT] NULL
+    public static Specification<Todo> unassigned(boolean unassigned) {
+        return (todo, query, cb) -> unassigned ? cb.isNull(todo.get("person")) : cb.isNotNull(todo.get("person"));
+    }
+
+    // 🔍 LOWER(title) LIKE %:part% (wildcards in the search text match literally)
+    public static Specification<Todo> titleContains(String part) {
+        String pattern = "%" + part.toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+        return (todo, query, cb) -> cb.like(cb.lower(todo.get("title")), pattern, '\\');
+    }
+
+    /**
+     * ⏭️ Rows after a keyset cursor position, for a sort on property with id as tie-breaker in the same direction.
+     * Written as "key >= value AND (key > value OR id > lastId)" so the key range can use an index.
+     * Only dueDate can be null; nulls sort first ascending and last descending, as MySQL and H2 order them.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Todo> after(String property, boolean ascending, Comparable value, long id) {
+        return (todo, query, cb) -> {
+            Expression<Long> todoId = todo.get("id");
+            Predicate idAfter = ascending ? cb.greaterThan(todoId, id) : cb.lessThan(todoId, id);
+            if (property.equals("id")) {
+                return idAfter;
+            }
+            Expression<Comparable> key = todo.get(property);
+            if (value == null) {
+                Predicate nullsAfter = cb.and(cb.isNull(key), idAfter);
+                return ascending ? cb.or(nullsAfter, cb.isNotNull(key)) : nullsAfter;
+            }
+            Predicate keyAfter = ascending
+                    ? cb.and(cb.greaterThanOrEqualTo(key, value), cb.or(cb.greaterThan(key, value), idAfter))
+                    : cb.and(cb.lessThanOrEqualTo(key, value), cb.or(cb.lessThan(key, value), idAfter));
+            return ascending || !property.equals("dueDate") ? keyAfter : cb.or(keyAfter, cb.isNull(key));
+        };
+    }
+}
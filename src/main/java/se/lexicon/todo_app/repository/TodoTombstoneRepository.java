@@ -0,0 +1,29 @@
+package se.lexicon.todo_app.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import se.lexicon.todo_app.entity.TodoTombstone;
+
+import java.util.List;
+
+@Repository
+public interface TodoTombstoneRepository extends JpaRepository<TodoTombstone, Long> {
+
+    // 🪦 Deletes recorded in a modification sequence range, oldest first
+    List<TodoTombstone> findByChangeSeqGreaterThanAndChangeSeqLessThanEqualOrderByChangeSeq(long changeSeq, long maxSeq, Limit limit);
+    // SELECT * FROM todo_tombstones WHERE change_seq > :changeSeq AND change_seq <= :maxSeq ORDER BY change_seq LIMIT :limit;
+
+    // 🔢 Lock up to :limit committed tombstones waiting for a change number, skipping rows a writer still holds (see TodoChangeLog)
+    @Query(value = "SELECT id FROM todo_tombstones WHERE change_seq IS NULL ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Long> lockUnstamped(@Param("limit") int limit);
+
+    // 🔢 Give a tombstone its change number
+    @Modifying
+    @Query(value = "UPDATE todo_tombstones SET change_seq = :changeSeq WHERE id = :id", nativeQuery = true)
+    int stamp(@Param("id") Long id, @Param("changeSeq") long changeSeq);
+}
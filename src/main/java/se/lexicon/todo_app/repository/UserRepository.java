@@ -7,13 +7,24 @@ import org.springframework.data.repository.query.Param;
 import se.lexicon.todo_app.entity.Role;
 import se.lexicon.todo_app.entity.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends CrudRepository<User, Integer> {
     Optional<User> findByUsername(String username);
 
-    Boolean existsByUsername(String username);
+    // Usernames of soft-deleted users stay taken until they are purged, so this check includes them
+    @Query(value = "SELECT COUNT(*) FROM users WHERE username = :username", nativeQuery = true)
+    long countByUsernameIncludingDeleted(@Param("username") String username);
+
+    default Boolean existsByUsername(String username) {
+        return countByUsernameIncludingDeleted(username) > 0;
+    }
+
+    // Which of these usernames are taken, soft-deleted users included
+    @Query(value = "SELECT username FROM users WHERE username IN (:usernames)", nativeQuery = true)
+    List<String> findTakenUsernames(@Param("usernames") Collection<String> usernames);
 
     List<User> findByRolesContaining(Role role);
 
@@ -24,4 +35,12 @@ public interface UserRepository extends CrudRepository<User, Integer> {
     @Modifying
     @Query("update User u set u.password = :pwd where u.username = :username")
     void updatePasswordByUsername(@Param("username") String username, @Param("pwd") String newPassword);
-}
\ No newline at end of file
+
+    @Modifying
+    @Query(value = "DELETE FROM user_roles WHERE username IN (:usernames)", nativeQuery = true)
+    void purgeRolesByUsernames(@Param("usernames") List<String> usernames);
+
+    @Modifying
+    @Query(value = "DELETE FROM users WHERE username IN (:usernames) AND deleted = true", nativeQuery = true)
+    int purgeByUsernames(@Param("usernames") List<String> usernames);
+}
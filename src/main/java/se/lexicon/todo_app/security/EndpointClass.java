@@ -0,0 +1,31 @@
+package se.lexicon.todo_app.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Groups API endpoints by cost, so each group can get its own rate limit quota.
+ */
+public enum EndpointClass {
+    // Login, logout and registration
+    AUTH,
+    // Unpaged GET endpoints that return many rows
+    LIST,
+    // Other GET endpoints
+    READ,
+    // POST, PUT and DELETE
+    WRITE;
+
+    public static EndpointClass of(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith("/api/auth/") || path.equals("/api/person/register")) {
+            return AUTH;
+        }
+        if (!"GET".equals(request.getMethod())) {
+            return WRITE;
+        }
+        return switch (path) {
+            case "/api/todo", "/api/todo/status", "/api/todo/overdue", "/api/person" -> LIST;
+            default -> READ;
+        };
+    }
+}
@@ -1,5 +1,7 @@
 package se.lexicon.todo_app.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -21,6 +23,7 @@ import java.io.IOException;
  * This filter is stateless and does not maintain any session information.
  * It is typically used in conjunction with a JwtTokenUtil class that handles the creation and validation of JWT tokens.
  * This filter is registered in the SecurityConfig class to be applied to all requests.
+ * Each stage (blacklist check, token parsing, user loading and token validation) is timed as "jwt.filter.stage".
  */
 @Component
 public class JwtRequestFilter extends OncePerRequestFilter {
@@ -28,12 +31,30 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     private final JwtTokenUtil jwtTokenUtil;
     private final TokenBlacklistStorage tokenBlacklistStorage;
 
+    private final Timer blacklistTimer;
+    private final Timer parseTimer;
+    private final Timer userLoadTimer;
+    private final Timer validateTimer;
+
     public JwtRequestFilter(UserDetailsService userDetailsService,
                             JwtTokenUtil jwtTokenUtil,
-                            TokenBlacklistStorage tokenBlacklistStorage) {
+                            TokenBlacklistStorage tokenBlacklistStorage,
+                            MeterRegistry meterRegistry) {
         this.userDetailsService = userDetailsService;
         this.jwtTokenUtil = jwtTokenUtil;
         this.tokenBlacklistStorage = tokenBlacklistStorage;
+        this.blacklistTimer = stageTimer(meterRegistry, "blacklist");
+        this.parseTimer = stageTimer(meterRegistry, "parse");
+        this.userLoadTimer = stageTimer(meterRegistry, "user_load");
+        this.validateTimer = stageTimer(meterRegistry, "validate");
+    }
+
+    private static Timer stageTimer(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("jwt.filter.stage")
+                .description("Time spent in each stage of JWT request authentication")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
     @Override
@@ -50,17 +71,17 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         String jwt = authorizationHeader.substring(7);
 
         try {
-            if (tokenBlacklistStorage.isBlacklisted(jwt)) {
+            if (blacklistTimer.record(() -> tokenBlacklistStorage.isBlacklisted(jwt))) {
                 response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Token has been revoked");
                 return;
             }
 
-            String username = jwtTokenUtil.getUsernameFromToken(jwt);
+            String username = parseTimer.record(() -> jwtTokenUtil.getUsernameFromToken(jwt));
 
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                UserDetails userDetails = userLoadTimer.record(() -> userDetailsService.loadUserByUsername(username));
 
-                if (jwtTokenUtil.validateToken(jwt, userDetails)) {
+                if (validateTimer.record(() -> jwtTokenUtil.validateToken(jwt, userDetails))) {
                     UsernamePasswordAuthenticationToken authentication =
                             new UsernamePasswordAuthenticationToken(userDetails, null,
                                     userDetails.getAuthorities());
@@ -0,0 +1,40 @@
+package se.lexicon.todo_app.security;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Hashes many passwords at once on a bounded ForkJoin pool, so a bulk registration uses the available cores
+ * without taking over the common pool. todo.person.bulk.hash-parallelism of 0 means one thread per core.
+ */
+@Component
+public class PasswordHasher {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ForkJoinPool pool;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder,
+                          @Value("${todo.person.bulk.hash-parallelism:0}") int parallelism) {
+        this.passwordEncoder = passwordEncoder;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    // Hashes are returned in the order of the passwords
+    public List<String> encodeAll(List<String> passwords) {
+        List<ForkJoinTask<String>> tasks = passwords.stream()
+                .map(password -> pool.submit(() -> passwordEncoder.encode(password)))
+                .toList();
+        return tasks.stream().map(ForkJoinTask::join).toList();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,85 @@
+package se.lexicon.todo_app.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * RateLimitFilter applies the per-user quotas of RateLimiter to /api/** requests.
+ * It runs right after JwtRequestFilter, so authenticated requests are limited per username and role,
+ * and anonymous ones (login, registration) per client address.
+ * Limited responses carry RateLimit-Limit, RateLimit-Remaining and RateLimit-Reset headers;
+ * rejected ones get 429 Too Many Requests with Retry-After.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiter rateLimiter;
+    private final RateLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public RateLimitFilter(RateLimiter rateLimiter, RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.rateLimiter = rateLimiter;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.enabled() || !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        EndpointClass endpointClass = EndpointClass.of(request);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        String principal;
+        List<String> roles;
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            principal = "user:" + authentication.getName();
+            roles = authentication.getAuthorities().stream()
+                    .map(GrantedAuthority::getAuthority)
+                    .map(authority -> authority.replaceFirst("^ROLE_", "").toLowerCase())
+                    .toList();
+        } else {
+            principal = "ip:" + request.getRemoteAddr();
+            roles = List.of("anonymous");
+        }
+
+        RateLimiter.Decision decision = rateLimiter.tryConsume(principal, endpointClass, roles);
+        if (decision == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        response.setHeader("RateLimit-Limit", String.valueOf(decision.limit()));
+        response.setHeader("RateLimit-Remaining", String.valueOf(decision.remaining()));
+        response.setHeader("RateLimit-Reset", String.valueOf(decision.resetSeconds()));
+
+        if (!decision.allowed()) {
+            meterRegistry.counter("rate.limit.rejected", "endpoint", endpointClass.name().toLowerCase()).increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(decision.retryAfterSeconds()));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Rate limit exceeded");
+            return;
+        }
+
+        chain.doFilter(request, response);
+    }
+}
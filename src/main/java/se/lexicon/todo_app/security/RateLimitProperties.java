@@ -0,0 +1,40 @@
+package se.lexicon.todo_app.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.Map;
+
+/**
+ * Per-user request quotas, configured per endpoint class and role, e.g.
+ * app.rate-limit.quotas.list.user.capacity=20 and app.rate-limit.quotas.list.user.refill-per-second=2.
+ * Unauthenticated requests use the "anonymous" role and are keyed by client address.
+ * Requests without a matching quota are not limited.
+ */
+@ConfigurationProperties("app.rate-limit")
+public record RateLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("100000") int maxBuckets,
+        @DefaultValue Map<EndpointClass, Map<String, Quota>> quotas
+) {
+
+    /**
+     * @param capacity         burst size: requests allowed at once by a full bucket
+     * @param refillPerSecond  sustained rate: tokens added back per second
+     */
+    public record Quota(int capacity, double refillPerSecond) {
+
+        // Bucket times are kept in nanoseconds, so an empty bucket must refill within a year
+        private static final double MAX_REFILL_SECONDS = 365 * 24 * 3600;
+
+        public Quota {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("Rate limit capacity must be at least 1");
+            }
+            if (!(refillPerSecond > 0) || capacity / refillPerSecond > MAX_REFILL_SECONDS) {
+                throw new IllegalArgumentException("Rate limit refill-per-second must be positive and refill "
+                        + capacity + " tokens within a year");
+            }
+        }
+    }
+}
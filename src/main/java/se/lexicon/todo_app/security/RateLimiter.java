@@ -0,0 +1,153 @@
+package se.lexicon.todo_app.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * RateLimiter keeps one token bucket per principal and endpoint class.
+ * <p>
+ * Each bucket is a single AtomicLong holding the time at which it will be full again (the "virtual scheduling"
+ * form of a token bucket), so taking a token is one compare-and-set and never blocks.
+ * A bucket that has refilled completely carries no state, so it can be dropped and recreated later without
+ * changing any decision; that is how idle buckets are evicted to keep memory bounded.
+ * <p>
+ * Once max-buckets principals have a bucket, new principals share one bucket per endpoint class and quota until
+ * eviction makes room. Eviction scans every bucket, so besides the scheduled run it runs at most once a second
+ * while the map is full, on the request that finds it full.
+ */
+@Component
+public class RateLimiter {
+
+    private static final long FULL_EVICTION_GAP_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final RateLimitProperties properties;
+    private final LongSupplier nanoClock;
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    // Used by principals that find the map full; at most one per endpoint class and configured quota
+    private final ConcurrentHashMap<String, Bucket> sharedBuckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastFullEviction;
+
+    @Autowired
+    public RateLimiter(RateLimitProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    RateLimiter(RateLimitProperties properties, LongSupplier nanoClock) {
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+        this.lastFullEviction = new AtomicLong(nanoClock.getAsLong() - FULL_EVICTION_GAP_NANOS);
+    }
+
+    /**
+     * Outcome of a rate limit check. Times are in seconds, rounded up.
+     */
+    public record Decision(boolean allowed, int limit, long remaining, long resetSeconds, long retryAfterSeconds) {
+    }
+
+    /**
+     * @return the decision, or null when no quota applies to these roles and endpoint class
+     */
+    public Decision tryConsume(String principal, EndpointClass endpointClass, Collection<String> roles) {
+        RateLimitProperties.Quota quota = quotaFor(endpointClass, roles);
+        if (quota == null) {
+            return null;
+        }
+
+        long now = nanoClock.getAsLong();
+        String key = principal + '|' + endpointClass;
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= properties.maxBuckets()) {
+                evictWhenFull(now);
+            }
+            bucket = buckets.size() < properties.maxBuckets()
+                    ? buckets.computeIfAbsent(key, k -> new Bucket(quota, now))
+                    : sharedBuckets.computeIfAbsent(endpointClass + "|" + quota, k -> new Bucket(quota, now));
+        }
+        return bucket.tryConsume(now);
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.eviction-interval:60000}")
+    public void evictIdleBuckets() {
+        evictIdleBuckets(nanoClock.getAsLong());
+    }
+
+    int bucketCount() {
+        return buckets.size();
+    }
+
+    private void evictIdleBuckets(long now) {
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    // Only the thread that wins the compare-and-set scans, and only once per gap
+    private void evictWhenFull(long now) {
+        long last = lastFullEviction.get();
+        if (now - last >= FULL_EVICTION_GAP_NANOS && lastFullEviction.compareAndSet(last, now)) {
+            evictIdleBuckets(now);
+        }
+    }
+
+    // The most generous quota of the caller's roles wins
+    private RateLimitProperties.Quota quotaFor(EndpointClass endpointClass, Collection<String> roles) {
+        Map<String, RateLimitProperties.Quota> byRole = properties.quotas().get(endpointClass);
+        if (byRole == null) {
+            return null;
+        }
+        RateLimitProperties.Quota best = null;
+        for (String role : roles) {
+            RateLimitProperties.Quota quota = byRole.get(role);
+            if (quota != null && (best == null || quota.refillPerSecond() > best.refillPerSecond())) {
+                best = quota;
+            }
+        }
+        return best;
+    }
+
+    private static final class Bucket {
+        private final int capacity;
+        // Time to earn one token, and the time a full bucket represents
+        private final long intervalNanos;
+        private final long burstNanos;
+        // Time at which the bucket is full again; at or before "now" means full
+        private final AtomicLong fullAt;
+
+        private Bucket(RateLimitProperties.Quota quota, long now) {
+            this.capacity = quota.capacity();
+            this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / quota.refillPerSecond()));
+            this.burstNanos = intervalNanos * quota.capacity();
+            this.fullAt = new AtomicLong(now);
+        }
+
+        private Decision tryConsume(long now) {
+            while (true) {
+                long current = fullAt.get();
+                long base = current - now > 0 ? current : now;
+                long next = base + intervalNanos;
+                long debt = next - now;
+                if (debt > burstNanos) {
+                    return new Decision(false, capacity, 0, seconds(current - now), seconds(debt - burstNanos));
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return new Decision(true, capacity, (burstNanos - debt) / intervalNanos, seconds(debt), 0);
+                }
+            }
+        }
+
+        private boolean isFull(long now) {
+            return fullAt.get() - now <= 0;
+        }
+
+        private static long seconds(long nanos) {
+            return nanos <= 0 ? 0 : (nanos + 999_999_999L) / 1_000_000_000L;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package se.lexicon.todo_app.security;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -26,6 +27,7 @@ import org.springframework.web.filter.CorsFilter;
  * It also enables method-level security annotations such as @Secured, @PreAuthorize, and @PostAuthorize.
  * It allows public access to authentication endpoints and Swagger UI, while securing all other endpoints.
  * It uses BCrypt for password encoding to enhance security.
+ * Requests are rate limited per user by the RateLimitFilter, which runs right after the JwtRequestFilter.
  */
 @Configuration
 @EnableWebSecurity
@@ -34,17 +36,20 @@ import org.springframework.web.filter.CorsFilter;
         jsr250Enabled = true,
         prePostEnabled = true
 )
+@EnableConfigurationProperties(RateLimitProperties.class)
 
 public class SecurityConfig {
 
 
     private final JwtRequestFilter jwtRequestFilter;
     private final CorsFilter corsFilter;
+    private final RateLimitFilter rateLimitFilter;
 
     @Autowired
-    public SecurityConfig(JwtRequestFilter jwtRequestFilter, CorsFilter corsFilter) {
+    public SecurityConfig(JwtRequestFilter jwtRequestFilter, CorsFilter corsFilter, RateLimitFilter rateLimitFilter) {
         this.jwtRequestFilter = jwtRequestFilter;
         this.corsFilter = corsFilter;
+        this.rateLimitFilter = rateLimitFilter;
     }
 
 
@@ -56,6 +61,7 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/**").permitAll()           // Allow public access to auth endpoints
                         .requestMatchers("/swagger-ui/**", "/swagger-ui.html", "/v3/api-docs/**").permitAll() // Allow access to API documentation
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll() // Allow health checks and metrics scraping
                         .anyRequest().authenticated()                          // Require authentication for all other requests
                 )
                 // Configure session management
@@ -65,7 +71,8 @@ public class SecurityConfig {
 
                 // Add security filters in specific order
                 .addFilterBefore(corsFilter, UsernamePasswordAuthenticationFilter.class)         // Process CORS before authentication
-                .addFilterBefore(jwtRequestFilter, UsernamePasswordAuthenticationFilter.class);  // Process JWT before authentication
+                .addFilterBefore(jwtRequestFilter, UsernamePasswordAuthenticationFilter.class)   // Process JWT before authentication
+                .addFilterAfter(rateLimitFilter, JwtRequestFilter.class);                         // Limit requests once the user is known
 
         return http.build();
     }
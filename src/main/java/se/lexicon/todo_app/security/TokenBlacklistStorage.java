@@ -1,5 +1,9 @@
 package se.lexicon.todo_app.security;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
@@ -7,8 +11,9 @@ import org.springframework.stereotype.Component;
 import java.time.Instant;
 import java.util.concurrent.ConcurrentHashMap;
 
+@Slf4j
 @Component
-public class TokenBlacklistStorage {
+public class TokenBlacklistStorage implements MeterBinder {
     // replace in-memory storage with a more persistent solution such as redis or a database for production use if needed.
 
     private final ConcurrentHashMap<String, Instant> blacklistedTokens = new ConcurrentHashMap<>();
@@ -41,15 +46,25 @@ public class TokenBlacklistStorage {
         blacklistedTokens.entrySet().removeIf(entry -> entry.getValue().isBefore(now));
     }
 
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("token.blacklist.size", blacklistedTokens, ConcurrentHashMap::size)
+                .description("Number of revoked tokens that have not expired yet")
+                .register(registry);
+        Gauge.builder("token.versions.size", userTokenVersions, ConcurrentHashMap::size)
+                .description("Number of users with a tracked token version")
+                .register(registry);
+    }
+
     @Scheduled(fixedDelayString = "${token.cleanup.interval}")
     public void cleanupExpiredTokens() {
-        System.out.println("Starting scheduled cleanup of expired tokens...");
+        log.debug("Starting scheduled cleanup of expired tokens...");
         int beforeSize = blacklistedTokens.size();
 
         removeExpiredTokens();
 
         int removedCount = beforeSize - blacklistedTokens.size();
-        System.out.println("Cleanup completed. Removed " + removedCount + " expired tokens. Remaining tokens: " + blacklistedTokens.size());
+        log.debug("Cleanup completed. Removed {} expired tokens. Remaining tokens: {}", removedCount, blacklistedTokens.size());
     }
 
 
@@ -6,6 +6,7 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import se.lexicon.todo_app.datasource.ShardRouter;
 import se.lexicon.todo_app.entity.User;
 import se.lexicon.todo_app.repository.UserRepository;
 
@@ -18,15 +19,19 @@ import se.lexicon.todo_app.repository.UserRepository;
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final ShardRouter shardRouter;
 
     @Autowired
-    public UserDetailsServiceImpl(UserRepository userRepository) {
+    public UserDetailsServiceImpl(UserRepository userRepository, ShardRouter shardRouter) {
         this.userRepository = userRepository;
+        this.shardRouter = shardRouter;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
+        // Users live on the shard of their username (a single shard unless sharding is enabled)
+        User user = shardRouter.onShard(shardRouter.shardForUsername(username), () -> userRepository.findByUsername(username))
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
 
         return org.springframework.security.core.userdetails.User.builder()
@@ -0,0 +1,90 @@
+package se.lexicon.todo_app.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import se.lexicon.todo_app.dto.AttachmentDto;
+import se.lexicon.todo_app.entity.Attachment;
+import se.lexicon.todo_app.entity.AttachmentCodec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Decides at upload time how an attachment is stored. Text-like files (text/*, JSON, XML, CSV, YAML, ...) of at least
+ * todo.attachment.compression.min-size bytes are compressed with AttachmentCodec.DEFLATE, and kept compressed
+ * only when that saves at least todo.attachment.compression.min-saving of their size; everything else, including
+ * images and archives that are compressed already, is stored as uploaded.
+ */
+@Component
+public class AttachmentCompressor {
+
+    private static final Set<String> COMPRESSIBLE_TYPES = Set.of(
+            "application/json", "application/x-ndjson", "application/xml", "application/javascript",
+            "application/csv", "application/yaml", "application/x-yaml", "application/sql", "application/x-sh",
+            "image/svg+xml");
+
+    private final boolean enabled;
+    private final int minSize;
+    private final double minSaving;
+
+    public AttachmentCompressor(@Value("${todo.attachment.compression.enabled:true}") boolean enabled,
+                                @Value("${todo.attachment.compression.min-size:1024}") int minSize,
+                                @Value("${todo.attachment.compression.min-saving:0.2}") double minSaving) {
+        this.enabled = enabled;
+        this.minSize = minSize;
+        this.minSaving = minSaving;
+    }
+
+    public Attachment toAttachment(AttachmentDto attachmentDto) {
+        Attachment attachment = new Attachment(attachmentDto.fileName(), attachmentDto.fileType(), attachmentDto.data());
+        byte[] data = attachmentDto.data();
+        if (enabled && data != null && data.length >= minSize && isCompressible(attachmentDto.fileType())) {
+            byte[] compressed = AttachmentCodec.DEFLATE.encode(data);
+            if (compressed.length <= data.length * (1 - minSaving)) {
+                attachment.setData(compressed);
+                attachment.setCodec(AttachmentCodec.DEFLATE);
+            }
+        }
+        return attachment;
+    }
+
+    /**
+     * Streaming variant for files staged on disk (see AttachmentUploadService): compresses source into target
+     * under the same rules.
+     *
+     * @return the codec target was written with, or null when source should be stored as is (target is then removed)
+     */
+    public AttachmentCodec compress(Path source, Path target, String fileType) throws IOException {
+        long size = Files.size(source);
+        if (!enabled || size < minSize || !isCompressible(fileType)) {
+            return null;
+        }
+        try (InputStream in = Files.newInputStream(source);
+             OutputStream out = AttachmentCodec.DEFLATE.encoding(Files.newOutputStream(target))) {
+            in.transferTo(out);
+        }
+        if (Files.size(target) <= size * (1 - minSaving)) {
+            return AttachmentCodec.DEFLATE;
+        }
+        Files.deleteIfExists(target);
+        return null;
+    }
+
+    static boolean isCompressible(String fileType) {
+        if (fileType == null) {
+            return false;
+        }
+        String type = fileType.toLowerCase(Locale.ROOT);
+        int parameters = type.indexOf(';');
+        if (parameters >= 0) {
+            type = type.substring(0, parameters);
+        }
+        type = type.trim();
+        return type.startsWith("text/") || type.endsWith("+json") || type.endsWith("+xml") || COMPRESSIBLE_TYPES.contains(type);
+    }
+}
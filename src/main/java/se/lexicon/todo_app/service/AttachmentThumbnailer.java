@@ -0,0 +1,170 @@
+package se.lexicon.todo_app.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import se.lexicon.todo_app.datasource.ShardRouter;
+import se.lexicon.todo_app.dto.AttachmentDto;
+import se.lexicon.todo_app.dto.AttachmentPreviewDto;
+import se.lexicon.todo_app.entity.AttachmentCodec;
+import se.lexicon.todo_app.repository.AttachmentRepository;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AttachmentThumbnailer renders a small preview of every new image attachment once its todo is committed, so that
+ * clients can show previews without downloading the originals.
+ * <p>
+ * The work runs on todo.thumbnail.threads threads with a queue of todo.thumbnail.queue-size attachments; when the
+ * queue is full the attachment gets no thumbnail (it keeps previewUrl null). Images are decoded subsampled to about
+ * twice the thumbnail size, and images with more than todo.thumbnail.max-pixels pixels are skipped.
+ * Opaque images become JPEG thumbnails, images with transparency PNG.
+ */
+@Slf4j
+@Component
+public class AttachmentThumbnailer {
+
+    private final AttachmentRepository attachmentRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transaction;
+    private final int size;
+    private final long maxPixels;
+    private final ThreadPoolExecutor executor;
+
+    public AttachmentThumbnailer(AttachmentRepository attachmentRepository, ShardRouter shardRouter,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${todo.thumbnail.size:160}") int size,
+                                 @Value("${todo.thumbnail.max-pixels:40000000}") long maxPixels,
+                                 @Value("${todo.thumbnail.threads:2}") int threads,
+                                 @Value("${todo.thumbnail.queue-size:100}") int queueSize) {
+        this.attachmentRepository = attachmentRepository;
+        this.shardRouter = shardRouter;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.size = size;
+        this.maxPixels = maxPixels;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize),
+                Thread.ofPlatform().name("thumbnail-", 0).daemon().factory());
+    }
+
+    // Attachments that already have a preview were not changed, so only new ones are rendered. Events carry no
+    // attachment data, so the image is read on the worker thread.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTodoChanged(TodoChangedEvent event) {
+        if (event.todo() == null || event.todo().attachments() == null) {
+            return;
+        }
+        for (AttachmentDto attachment : event.todo().attachments()) {
+            if (attachment.previewUrl() == null && isImage(attachment.fileType())) {
+                try {
+                    executor.execute(() -> generate(event.todoId(), attachment));
+                } catch (RejectedExecutionException e) {
+                    log.warn("Thumbnail queue full, no preview for attachment {}", attachment.id());
+                }
+            }
+        }
+    }
+
+    static boolean isImage(String fileType) {
+        return fileType != null && fileType.startsWith("image/") && ImageIO.getImageReadersByMIMEType(fileType).hasNext();
+    }
+
+    private void generate(Long todoId, AttachmentDto attachment) {
+        try {
+            byte[] data = load(todoId, attachment.id());
+            if (data == null) {
+                return;
+            }
+            AttachmentPreviewDto thumbnail = render(data, size, maxPixels);
+            if (thumbnail == null) {
+                log.debug("No thumbnail for attachment {} ({})", attachment.id(), attachment.fileType());
+                return;
+            }
+            shardRouter.onShard(shardRouter.shardForId(todoId), () -> {
+                transaction.executeWithoutResult(status ->
+                        attachmentRepository.saveThumbnail(attachment.id(), thumbnail.data(), thumbnail.contentType()));
+            });
+        } catch (Exception e) {
+            log.warn("Thumbnail of attachment {} failed: {}", attachment.id(), e.toString());
+        }
+    }
+
+    // Null when the attachment or its todo is gone by now
+    private byte[] load(Long todoId, Long attachmentId) {
+        return shardRouter.onShard(shardRouter.shardForId(todoId), () -> transaction.execute(status ->
+                attachmentRepository.findContent(todoId, attachmentId)
+                        .map(content -> AttachmentCodec.decode(content.codec(), content.data()))
+                        .orElse(null)));
+    }
+
+    /**
+     * Scales the image down to fit into size x size pixels, keeping its aspect ratio; smaller images keep their size.
+     *
+     * @return the encoded thumbnail, or null when the data is not a readable image or has more than maxPixels pixels
+     */
+    static AttachmentPreviewDto render(byte[] data, int size, long maxPixels) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            BufferedImage source;
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    return null;
+                }
+                // Reading every n-th pixel is much cheaper than decoding everything; the rest is scaled smoothly
+                int step = Math.max(1, Math.max(width, height) / (size * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                source = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+
+            boolean alpha = source.getColorModel().hasAlpha();
+            double scale = Math.min(1.0, (double) size / Math.max(source.getWidth(), source.getHeight()));
+            int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+            int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+            BufferedImage thumbnail = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = thumbnail.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(source, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(thumbnail, alpha ? "png" : "jpg", out);
+            return new AttachmentPreviewDto(alpha ? "image/png" : "image/jpeg", out.toByteArray());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,262 @@
+package se.lexicon.todo_app.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import se.lexicon.todo_app.dto.AttachmentDto;
+import se.lexicon.todo_app.dto.UploadSessionDto;
+import se.lexicon.todo_app.dto.UploadSessionRequestDto;
+import se.lexicon.todo_app.entity.AttachmentCodec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AttachmentUploadService implements resumable uploads (/api/todo/uploads) for files larger than a multipart request
+ * should carry. A client opens a session with the file's size, sends the file in chunks at increasing offsets, and
+ * completes the session to attach the file to a todo. After a broken connection it reads the session to learn how
+ * many bytes arrived and continues from there; a chunk may also start before that offset to send bytes again.
+ * <p>
+ * Chunks are copied from the request into a staging file in todo.upload.staging-dir through a fixed-size buffer,
+ * so memory use does not depend on the file size. Sessions are kept in memory, belong to the user who opened them,
+ * and are dropped with their file todo.upload.expiry ms after their last chunk. Staging files without a session,
+ * e.g. from before a restart, are removed by the same cleanup.
+ */
+@Slf4j
+@Service
+public class AttachmentUploadService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final TodoService todoService;
+    private final AttachmentCompressor attachmentCompressor;
+    private final Path stagingDir;
+    private final long maxSize;
+    private final Duration expiry;
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    public AttachmentUploadService(TodoService todoService, AttachmentCompressor attachmentCompressor,
+                                   @Value("${todo.upload.staging-dir:${java.io.tmpdir}/todo-uploads}") Path stagingDir,
+                                   @Value("${todo.upload.max-size:104857600}") long maxSize,
+                                   @Value("${todo.upload.expiry:3600000}") long expiryMillis) throws IOException {
+        this.todoService = todoService;
+        this.attachmentCompressor = attachmentCompressor;
+        this.stagingDir = Files.createDirectories(stagingDir);
+        this.maxSize = maxSize;
+        this.expiry = Duration.ofMillis(expiryMillis);
+    }
+
+    // The lock is held while a chunk is written or the upload completes; everything else is read under it as well
+    private static final class UploadSession {
+        final String id;
+        final String username;
+        final String fileName;
+        final String fileType;
+        final long size;
+        final Path file;
+        final ReentrantLock lock = new ReentrantLock();
+        long received;
+        Instant lastActivity = Instant.now();
+
+        UploadSession(String id, String username, UploadSessionRequestDto request, Path file) {
+            this.id = id;
+            this.username = username;
+            this.fileName = request.fileName();
+            this.fileType = request.fileType();
+            this.size = request.size();
+            this.file = file;
+        }
+    }
+
+    public UploadSessionDto open(String username, UploadSessionRequestDto request) {
+        if (request.size() > maxSize) {
+            throw new IllegalArgumentException("File size exceeds the limit of " + maxSize + " bytes");
+        }
+        String id = UUID.randomUUID().toString();
+        Path file = stagingDir.resolve(id + ".part");
+        try {
+            Files.createFile(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        UploadSession session = new UploadSession(id, username, request, file);
+        sessions.put(id, session);
+        log.debug("Opened upload {} of {} bytes for {}", id, request.size(), username);
+        return toDto(session);
+    }
+
+    public UploadSessionDto status(String username, String id) {
+        UploadSession session = session(username, id);
+        session.lock.lock();
+        try {
+            return toDto(session);
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the chunk read from body at offset. Bytes that arrive before the connection breaks are kept, so the
+     * client can resume from the received count of the session.
+     */
+    public UploadSessionDto writeChunk(String username, String id, long offset, InputStream body) {
+        UploadSession session = session(username, id);
+        if (!session.lock.tryLock()) {
+            throw new IllegalStateException("Another chunk of upload " + id + " is being written");
+        }
+        try {
+            if (offset < 0 || offset > session.received) {
+                throw new IllegalArgumentException("Offset " + offset + " is past the " + session.received + " bytes received");
+            }
+            long position = offset;
+            try (FileChannel channel = FileChannel.open(session.file, StandardOpenOption.WRITE)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = body.read(buffer)) != -1) {
+                    if (position + read > session.size) {
+                        throw new IllegalArgumentException("Chunk ends past the file size of " + session.size + " bytes");
+                    }
+                    ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                    while (chunk.hasRemaining()) {
+                        position += channel.write(chunk, position);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                session.received = Math.max(session.received, position);
+                session.lastActivity = Instant.now();
+            }
+            return toDto(session);
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    /**
+     * Attaches the complete file to the todo and closes the session. Compressible files are compressed into a second
+     * staging file first, outside the database transaction. When the todo cannot take the file, the session stays
+     * open, so it can be attached elsewhere.
+     */
+    public AttachmentDto complete(String username, String id, Long todoId) {
+        UploadSession session = session(username, id);
+        if (!session.lock.tryLock()) {
+            throw new IllegalStateException("Upload " + id + " is still being written");
+        }
+        try {
+            if (session.received < session.size) {
+                throw new IllegalArgumentException("Upload incomplete: " + session.received + " of " + session.size + " bytes received");
+            }
+            Path compressed = stagingDir.resolve(id + ".deflate");
+            try {
+                AttachmentCodec codec = attachmentCompressor.compress(session.file, compressed, session.fileType);
+                AttachmentDto attachment = todoService.addAttachment(todoId, session.fileName, session.fileType, codec,
+                        codec != null ? compressed : session.file);
+                sessions.remove(id);
+                Files.deleteIfExists(session.file);
+                log.debug("Attached upload {} to todo {} as attachment {}", id, todoId, attachment.id());
+                return attachment;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                deleteQuietly(compressed);
+            }
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    public void cancel(String username, String id) {
+        UploadSession session = session(username, id);
+        session.lock.lock();
+        try {
+            remove(session);
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${todo.upload.cleanup-interval:60000}")
+    public void expire() {
+        expire(Instant.now());
+    }
+
+    // Package-private so tests can move the clock
+    void expire(Instant now) {
+        Instant cutoff = now.minus(expiry);
+        for (UploadSession session : sessions.values()) {
+            // A session that is being written to is not idle
+            if (session.lock.tryLock()) {
+                try {
+                    if (session.lastActivity.isBefore(cutoff)) {
+                        remove(session);
+                        log.info("Upload {} of {} expired with {} of {} bytes", session.id, session.username,
+                                session.received, session.size);
+                    }
+                } finally {
+                    session.lock.unlock();
+                }
+            }
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(stagingDir)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String id = name.contains(".") ? name.substring(0, name.indexOf('.')) : name;
+                if (!sessions.containsKey(id) && Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                    deleteQuietly(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Cleaning up {} failed: {}", stagingDir, e.toString());
+        }
+    }
+
+    private UploadSession session(String username, String id) {
+        UploadSession session = sessions.get(id);
+        // Someone else's upload is reported like an unknown one
+        if (session == null || !session.username.equals(username)) {
+            throw new RuntimeException("Upload not found");
+        }
+        return session;
+    }
+
+    private void remove(UploadSession session) {
+        sessions.remove(session.id);
+        deleteQuietly(session.file);
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", file, e.toString());
+        }
+    }
+
+    private UploadSessionDto toDto(UploadSession session) {
+        return UploadSessionDto.builder()
+                .id(session.id)
+                .fileName(session.fileName)
+                .fileType(session.fileType)
+                .size(session.size)
+                .received(session.received)
+                .expiresAt(LocalDateTime.ofInstant(session.lastActivity.plus(expiry), ZoneId.systemDefault()))
+                .build();
+    }
+}
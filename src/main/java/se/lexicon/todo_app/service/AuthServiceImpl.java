@@ -12,6 +12,7 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
+import se.lexicon.todo_app.datasource.ShardRouter;
 import se.lexicon.todo_app.dto.AuthRequestDto;
 import se.lexicon.todo_app.dto.AuthResponseDto;
 import se.lexicon.todo_app.entity.Person;
@@ -30,15 +31,18 @@ public class AuthServiceImpl implements AuthService {
     private final AuthenticationManager authenticationManager;
     private final JwtTokenUtil jwtTokenUtil;
     private final TokenBlacklistStorage tokenBlacklistStorage;
+    private final ShardRouter shardRouter;
 
     public AuthServiceImpl(AuthenticationManager authenticationManager,
                            JwtTokenUtil jwtTokenUtil,
                            TokenBlacklistStorage tokenBlacklistStorage,
-                           PersonRepository personRepository) {
+                           PersonRepository personRepository,
+                           ShardRouter shardRouter) {
         this.authenticationManager = authenticationManager;
         this.jwtTokenUtil = jwtTokenUtil;
         this.tokenBlacklistStorage = tokenBlacklistStorage;
         this.personRepository = personRepository;
+        this.shardRouter = shardRouter;
     }
 
 
@@ -53,7 +57,8 @@ public class AuthServiceImpl implements AuthService {
 
         String jwt = jwtTokenUtil.generateToken(userDetails);
 
-        Person person = personRepository.findByUserUsername(userDetails.getUsername())
+        String username = userDetails.getUsername();
+        Person person = shardRouter.onShard(shardRouter.shardForUsername(username), () -> personRepository.findByUserUsername(username))
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
         return AuthResponseDto.builder()
@@ -1,18 +1,29 @@
 package se.lexicon.todo_app.service;
 
+import org.springframework.data.domain.Pageable;
 import se.lexicon.todo_app.dto.PersonDto;
 import se.lexicon.todo_app.dto.PersonRegistrationDto;
+import se.lexicon.todo_app.dto.PersonRegistrationResultDto;
 import se.lexicon.todo_app.entity.Role;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 public interface PersonService {
-    List<PersonDto> findAll();
+    // Sortable by id, name and email; an unpaged request returns every person
+    List<PersonDto> findAll(Pageable pageable);
 
     PersonDto findById(Long id);
 
     PersonDto create(PersonRegistrationDto personDto);
 
+    // Registers many persons at once; every row gets its own result, rejected rows do not stop the others
+    List<PersonRegistrationResultDto> createAll(List<PersonRegistrationDto> personDtos);
+
+    // The subset of the given emails that is already taken
+    Set<String> findTakenEmails(Collection<String> emails);
+
 
     PersonDto update(Long id, PersonDto personDto);
 
@@ -1,22 +1,40 @@
 package se.lexicon.todo_app.service;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import se.lexicon.todo_app.dto.PersonDto;
 import se.lexicon.todo_app.dto.PersonRegistrationDto;
+import se.lexicon.todo_app.dto.PersonRegistrationResultDto;
 import se.lexicon.todo_app.entity.Person;
 import se.lexicon.todo_app.entity.Role;
 import se.lexicon.todo_app.entity.User;
+import se.lexicon.todo_app.repository.PersonBatchRepository;
 import se.lexicon.todo_app.repository.PersonRepository;
 import se.lexicon.todo_app.repository.UserRepository;
+import se.lexicon.todo_app.security.PasswordHasher;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
+@Timed(value = "person.service", histogram = true)
 public class PersonServiceImpl implements PersonService {
+    static final Set<String> SORTABLE_PROPERTIES = Set.of("id", "name", "email");
+
     private final PersonRepository personRepository;
 
     // To use notify-util-spring module for email service inject its dependency (MessageService<Email> emailService)
@@ -25,25 +43,49 @@ public class PersonServiceImpl implements PersonService {
 
     private PasswordEncoder passwordEncoder;
 
-    public PersonServiceImpl(PersonRepository personRepository, UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    private final TodoService todoService;
+
+    private final PasswordHasher passwordHasher;
+
+    private final PersonBatchRepository personBatchRepository;
+
+    private final Validator validator;
+
+    public PersonServiceImpl(PersonRepository personRepository, UserRepository userRepository, PasswordEncoder passwordEncoder,
+                             TodoService todoService, PasswordHasher passwordHasher, PersonBatchRepository personBatchRepository,
+                             Validator validator) {
         this.personRepository = personRepository;
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.todoService = todoService;
+        this.passwordHasher = passwordHasher;
+        this.personBatchRepository = personBatchRepository;
+        this.validator = validator;
     }
 
 
     @Override
-    public List<PersonDto> findAll() {
-        return personRepository.findAll().stream()
-                .map(person -> new PersonDto(person.getId(), person.getName(), person.getEmail()))
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public List<PersonDto> findAll(Pageable pageable) {
+        for (Sort.Order order : pageable.getSort()) {
+            if (!SORTABLE_PROPERTIES.contains(order.getProperty())) {
+                throw new IllegalArgumentException("Cannot sort by " + order.getProperty());
+            }
+        }
+        // Ties on name or email are broken by id so pages never overlap
+        Sort sort = pageable.getSort().getOrderFor("id") == null
+                ? pageable.getSort().and(Sort.by("id"))
+                : pageable.getSort();
+        return personRepository.findAllDtos(pageable.isPaged()
+                ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort)
+                : Pageable.unpaged(sort));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PersonDto findById(Long id) {
-        Person person = personRepository.findById(id)
+        return personRepository.findDtoById(id)
                 .orElseThrow(() -> new RuntimeException("Person not found"));
-        return new PersonDto(person.getId(), person.getName(), person.getEmail());
     }
 
 
@@ -77,6 +119,86 @@ public class PersonServiceImpl implements PersonService {
         return convertToDto(person);
     }
 
+    // Runs without a transaction of its own: the checks are two set-based queries, the hashing happens in parallel
+    // without holding a connection, and only the batched insert is transactional
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<PersonRegistrationResultDto> createAll(List<PersonRegistrationDto> dtos) {
+        String[] errors = new String[dtos.size()];
+        Set<String> emails = new HashSet<>();
+        Set<String> usernames = new HashSet<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            PersonRegistrationDto dto = dtos.get(i);
+            if (dto == null) {
+                errors[i] = "Person cannot be null";
+                continue;
+            }
+            Set<ConstraintViolation<PersonRegistrationDto>> violations = validator.validate(dto);
+            if (!violations.isEmpty()) {
+                errors[i] = violations.stream().map(ConstraintViolation::getMessage).sorted()
+                        .collect(Collectors.joining(", "));
+            } else if (!emails.add(dto.email().toLowerCase(Locale.ROOT))) {
+                errors[i] = "Email appears more than once";
+            } else if (!usernames.add(dto.username())) {
+                errors[i] = "Username appears more than once";
+            }
+        }
+
+        List<String> candidateEmails = new ArrayList<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            if (errors[i] == null) {
+                candidateEmails.add(dtos.get(i).email());
+            }
+        }
+        Set<String> takenEmails = candidateEmails.isEmpty() ? Set.of() : findTakenEmails(candidateEmails);
+        Set<String> takenUsernames = usernames.isEmpty() ? Set.of() : new HashSet<>(userRepository.findTakenUsernames(usernames));
+        List<Integer> accepted = new ArrayList<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            if (errors[i] != null) {
+                continue;
+            }
+            if (takenEmails.contains(dtos.get(i).email().toLowerCase(Locale.ROOT))) {
+                errors[i] = "Email already exists";
+            } else if (takenUsernames.contains(dtos.get(i).username())) {
+                errors[i] = "Username already exists";
+            } else {
+                accepted.add(i);
+            }
+        }
+
+        List<String> hashes = passwordHasher.encodeAll(accepted.stream().map(i -> dtos.get(i).password()).toList());
+        List<Person> persons = new ArrayList<>();
+        for (int k = 0; k < accepted.size(); k++) {
+            PersonRegistrationDto dto = dtos.get(accepted.get(k));
+            User user = new User(dto.username(), hashes.get(k));
+            user.addRole(Role.USER);
+            Person person = new Person(dto.name(), dto.email());
+            person.setUser(user);
+            user.setPerson(person);
+            persons.add(person);
+        }
+        if (!persons.isEmpty()) {
+            personBatchRepository.insertAll(persons);
+        }
+
+        List<PersonRegistrationResultDto> results = new ArrayList<>(dtos.size());
+        int next = 0;
+        for (int i = 0; i < dtos.size(); i++) {
+            PersonDto person = errors[i] == null ? convertToDto(persons.get(next++)) : null;
+            results.add(new PersonRegistrationResultDto(i, person, errors[i]));
+        }
+        return results;
+    }
+
+    // Emails are returned in lower case, since the unique index compares them case-insensitively on MySQL
+    @Override
+    @Transactional(readOnly = true)
+    public Set<String> findTakenEmails(Collection<String> emails) {
+        return personRepository.findTakenEmails(emails).stream()
+                .map(email -> email.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+    }
+
     @Override
     public PersonDto update(Long id, PersonDto personDto) {
         Person person = personRepository.findById(id)
@@ -87,16 +209,23 @@ public class PersonServiceImpl implements PersonService {
         return new PersonDto(updatedPerson.getId(), updatedPerson.getName(), updatedPerson.getEmail());
     }
 
+    // Marks the person, their login and their todos deleted; TodoPurger removes the rows in the background
     @Override
     public void delete(Long id) {
-        personRepository.deleteById(id);
+        personRepository.findById(id).ifPresent(person -> {
+            todoService.deleteByPersonId(id);
+            person.setDeleted(true);
+            if (person.getUser() != null) {
+                person.getUser().setDeleted(true);
+            }
+        });
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PersonDto findByEmail(String email) {
-        Person person = personRepository.findByEmail(email)
+        return personRepository.findDtoByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Person not found"));
-        return new PersonDto(person.getId(), person.getName(), person.getEmail());
     }
 
     @Override
@@ -120,11 +249,13 @@ public class PersonServiceImpl implements PersonService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public boolean existsByUsername(String username) {
         return userRepository.existsByUsername(username);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public boolean existsByEmail(String email) {
         return personRepository.existsByEmail(email);
     }
@@ -0,0 +1,176 @@
+package se.lexicon.todo_app.service;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import se.lexicon.todo_app.datasource.ShardRouter;
+import se.lexicon.todo_app.dto.PersonDto;
+import se.lexicon.todo_app.dto.PersonRegistrationDto;
+import se.lexicon.todo_app.dto.PersonRegistrationResultDto;
+import se.lexicon.todo_app.entity.Role;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * ShardedPersonService routes every call of the transactional PersonServiceImpl to the shard that owns the person.
+ * New people are placed on the shard of their username; lookups by email ask all shards.
+ * Registered by ShardingConfig when sharding is enabled.
+ */
+public class ShardedPersonService implements PersonService {
+
+    private final PersonService personService;
+    private final ShardRouter shardRouter;
+
+    public ShardedPersonService(PersonService personService, ShardRouter shardRouter) {
+        this.personService = personService;
+        this.shardRouter = shardRouter;
+    }
+
+    @Override
+    public List<PersonDto> findAll(Pageable pageable) {
+        // Each shard returns everything up to the end of the page in the requested order; the merge cuts the page out
+        Pageable perShard = pageable.isPaged()
+                ? PageRequest.of(0, (int) pageable.getOffset() + pageable.getPageSize(), pageable.getSort())
+                : pageable;
+        Stream<PersonDto> merged = shardRouter.onAllShards(() -> personService.findAll(perShard)).stream()
+                .flatMap(Collection::stream)
+                .sorted(comparator(pageable.getSort()));
+        return pageable.isPaged()
+                ? merged.skip(pageable.getOffset()).limit(pageable.getPageSize()).toList()
+                : merged.toList();
+    }
+
+    private static Comparator<PersonDto> comparator(Sort sort) {
+        Comparator<PersonDto> comparator = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            Function<PersonDto, String> key = switch (order.getProperty()) {
+                case "name" -> PersonDto::name;
+                case "email" -> PersonDto::email;
+                default -> null;
+            };
+            Comparator<PersonDto> next = key == null
+                    ? Comparator.comparing(PersonDto::id)
+                    : Comparator.comparing(key, ShardRouter.TEXT_ORDER);
+            comparator = comparator.thenComparing(order.isAscending() ? next : next.reversed());
+        }
+        return comparator.thenComparing(PersonDto::id);
+    }
+
+    @Override
+    public PersonDto findById(Long id) {
+        return shardRouter.onShard(shardRouter.shardForId(id), () -> personService.findById(id));
+    }
+
+    @Override
+    public PersonDto create(PersonRegistrationDto dto) {
+        // Usernames are unique per shard and always placed on the same shard; emails have to be checked on all of them
+        if (existsByEmail(dto.email())) {
+            throw new IllegalArgumentException("Email already exists");
+        }
+        return shardRouter.onShard(shardRouter.shardForUsername(dto.username()), () -> personService.create(dto));
+    }
+
+    @Override
+    public List<PersonRegistrationResultDto> createAll(List<PersonRegistrationDto> dtos) {
+        // Emails are checked on all shards up front; then each shard registers the rows whose username it owns
+        Set<String> taken = findTakenEmails(dtos.stream()
+                .filter(dto -> dto != null && dto.email() != null)
+                .map(PersonRegistrationDto::email)
+                .toList());
+        PersonRegistrationResultDto[] results = new PersonRegistrationResultDto[dtos.size()];
+        Set<String> seen = new HashSet<>();
+        Map<Integer, List<Integer>> rowsByShard = new TreeMap<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            PersonRegistrationDto dto = dtos.get(i);
+            String email = dto == null || dto.email() == null ? null : dto.email().toLowerCase(Locale.ROOT);
+            if (email != null && taken.contains(email)) {
+                results[i] = new PersonRegistrationResultDto(i, null, "Email already exists");
+            } else if (email != null && !seen.add(email)) {
+                results[i] = new PersonRegistrationResultDto(i, null, "Email appears more than once");
+            } else {
+                String username = dto == null || dto.username() == null ? "" : dto.username();
+                rowsByShard.computeIfAbsent(shardRouter.shardForUsername(username), shard -> new ArrayList<>()).add(i);
+            }
+        }
+        rowsByShard.forEach((shard, rows) -> {
+            List<PersonRegistrationDto> batch = rows.stream().map(dtos::get).toList();
+            for (PersonRegistrationResultDto result : shardRouter.onShard(shard, () -> personService.createAll(batch))) {
+                int index = rows.get(result.index());
+                results[index] = new PersonRegistrationResultDto(index, result.person(), result.error());
+            }
+        });
+        return Arrays.asList(results);
+    }
+
+    @Override
+    public Set<String> findTakenEmails(Collection<String> emails) {
+        if (emails.isEmpty()) {
+            return Set.of();
+        }
+        return shardRouter.onAllShards(() -> personService.findTakenEmails(emails)).stream()
+                .flatMap(Collection::stream)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public PersonDto update(Long id, PersonDto personDto) {
+        return shardRouter.onShard(shardRouter.shardForId(id), () -> personService.update(id, personDto));
+    }
+
+    @Override
+    public void delete(Long id) {
+        shardRouter.onShard(shardRouter.shardForId(id), () -> personService.delete(id));
+    }
+
+    @Override
+    public PersonDto findByEmail(String email) {
+        List<Boolean> found = shardRouter.onAllShards(() -> personService.existsByEmail(email));
+        int shard = found.indexOf(Boolean.TRUE);
+        if (shard < 0) {
+            throw new RuntimeException("Person not found");
+        }
+        return shardRouter.onShard(shard, () -> personService.findByEmail(email));
+    }
+
+    @Override
+    public void updatePassword(Long id, String newPassword) {
+        shardRouter.onShard(shardRouter.shardForId(id), () -> personService.updatePassword(id, newPassword));
+    }
+
+    @Override
+    public void toggleExpired(Long id, boolean status) {
+        shardRouter.onShard(shardRouter.shardForId(id), () -> personService.toggleExpired(id, status));
+    }
+
+    @Override
+    public boolean existsByUsername(String username) {
+        return shardRouter.onShard(shardRouter.shardForUsername(username), () -> personService.existsByUsername(username));
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return shardRouter.onAllShards(() -> personService.existsByEmail(email)).contains(Boolean.TRUE);
+    }
+
+    @Override
+    public void addRole(Long id, Role role) {
+        shardRouter.onShard(shardRouter.shardForId(id), () -> personService.addRole(id, role));
+    }
+
+    @Override
+    public void removeRole(Long id, Role role) {
+        shardRouter.onShard(shardRouter.shardForId(id), () -> personService.removeRole(id, role));
+    }
+}
@@ -0,0 +1,197 @@
+package se.lexicon.todo_app.service;
+
+import org.springframework.data.domain.Sort;
+import se.lexicon.todo_app.datasource.ShardContext;
+import se.lexicon.todo_app.datasource.ShardRouter;
+import se.lexicon.todo_app.dto.AttachmentDto;
+import se.lexicon.todo_app.dto.AttachmentPreviewDto;
+import se.lexicon.todo_app.dto.TodoChangesDto;
+import se.lexicon.todo_app.dto.TodoCountsDto;
+import se.lexicon.todo_app.dto.TodoDto;
+import se.lexicon.todo_app.dto.TodoPageDto;
+import se.lexicon.todo_app.dto.TodoQueryDto;
+import se.lexicon.todo_app.dto.TodoStatsDto;
+import se.lexicon.todo_app.dto.TodoSummaryDto;
+import se.lexicon.todo_app.entity.AttachmentCodec;
+import se.lexicon.todo_app.repository.AttachmentStreamRepository;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * ShardedTodoService routes every call of the transactional TodoServiceImpl to the shard that owns the data.
+ * Calls for one todo or one person go to a single shard; global queries run on all shards in parallel
+ * and the results are merged in id order. Registered by ShardingConfig when sharding is enabled.
+ */
+public class ShardedTodoService implements TodoService {
+
+    private final TodoService todoService;
+    private final ShardRouter shardRouter;
+
+    public ShardedTodoService(TodoService todoService, ShardRouter shardRouter) {
+        this.todoService = todoService;
+        this.shardRouter = shardRouter;
+    }
+
+    @Override
+    public TodoDto create(TodoDto todoDto) {
+        return shardRouter.onShard(shardRouter.shardForId(todoDto.personId()), () -> todoService.create(todoDto));
+    }
+
+    @Override
+    public TodoDto findById(Long id, boolean includeArchived) {
+        return shardRouter.onShard(shardRouter.shardForId(id), () -> todoService.findById(id, includeArchived));
+    }
+
+    @Override
+    public List<TodoDto> findAll(boolean includeArchived) {
+        return gather(() -> todoService.findAll(includeArchived));
+    }
+
+    @Override
+    public TodoDto update(Long id, TodoDto todoDto) {
+        int shard = shardRouter.shardForId(id);
+        if (todoDto.personId() != null && shardRouter.shardForId(todoDto.personId()) != shard) {
+            throw new IllegalArgumentException("Todo cannot be assigned to a person on another shard");
+        }
+        return shardRouter.onShard(shard, () -> todoService.update(id, todoDto));
+    }
+
+    @Override
+    public void delete(Long id) {
+        shardRouter.onShard(shardRouter.shardForId(id), () -> todoService.delete(id));
+    }
+
+    @Override
+    public void deleteByPersonId(Long personId) {
+        shardRouter.onShard(shardRouter.shardForId(personId), () -> todoService.deleteByPersonId(personId));
+    }
+
+    @Override
+    public List<TodoDto> findByPersonId(Long personId, boolean includeArchived) {
+        return shardRouter.onShard(shardRouter.shardForId(personId), () -> todoService.findByPersonId(personId, includeArchived));
+    }
+
+    @Override
+    public List<TodoDto> findByCompleted(boolean completed, boolean includeArchived) {
+        return gather(() -> todoService.findByCompleted(completed, includeArchived));
+    }
+
+    @Override
+    public List<TodoDto> findOverdueTodos() {
+        return gather(todoService::findOverdueTodos);
+    }
+
+    // A cursor holds sort values rather than a position, so every shard continues from the same one and the
+    // merged page ends where the next call starts. A person's todos live on one shard; unassigned todos on any.
+    @Override
+    public TodoPageDto query(TodoQueryDto filter, Sort.Order order, String cursor, int limit) {
+        if (filter.personId() != null) {
+            return shardRouter.onShard(shardRouter.shardForId(filter.personId()), () -> todoService.query(filter, order, cursor, limit));
+        }
+        List<TodoPageDto> pages = shardRouter.onAllShards(() -> todoService.query(filter, order, cursor, limit));
+        List<TodoSummaryDto> merged = pages.stream()
+                .flatMap(page -> page.items().stream())
+                .sorted(TodoQueryCursor.comparator(order))
+                .toList();
+        boolean hasMore = merged.size() > limit || pages.stream().anyMatch(page -> page.nextCursor() != null);
+        List<TodoSummaryDto> items = merged.subList(0, Math.min(limit, merged.size()));
+        return TodoPageDto.builder()
+                .items(items)
+                .nextCursor(hasMore ? TodoQueryCursor.after(order, items.getLast()).toString() : null)
+                .build();
+    }
+
+    @Override
+    public Optional<AttachmentPreviewDto> findPreview(Long todoId, Long attachmentId) {
+        return shardRouter.onShard(shardRouter.shardForId(todoId), () -> todoService.findPreview(todoId, attachmentId));
+    }
+
+    @Override
+    public boolean writeAttachment(Long todoId, Long attachmentId, AttachmentStreamRepository.ContentWriter writer) {
+        return shardRouter.onShard(shardRouter.shardForId(todoId), () -> todoService.writeAttachment(todoId, attachmentId, writer));
+    }
+
+    @Override
+    public AttachmentDto addAttachment(Long todoId, String fileName, String fileType, AttachmentCodec codec, Path data) {
+        return shardRouter.onShard(shardRouter.shardForId(todoId), () -> todoService.addAttachment(todoId, fileName, fileType, codec, data));
+    }
+
+    // Unassigned todos can live on any shard (new ones on shard 0), but a todo lives with its person. The caller's own
+    // shard is claimed from first; todos taken from another shard are re-created on the caller's shard with new ids.
+    // The move spans two databases: if the copy fails, the taken todos are put back unassigned (also with new ids).
+    @Override
+    public List<TodoDto> claim(String username, int limit) {
+        int home = shardRouter.shardForUsername(username);
+        List<TodoDto> claimed = new ArrayList<>(shardRouter.onShard(home, () -> todoService.claim(username, limit)));
+        for (int shard = 0; shard < shardRouter.getShardCount() && claimed.size() < limit; shard++) {
+            if (shard == home) {
+                continue;
+            }
+            int remaining = limit - claimed.size();
+            List<TodoDto> taken = shardRouter.onShard(shard, () -> todoService.takeUnassigned(remaining));
+            if (taken.isEmpty()) {
+                continue;
+            }
+            try {
+                claimed.addAll(shardRouter.onShard(home, () -> todoService.adopt(username, taken)));
+            } catch (RuntimeException e) {
+                shardRouter.onShard(shard, () -> taken.forEach(todoService::create));
+                throw e;
+            }
+        }
+        return claimed;
+    }
+
+    @Override
+    public List<TodoDto> takeUnassigned(int limit) {
+        return todoService.takeUnassigned(limit);
+    }
+
+    @Override
+    public List<TodoDto> adopt(String username, List<TodoDto> todos) {
+        return shardRouter.onShard(shardRouter.shardForUsername(username), () -> todoService.adopt(username, todos));
+    }
+
+    // Every shard has its own modification sequence, so the watermark holds one position per shard, joined by '.'
+    @Override
+    public TodoChangesDto findChangesSince(String since, int limit) {
+        String[] positions = since == null || since.isBlank()
+                ? new String[shardRouter.getShardCount()]
+                : since.split("\\.", -1);
+        if (positions.length != shardRouter.getShardCount()) {
+            throw new IllegalArgumentException("Invalid watermark: " + since);
+        }
+        List<TodoChangesDto> results = shardRouter.onAllShards(
+                () -> todoService.findChangesSince(positions[ShardContext.currentShard()], limit));
+        return TodoChangesDto.builder()
+                .changed(results.stream().flatMap(result -> result.changed().stream()).toList())
+                .deleted(results.stream().flatMap(result -> result.deleted().stream()).toList())
+                .watermark(results.stream().map(TodoChangesDto::watermark).collect(Collectors.joining(".")))
+                .hasMore(results.stream().anyMatch(TodoChangesDto::hasMore))
+                .build();
+    }
+
+    // The counters are kept in memory and reconciled from all shards, see TodoStatsCounter
+    @Override
+    public TodoStatsDto getStats() {
+        return todoService.getStats();
+    }
+
+    @Override
+    public TodoCountsDto getStatsByPerson(Long personId) {
+        return todoService.getStatsByPerson(personId);
+    }
+
+    private List<TodoDto> gather(Supplier<List<TodoDto>> query) {
+        return shardRouter.onAllShards(query).stream()
+                .flatMap(Collection::stream)
+                .sorted(Comparator.comparing(TodoDto::id))
+                .toList();
+    }
+}
@@ -0,0 +1,85 @@
+package se.lexicon.todo_app.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import se.lexicon.todo_app.datasource.ShardRouter;
+import se.lexicon.todo_app.repository.ArchivedTodoRepository;
+import se.lexicon.todo_app.repository.AttachmentRepository;
+import se.lexicon.todo_app.repository.TodoRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * TodoArchiver moves completed todos that have not changed for todo.archive.after-days days, with their attachments,
+ * from the todos table into todos_archive, so the hot table only holds active work.
+ * Rows are copied and removed inside the database in batches of todo.archive.batch-size, one transaction each.
+ * Archived todos keep their id and still count in the stats; they are read through the includeArchived flag.
+ */
+@Slf4j
+@Component
+public class TodoArchiver {
+
+    private final TodoRepository todoRepository;
+    private final AttachmentRepository attachmentRepository;
+    private final ArchivedTodoRepository archivedTodoRepository;
+    private final TodoReadCache todoReadCache;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transaction;
+    private final int afterDays;
+    private final int batchSize;
+
+    public TodoArchiver(TodoRepository todoRepository, AttachmentRepository attachmentRepository,
+                        ArchivedTodoRepository archivedTodoRepository, TodoReadCache todoReadCache, ShardRouter shardRouter,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${todo.archive.after-days:30}") int afterDays,
+                        @Value("${todo.archive.batch-size:100}") int batchSize) {
+        this.todoRepository = todoRepository;
+        this.attachmentRepository = attachmentRepository;
+        this.archivedTodoRepository = archivedTodoRepository;
+        this.todoReadCache = todoReadCache;
+        this.shardRouter = shardRouter;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.afterDays = afterDays;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${todo.archive.interval:3600000}", fixedDelayString = "${todo.archive.interval:3600000}")
+    public void archive() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(afterDays);
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            int archived = shardRouter.onShard(shard, () -> archiveInBatches(cutoff));
+            if (archived > 0) {
+                log.info("Archived {} completed todos from shard {}", archived, shard);
+            }
+        }
+    }
+
+    private int archiveInBatches(LocalDateTime cutoff) {
+        int total = 0;
+        while (true) {
+            Integer archived = transaction.execute(status -> archiveBatch(cutoff));
+            if (archived == null || archived == 0) {
+                break;
+            }
+            total += archived;
+            todoReadCache.invalidate();
+        }
+        return total;
+    }
+
+    private int archiveBatch(LocalDateTime cutoff) {
+        List<Long> ids = todoRepository.lockArchivable(cutoff, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        archivedTodoRepository.copyFromTodos(ids, LocalDateTime.now());
+        archivedTodoRepository.copyAttachmentsFromTodos(ids);
+        attachmentRepository.purgeByTodoIds(ids);
+        return todoRepository.deleteArchived(ids);
+    }
+}
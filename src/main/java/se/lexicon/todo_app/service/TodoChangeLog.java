@@ -0,0 +1,216 @@
+package se.lexicon.todo_app.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import se.lexicon.todo_app.datasource.ShardContext;
+import se.lexicon.todo_app.datasource.ShardRouter;
+import se.lexicon.todo_app.entity.ArchivedTodo;
+import se.lexicon.todo_app.entity.ChangeSequence;
+import se.lexicon.todo_app.entity.Todo;
+import se.lexicon.todo_app.entity.TodoTombstone;
+import se.lexicon.todo_app.repository.ChangeSequenceRepository;
+import se.lexicon.todo_app.repository.TodoRepository;
+import se.lexicon.todo_app.repository.TodoTombstoneRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TodoChangeLog hands out the modification sequence behind delta sync and records tombstones for deleted todos.
+ * <p>
+ * Writers do not take numbers themselves: they leave change_seq empty, and once they have committed, a short
+ * transaction numbers every committed todo and tombstone still waiting for one (stampPending). Only that transaction
+ * holds the counter row, so numbers become visible in order and a reader that sees sequence n also sees everything
+ * below it, while writers never wait for each other. Rows that a writer is changing again are skipped and numbered
+ * after that writer commits; a scheduled run every todo.changes.stamp-interval ms numbers anything left behind,
+ * e.g. by a crash right after a commit. Until it is numbered, a change is not returned by delta sync.
+ */
+@Slf4j
+@Component
+public class TodoChangeLog {
+
+    private static final int SEQUENCE_ID = 1;
+    // Rows numbered per transaction, so a backlog of changes does not stay locked in one long transaction
+    private static final int STAMP_BATCH = 100;
+
+    private final ChangeSequenceRepository changeSequenceRepository;
+    private final TodoTombstoneRepository todoTombstoneRepository;
+    private final TodoRepository todoRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate newTransaction;
+    // One counter row per database, so with sharding every shard is checked once
+    private final Set<Integer> initializedShards = ConcurrentHashMap.newKeySet();
+
+    public TodoChangeLog(ChangeSequenceRepository changeSequenceRepository, TodoTombstoneRepository todoTombstoneRepository,
+                         TodoRepository todoRepository, ShardRouter shardRouter, PlatformTransactionManager transactionManager) {
+        this.changeSequenceRepository = changeSequenceRepository;
+        this.todoTombstoneRepository = todoTombstoneRepository;
+        this.todoRepository = todoRepository;
+        this.shardRouter = shardRouter;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Marks the todos as changed; they are numbered once the current transaction has committed
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordChanged(Collection<Todo> todos) {
+        todos.forEach(todo -> todo.setChangeSeq(null));
+        stampAfterCommit();
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(List<Todo> todos) {
+        List<TodoTombstone> tombstones = new ArrayList<>();
+        for (Todo todo : todos) {
+            Long personId = todo.getPerson() != null ? todo.getPerson().getId() : null;
+            tombstones.add(new TodoTombstone(todo.getId(), personId));
+        }
+        todoTombstoneRepository.saveAll(tombstones);
+        stampAfterCommit();
+    }
+
+    // An archived todo that is deleted gets a tombstone like a live one, so delta sync clients drop it as well
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(ArchivedTodo todo) {
+        todoTombstoneRepository.save(new TodoTombstone(todo.getId(), todo.getPersonId()));
+        stampAfterCommit();
+    }
+
+    /**
+     * Reserves count consecutive numbers and returns the first, holding the counter until the transaction ends.
+     * Only for bulk loads that write numbered rows themselves (see SyntheticDataGenerator).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long next(int count) {
+        ensureSequenceExists();
+        ChangeSequence sequence = lockSequence();
+        long first = sequence.getLastValue() + 1;
+        sequence.setLastValue(sequence.getLastValue() + count);
+        return first;
+    }
+
+    // Every change up to the returned number is visible to statements that run after this read
+    @Transactional(readOnly = true)
+    public long current() {
+        return changeSequenceRepository.findById(SEQUENCE_ID).map(ChangeSequence::getLastValue).orElse(0L);
+    }
+
+    @Transactional(readOnly = true)
+    public List<TodoTombstone> deletedBetween(long afterSeq, long maxSeq, int limit) {
+        return todoTombstoneRepository.findByChangeSeqGreaterThanAndChangeSeqLessThanEqualOrderByChangeSeq(
+                afterSeq, maxSeq, Limit.of(limit));
+    }
+
+    @Scheduled(fixedDelayString = "${todo.changes.stamp-interval:10000}")
+    public void stampPendingOnAllShards() {
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            shardRouter.onShard(shard, this::stampPending);
+        }
+    }
+
+    /**
+     * Numbers the committed todos and tombstones of the current shard that are waiting for a number, in short
+     * transactions of up to STAMP_BATCH rows each that hold the counter row.
+     *
+     * @return how many rows were numbered
+     */
+    public int stampPending() {
+        ensureSequenceExists();
+        int total = 0;
+        int stamped;
+        do {
+            Integer batch = newTransaction.execute(status -> stampBatch());
+            stamped = batch != null ? batch : 0;
+            total += stamped;
+        } while (stamped == STAMP_BATCH);
+        return total;
+    }
+
+    // Tombstones and todos share the batch; rows skipped because they are locked are numbered after their writer commits
+    private int stampBatch() {
+        List<Long> tombstoneIds = todoTombstoneRepository.lockUnstamped(STAMP_BATCH);
+        List<Long> todoIds = todoRepository.lockUnstamped(STAMP_BATCH - tombstoneIds.size());
+        if (todoIds.isEmpty() && tombstoneIds.isEmpty()) {
+            return 0;
+        }
+        ChangeSequence sequence = lockSequence();
+        long changeSeq = sequence.getLastValue();
+        for (Long id : todoIds) {
+            todoRepository.stamp(id, ++changeSeq);
+        }
+        for (Long id : tombstoneIds) {
+            todoTombstoneRepository.stamp(id, ++changeSeq);
+        }
+        sequence.setLastValue(changeSeq);
+        return todoIds.size() + tombstoneIds.size();
+    }
+
+    // Once per transaction; runs on the writer's thread right after its commit, on the writer's shard
+    private void stampAfterCommit() {
+        boolean registered = TransactionSynchronizationManager.getSynchronizations().stream()
+                .anyMatch(synchronization -> synchronization instanceof StampAfterCommit);
+        if (!registered) {
+            TransactionSynchronizationManager.registerSynchronization(new StampAfterCommit(ShardContext.currentShard()));
+        }
+    }
+
+    private final class StampAfterCommit implements TransactionSynchronization {
+
+        private final int shard;
+
+        private StampAfterCommit(int shard) {
+            this.shard = shard;
+        }
+
+        @Override
+        public void afterCommit() {
+            try {
+                shardRouter.onShard(shard, TodoChangeLog.this::stampPending);
+            } catch (RuntimeException e) {
+                // The scheduled run numbers the rows later
+                log.warn("Numbering changes on shard {} failed: {}", shard, e.toString());
+            }
+        }
+    }
+
+    private ChangeSequence lockSequence() {
+        return changeSequenceRepository.lockById(SEQUENCE_ID)
+                .orElseThrow(() -> new IllegalStateException("Change sequence is missing"));
+    }
+
+    // Created in its own transaction, before the caller locks anything; losing a race with another node is fine
+    private void ensureSequenceExists() {
+        int shard = ShardContext.currentShard();
+        if (initializedShards.contains(shard)) {
+            return;
+        }
+        synchronized (initializedShards) {
+            if (initializedShards.contains(shard)) {
+                return;
+            }
+            try {
+                newTransaction.executeWithoutResult(status -> {
+                    if (!changeSequenceRepository.existsById(SEQUENCE_ID)) {
+                        changeSequenceRepository.saveAndFlush(new ChangeSequence(SEQUENCE_ID, 0));
+                    }
+                });
+            } catch (DataIntegrityViolationException e) {
+                // Inserted concurrently by another node
+            }
+            initializedShards.add(shard);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package se.lexicon.todo_app.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import se.lexicon.todo_app.dto.TodoChangeDto;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * TodoChangeStream pushes committed todo changes to Server-Sent Events subscribers (GET /api/todo/stream).
+ * <p>
+ * Publishing never blocks the writing thread: every subscriber has a bounded buffer that is drained on its own
+ * virtual thread, and a subscriber whose buffer overflows is disconnected. Reconnecting clients send
+ * Last-Event-ID and get the missed events replayed from a bounded in-memory history; when the history no longer
+ * reaches back that far (or the server restarted), they get a "reset" event and should reload their todo list.
+ * Event ids have the form "epoch-sequence", where the epoch identifies this server instance.
+ */
+@Slf4j
+@Component
+public class TodoChangeStream {
+
+    private final long epoch = System.currentTimeMillis();
+    private final long timeoutMillis;
+    private final int bufferSize;
+    private final int historySize;
+
+    // Guards sequence and history so that every subscriber sees events in sequence order
+    private final Object lock = new Object();
+    private long sequence;
+    private final Deque<Change> history = new ArrayDeque<>();
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+
+    public TodoChangeStream(@Value("${todo.stream.timeout:1800000}") long timeoutMillis,
+                            @Value("${todo.stream.buffer-size:256}") int bufferSize,
+                            @Value("${todo.stream.history-size:1000}") int historySize) {
+        this.timeoutMillis = timeoutMillis;
+        this.bufferSize = bufferSize;
+        this.historySize = historySize;
+    }
+
+    private record Change(long sequence, TodoChangeDto dto) {
+    }
+
+    /**
+     * @param lastEventId the Last-Event-ID header of a reconnecting client, or null
+     * @param personId    only stream changes of this person's todos, or null for all
+     */
+    public SseEmitter subscribe(String lastEventId, Long personId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, personId);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+
+        synchronized (lock) {
+            if (lastEventId != null) {
+                replay(subscriber, lastEventId);
+            }
+            if (!subscriber.closed) {
+                subscribers.add(subscriber);
+            }
+        }
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTodoChanged(TodoChangedEvent event) {
+        TodoChangeDto dto = TodoChangeDto.builder()
+                .type(event.type().name().toLowerCase())
+                .todoId(event.todoId())
+                .personId(event.personId())
+                .todo(event.todo())
+                .build();
+
+        synchronized (lock) {
+            Change change = new Change(++sequence, dto);
+            history.addLast(change);
+            if (history.size() > historySize) {
+                history.removeFirst();
+            }
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(change);
+            }
+        }
+    }
+
+    // Keeps idle connections open through proxies and detects clients that went away
+    @Scheduled(fixedDelayString = "${todo.stream.heartbeat-interval:15000}")
+    public void sendHeartbeats() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.enqueue(SseEmitter.event().comment("heartbeat"));
+        }
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    private void replay(Subscriber subscriber, String lastEventId) {
+        long lastSequence = parseSequence(lastEventId);
+        long oldest = history.isEmpty() ? sequence + 1 : history.getFirst().sequence();
+        List<Change> missed = history.stream()
+                .filter(change -> change.sequence() > lastSequence)
+                .toList();
+
+        if (lastSequence < 0 || lastSequence > sequence || lastSequence + 1 < oldest || missed.size() > bufferSize) {
+            subscriber.enqueue(SseEmitter.event().id(epoch + "-" + sequence).name("reset").data("{}"));
+            return;
+        }
+        missed.forEach(subscriber::offer);
+    }
+
+    // Returns -1 for ids of another server instance or ids that cannot be parsed
+    private long parseSequence(String lastEventId) {
+        int separator = lastEventId.indexOf('-');
+        try {
+            if (separator < 0 || Long.parseLong(lastEventId.substring(0, separator)) != epoch) {
+                return -1;
+            }
+            return Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Long personId;
+        private final ArrayBlockingQueue<SseEmitter.SseEventBuilder> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter, Long personId) {
+            this.emitter = emitter;
+            this.personId = personId;
+        }
+
+        private void offer(Change change) {
+            if (personId != null && !personId.equals(change.dto().personId())) {
+                return;
+            }
+            enqueue(SseEmitter.event()
+                    .id(epoch + "-" + change.sequence())
+                    .name(change.dto().type())
+                    .data(change.dto(), MediaType.APPLICATION_JSON));
+        }
+
+        private void enqueue(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            if (!buffer.offer(event)) {
+                // Slow consumer: drop the connection, the client resumes with Last-Event-ID
+                log.debug("Disconnecting slow todo stream subscriber");
+                close();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                do {
+                    SseEmitter.SseEventBuilder event;
+                    while (!closed && (event = buffer.poll()) != null) {
+                        emitter.send(event);
+                    }
+                    draining.set(false);
+                    // An event may have been queued after the last poll but before the flag was cleared
+                } while (!buffer.isEmpty() && !closed && draining.compareAndSet(false, true));
+            } catch (IOException | IllegalStateException e) {
+                draining.set(false);
+                close();
+            }
+        }
+
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            subscribers.remove(this);
+            buffer.clear();
+            emitter.complete();
+        }
+    }
+}
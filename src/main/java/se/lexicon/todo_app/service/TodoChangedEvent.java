@@ -0,0 +1,18 @@
+package se.lexicon.todo_app.service;
+
+import se.lexicon.todo_app.dto.TodoDto;
+
+/**
+ * Domain event published by TodoServiceImpl whenever a todo is created, updated or deleted.
+ * Listeners should use @TransactionalEventListener so they only see committed changes.
+ *
+ * @param todo the todo after the change, with its attachments listed without their data; null for deletions
+ */
+public record TodoChangedEvent(Type type, Long todoId, Long personId, TodoDto todo) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+}
@@ -0,0 +1,122 @@
+package se.lexicon.todo_app.service;
+
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import se.lexicon.todo_app.datasource.ShardRouter;
+import se.lexicon.todo_app.repository.ArchivedTodoRepository;
+import se.lexicon.todo_app.repository.AttachmentRepository;
+import se.lexicon.todo_app.repository.PersonRepository;
+import se.lexicon.todo_app.repository.TodoRepository;
+import se.lexicon.todo_app.repository.UserRepository;
+
+import java.util.List;
+import java.util.function.IntSupplier;
+
+/**
+ * TodoPurger physically removes soft-deleted todos (with their attachments) and persons (with their user and roles).
+ * Rows go in batches of todo.purge.batch-size, each batch in its own short transaction, and only while the server
+ * is quiet: at most todo.purge.max-active-requests HTTP requests in flight, checked again before every batch.
+ * Open change streams (GET /api/todo/stream) stay in flight for as long as a client is subscribed, so they are not
+ * counted.
+ */
+@Slf4j
+@Component
+public class TodoPurger {
+
+    private static final String ACTIVE_REQUESTS_METER = "http.server.requests.active";
+
+    private final TodoRepository todoRepository;
+    private final AttachmentRepository attachmentRepository;
+    private final ArchivedTodoRepository archivedTodoRepository;
+    private final PersonRepository personRepository;
+    private final UserRepository userRepository;
+    private final ShardRouter shardRouter;
+    private final MeterRegistry meterRegistry;
+    private final TodoChangeStream todoChangeStream;
+    private final TransactionTemplate transaction;
+    private final int batchSize;
+    private final int maxActiveRequests;
+
+    public TodoPurger(TodoRepository todoRepository, AttachmentRepository attachmentRepository,
+                      ArchivedTodoRepository archivedTodoRepository,
+                      PersonRepository personRepository, UserRepository userRepository, ShardRouter shardRouter,
+                      MeterRegistry meterRegistry, TodoChangeStream todoChangeStream,
+                      PlatformTransactionManager transactionManager,
+                      @Value("${todo.purge.batch-size:50}") int batchSize,
+                      @Value("${todo.purge.max-active-requests:0}") int maxActiveRequests) {
+        this.todoRepository = todoRepository;
+        this.attachmentRepository = attachmentRepository;
+        this.archivedTodoRepository = archivedTodoRepository;
+        this.personRepository = personRepository;
+        this.userRepository = userRepository;
+        this.shardRouter = shardRouter;
+        this.meterRegistry = meterRegistry;
+        this.todoChangeStream = todoChangeStream;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxActiveRequests = maxActiveRequests;
+    }
+
+    @Scheduled(initialDelayString = "${todo.purge.interval:30000}", fixedDelayString = "${todo.purge.interval:30000}")
+    public void purge() {
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            int purged = shardRouter.onShard(shard, () -> purgeInBatches(this::purgeTodoBatch) + purgeInBatches(this::purgePersonBatch));
+            if (purged > 0) {
+                log.info("Purged {} deleted rows from shard {}", purged, shard);
+            }
+        }
+    }
+
+    private int purgeInBatches(IntSupplier batch) {
+        int total = 0;
+        while (isQuiet()) {
+            Integer purged = transaction.execute(status -> batch.getAsInt());
+            if (purged == null || purged == 0) {
+                break;
+            }
+            total += purged;
+        }
+        return total;
+    }
+
+    // Attachments first, since they reference their todo
+    private int purgeTodoBatch() {
+        List<Long> ids = todoRepository.findDeletedIds(batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        attachmentRepository.purgeByTodoIds(ids);
+        return todoRepository.purgeByIds(ids);
+    }
+
+    // Persons whose todos are all purged, together with their archived todos;
+    // the person row references the user, so it goes first
+    private int purgePersonBatch() {
+        List<Long> ids = personRepository.findPurgeableIds(batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        archivedTodoRepository.purgeAttachmentsByPersonIds(ids);
+        archivedTodoRepository.purgeByPersonIds(ids);
+        List<String> usernames = personRepository.findUsernamesIncludingDeleted(ids);
+        int purged = personRepository.purgeByIds(ids);
+        if (!usernames.isEmpty()) {
+            userRepository.purgeRolesByUsernames(usernames);
+            userRepository.purgeByUsernames(usernames);
+        }
+        return purged;
+    }
+
+    boolean isQuiet() {
+        long active = meterRegistry.find(ACTIVE_REQUESTS_METER).longTaskTimers().stream()
+                .mapToLong(LongTaskTimer::activeTasks)
+                .sum();
+        return active - todoChangeStream.subscriberCount() <= maxActiveRequests;
+    }
+}
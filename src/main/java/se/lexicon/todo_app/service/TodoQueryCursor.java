@@ -0,0 +1,80 @@
+package se.lexicon.todo_app.service;
+
+import org.springframework.data.domain.Sort;
+import se.lexicon.todo_app.datasource.ShardRouter;
+import se.lexicon.todo_app.dto.TodoSummaryDto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Keyset position of GET /api/todo/query: the sort value and id of the last row returned. The next page continues
+ * after that position, so rows inserted or deleted in between neither shift nor repeat it (unlike an offset).
+ * Written as URL-safe Base64 of "property,direction,id,value" and only valid for the sort it was created with.
+ */
+record TodoQueryCursor(Sort.Order order, Comparable<?> value, long id) {
+
+    static final Set<String> SORT_PROPERTIES = Set.of("id", "dueDate", "createdAt", "title");
+
+    static TodoQueryCursor after(Sort.Order order, TodoSummaryDto last) {
+        return new TodoQueryCursor(order, sortKey(order.getProperty()).apply(last), last.id());
+    }
+
+    static TodoQueryCursor parse(String cursor, Sort.Order order) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(",", 4);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        if (!parts[0].equals(order.getProperty()) || !parts[1].equals(order.getDirection().name())) {
+            throw new IllegalArgumentException("Cursor was created for another sort order");
+        }
+        try {
+            Comparable<?> value = switch (order.getProperty()) {
+                case "dueDate", "createdAt" -> parts[3].isEmpty() ? null : LocalDateTime.parse(parts[3]);
+                case "title" -> parts[3];
+                default -> null;
+            };
+            return new TodoQueryCursor(order, value, Long.parseLong(parts[2]));
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    // Same order as the query: the sort property (nulls first ascending, titles in the database collation),
+    // then id in the same direction
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Comparator<TodoSummaryDto> comparator(Sort.Order order) {
+        Function<TodoSummaryDto, Comparable<?>> key = sortKey(order.getProperty());
+        Comparator<Comparable> values = order.getProperty().equals("title")
+                ? Comparator.nullsFirst((Comparator) ShardRouter.TEXT_ORDER)
+                : Comparator.nullsFirst(Comparator.naturalOrder());
+        Comparator<TodoSummaryDto> comparator = (a, b) -> values.compare(key.apply(a), key.apply(b));
+        comparator = comparator.thenComparing(TodoSummaryDto::id);
+        return order.isAscending() ? comparator : comparator.reversed();
+    }
+
+    private static Function<TodoSummaryDto, Comparable<?>> sortKey(String property) {
+        return switch (property) {
+            case "dueDate" -> TodoSummaryDto::dueDate;
+            case "createdAt" -> TodoSummaryDto::createdAt;
+            case "title" -> TodoSummaryDto::title;
+            default -> TodoSummaryDto::id;
+        };
+    }
+
+    @Override
+    public String toString() {
+        String encoded = order.getProperty() + "," + order.getDirection().name() + "," + id + "," + (value == null ? "" : value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(encoded.getBytes(StandardCharsets.UTF_8));
+    }
+}
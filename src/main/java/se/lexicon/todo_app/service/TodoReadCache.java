@@ -0,0 +1,133 @@
+package se.lexicon.todo_app.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import se.lexicon.todo_app.datasource.ShardContext;
+import se.lexicon.todo_app.dto.TodoDto;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * TodoReadCache coalesces the hot aggregate reads (overdue todos, todos by status) that many dashboards poll at once.
+ * Concurrent identical calls share one in-flight query (single-flight), and the result is kept for a short TTL
+ * (todo.read-cache.ttl, 0 disables caching but keeps the coalescing).
+ * Writes invalidate everything once they commit; a query that was running while a write committed
+ * still answers its waiters but is not cached.
+ */
+@Component
+public class TodoReadCache {
+
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    public TodoReadCache(@Value("${todo.read-cache.ttl:1000}") long ttlMillis) {
+        this(ttlMillis, System::nanoTime);
+    }
+
+    TodoReadCache(long ttlMillis, LongSupplier nanoClock) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.nanoClock = nanoClock;
+    }
+
+    // Shard is part of the key, since a sharded read runs this once per shard
+    private record Key(String query, int shard) {
+    }
+
+    public List<TodoDto> overdue(Supplier<List<TodoDto>> loader) {
+        return get(new Key("overdue", ShardContext.currentShard()), loader);
+    }
+
+    public List<TodoDto> byCompleted(boolean completed, Supplier<List<TodoDto>> loader) {
+        return get(new Key("completed=" + completed, ShardContext.currentShard()), loader);
+    }
+
+    public void invalidateAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate();
+                }
+            });
+        } else {
+            invalidate();
+        }
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    private List<TodoDto> get(Key key, Supplier<List<TodoDto>> loader) {
+        while (true) {
+            Entry entry = entries.get(key);
+            if (entry != null && !entry.isExpired(nanoClock.getAsLong())) {
+                return entry.join();
+            }
+
+            Entry fresh = new Entry(generation.get());
+            boolean leader = entry == null ? entries.putIfAbsent(key, fresh) == null : entries.replace(key, entry, fresh);
+            if (leader) {
+                return load(key, fresh, loader);
+            }
+        }
+    }
+
+    private List<TodoDto> load(Key key, Entry entry, Supplier<List<TodoDto>> loader) {
+        List<TodoDto> value;
+        try {
+            // Shared between callers, so it must not be modified
+            value = List.copyOf(loader.get());
+        } catch (RuntimeException | Error e) {
+            entries.remove(key, entry);
+            entry.future.completeExceptionally(e);
+            throw e;
+        }
+
+        entry.expiresAt = nanoClock.getAsLong() + ttlNanos;
+        entry.future.complete(value);
+        if (ttlNanos == 0 || entry.generation != generation.get()) {
+            entries.remove(key, entry);
+        }
+        return value;
+    }
+
+    private static final class Entry {
+        private final CompletableFuture<List<TodoDto>> future = new CompletableFuture<>();
+        private final long generation;
+        private volatile long expiresAt;
+
+        private Entry(long generation) {
+            this.generation = generation;
+        }
+
+        private boolean isExpired(long now) {
+            return future.isDone() && now - expiresAt >= 0;
+        }
+
+        private List<TodoDto> join() {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw e;
+            }
+        }
+    }
+}
@@ -1,22 +1,59 @@
 package se.lexicon.todo_app.service;
 
+import org.springframework.data.domain.Sort;
+import se.lexicon.todo_app.dto.AttachmentDto;
+import se.lexicon.todo_app.dto.AttachmentPreviewDto;
+import se.lexicon.todo_app.dto.TodoChangesDto;
+import se.lexicon.todo_app.dto.TodoCountsDto;
 import se.lexicon.todo_app.dto.TodoDto;
+import se.lexicon.todo_app.dto.TodoPageDto;
+import se.lexicon.todo_app.dto.TodoQueryDto;
+import se.lexicon.todo_app.dto.TodoStatsDto;
+import se.lexicon.todo_app.entity.AttachmentCodec;
+import se.lexicon.todo_app.repository.AttachmentStreamRepository;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Optional;
 
 public interface TodoService {
     TodoDto create(TodoDto todoDto);
     
-    TodoDto findById(Long id);
+    TodoDto findById(Long id, boolean includeArchived);
     
-    List<TodoDto> findAll();
+    List<TodoDto> findAll(boolean includeArchived);
     
     TodoDto update(Long id, TodoDto todoDto);
     
     void delete(Long id);
+
+    void deleteByPersonId(Long personId);
     
-    List<TodoDto> findByPersonId(Long personId);
+    List<TodoDto> findByPersonId(Long personId, boolean includeArchived);
     
-    List<TodoDto> findByCompleted(boolean completed);
+    List<TodoDto> findByCompleted(boolean completed, boolean includeArchived);
     
     List<TodoDto> findOverdueTodos();
+
+    TodoPageDto query(TodoQueryDto filter, Sort.Order order, String cursor, int limit);
+
+    Optional<AttachmentPreviewDto> findPreview(Long todoId, Long attachmentId);
+
+    // Passes the stored file to the writer as it is read, false when the attachment does not exist
+    boolean writeAttachment(Long todoId, Long attachmentId, AttachmentStreamRepository.ContentWriter writer);
+
+    AttachmentDto addAttachment(Long todoId, String fileName, String fileType, AttachmentCodec codec, Path data);
+
+    List<TodoDto> claim(String username, int limit);
+
+    // Moving claimed todos between shards (see ShardedTodoService): takes up to limit unassigned todos off the
+    // current shard, and re-creates todos on the current shard assigned to the person of username
+    List<TodoDto> takeUnassigned(int limit);
+
+    List<TodoDto> adopt(String username, List<TodoDto> todos);
+
+    TodoChangesDto findChangesSince(String since, int limit);
+
+    TodoStatsDto getStats();
+
+    TodoCountsDto getStatsByPerson(Long personId);
 }
\ No newline at end of file
@@ -1,41 +1,138 @@
 package se.lexicon.todo_app.service;
 
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import se.lexicon.todo_app.dto.AttachmentDto;
+import se.lexicon.todo_app.dto.AttachmentInfoDto;
+import se.lexicon.todo_app.dto.AttachmentPreviewDto;
+import se.lexicon.todo_app.dto.AttachmentRefDto;
+import se.lexicon.todo_app.dto.TodoChangesDto;
+import se.lexicon.todo_app.dto.TodoCountsDto;
 import se.lexicon.todo_app.dto.TodoDto;
-import se.lexicon.todo_app.entity.Attachment;
+import se.lexicon.todo_app.dto.TodoPageDto;
+import se.lexicon.todo_app.dto.TodoQueryDto;
+import se.lexicon.todo_app.dto.TodoStatsDto;
+import se.lexicon.todo_app.dto.TodoSummaryDto;
+import se.lexicon.todo_app.dto.TodoTombstoneDto;
+import se.lexicon.todo_app.entity.ArchivedTodo;
+import se.lexicon.todo_app.entity.AttachmentCodec;
 import se.lexicon.todo_app.entity.Person;
 import se.lexicon.todo_app.entity.Todo;
+import se.lexicon.todo_app.entity.TodoTombstone;
+import se.lexicon.todo_app.exception.TodoArchivedException;
+import se.lexicon.todo_app.repository.ArchivedTodoRepository;
+import se.lexicon.todo_app.repository.AttachmentRepository;
+import se.lexicon.todo_app.repository.AttachmentStreamRepository;
 import se.lexicon.todo_app.repository.PersonRepository;
 import se.lexicon.todo_app.repository.TodoRepository;
+import se.lexicon.todo_app.repository.TodoSpecifications;
 
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
+@Timed(value = "todo.service", histogram = true)
 public class TodoServiceImpl implements TodoService {
 
+    // Todo ids per statement when listing attachments without their data
+    private static final int ATTACHMENT_INFO_BATCH = 1000;
+
     private final TodoRepository todoRepository;
     private final PersonRepository personRepository;
+    private final TodoStatsCounter todoStatsCounter;
+    private final TodoReadCache todoReadCache;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TodoChangeLog todoChangeLog;
+    private final ArchivedTodoRepository archivedTodoRepository;
+    private final AttachmentRepository attachmentRepository;
+    private final AttachmentCompressor attachmentCompressor;
 
-    public TodoServiceImpl(TodoRepository todoRepository, PersonRepository personRepository) {
+    public TodoServiceImpl(TodoRepository todoRepository, PersonRepository personRepository, TodoStatsCounter todoStatsCounter,
+                           TodoReadCache todoReadCache, PlatformTransactionManager transactionManager,
+                           ApplicationEventPublisher eventPublisher, TodoChangeLog todoChangeLog,
+                           ArchivedTodoRepository archivedTodoRepository, AttachmentRepository attachmentRepository,
+                           AttachmentCompressor attachmentCompressor) {
         this.todoRepository = todoRepository;
         this.personRepository = personRepository;
+        this.todoStatsCounter = todoStatsCounter;
+        this.todoReadCache = todoReadCache;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.eventPublisher = eventPublisher;
+        this.todoChangeLog = todoChangeLog;
+        this.archivedTodoRepository = archivedTodoRepository;
+        this.attachmentRepository = attachmentRepository;
+        this.attachmentCompressor = attachmentCompressor;
     }
 
-    private TodoDto convertToDto(Todo todo) {
+    // With the attachment data and no links (the todo gets new ids), for todos moved to another shard (takeUnassigned);
+    // every other todo returned or published lists its attachments without data.
+    // Package-private so the mapping can be benchmarked in isolation (src/jmh/java)
+    TodoDto convertToDto(Todo todo) {
         List<AttachmentDto> attachmentDtos = todo.getAttachments().stream()
                 .map(attachment -> new AttachmentDto(
                         attachment.getId(),
                         attachment.getFileName(),
                         attachment.getFileType(),
-                        attachment.getData()
+                        AttachmentCodec.decode(attachment.getCodec(), attachment.getData())
                 ))
                 .collect(Collectors.toList());
+        return convertToDto(todo, attachmentDtos);
+    }
+
+    private List<TodoDto> convertToDtosWithoutAttachmentData(List<Todo> todos) {
+        Map<Long, List<AttachmentDto>> attachments =
+                attachmentsOf(idsOf(todos, Todo::getId), attachmentRepository::findInfoByTodoIds);
+        return todos.stream()
+                .map(todo -> convertToDto(todo, attachments.getOrDefault(todo.getId(), List.of())))
+                .collect(Collectors.toList());
+    }
+
+    // The attachments are listed from a projection with data null, linking to the file and its preview, so neither
+    // the todos' attachments nor their files are loaded; one statement per ATTACHMENT_INFO_BATCH todos
+    private static Map<Long, List<AttachmentDto>> attachmentsOf(List<Long> todoIds,
+                                                               Function<List<Long>, List<AttachmentInfoDto>> finder) {
+        Map<Long, List<AttachmentDto>> attachments = new HashMap<>();
+        for (int from = 0; from < todoIds.size(); from += ATTACHMENT_INFO_BATCH) {
+            for (AttachmentInfoDto attachment : finder.apply(
+                    todoIds.subList(from, Math.min(todoIds.size(), from + ATTACHMENT_INFO_BATCH)))) {
+                attachments.computeIfAbsent(attachment.todoId(), id -> new ArrayList<>()).add(new AttachmentDto(
+                        attachment.id(),
+                        attachment.fileName(),
+                        attachment.fileType(),
+                        null,
+                        attachment.hasPreview() ? previewUrl(attachment.todoId(), attachment.id()) : null,
+                        attachmentUrl(attachment.todoId(), attachment.id())
+                ));
+            }
+        }
+        return attachments;
+    }
+
+    private static <T> List<Long> idsOf(List<T> todos, Function<T, Long> id) {
+        return todos.stream().map(id).toList();
+    }
 
+    private TodoDto convertToDto(Todo todo, List<AttachmentDto> attachmentDtos) {
         return TodoDto.builder()
                 .id(todo.getId())
                 .title(todo.getTitle())
@@ -45,11 +142,63 @@ public class TodoServiceImpl implements TodoService {
                 .updatedAt(todo.getUpdatedAt())
                 .dueDate(todo.getDueDate())
                 .personId(todo.getPerson() != null ? todo.getPerson().getId() : null)
-                .numberOfAttachments(todo.getAttachments().size())
+                .numberOfAttachments(attachmentDtos.size())
+                .attachments(attachmentDtos)
+                .build();
+    }
+
+
+    private static String attachmentUrl(Long todoId, Long attachmentId) {
+        return "/api/todo/" + todoId + "/attachments/" + attachmentId;
+    }
+
+    private static String previewUrl(Long todoId, Long attachmentId) {
+        return attachmentUrl(todoId, attachmentId) + "/preview";
+    }
+
+    private TodoDto convertToDto(ArchivedTodo todo, List<AttachmentDto> attachmentDtos) {
+        return TodoDto.builder()
+                .id(todo.getId())
+                .title(todo.getTitle())
+                .description(todo.getDescription())
+                .completed(todo.isCompleted())
+                .createdAt(todo.getCreatedAt())
+                .updatedAt(todo.getUpdatedAt())
+                .dueDate(todo.getDueDate())
+                .personId(todo.getPersonId())
+                .numberOfAttachments(attachmentDtos.size())
                 .attachments(attachmentDtos)
+                .archived(true)
                 .build();
     }
 
+    // Live and archived todos found by one read, with their attachments keyed by todo id
+    private record Found(List<Todo> live, List<ArchivedTodo> archived, Map<Long, List<AttachmentDto>> attachments) {
+
+        List<AttachmentDto> attachmentsOf(Long todoId) {
+            return attachments.getOrDefault(todoId, List.of());
+        }
+    }
+
+    // Reads load in a short read-only transaction and map afterwards, so the connection is back in the pool before
+    // the DTOs are built; the finders do not fetch the attachments, which are listed without their data instead
+    private Found find(Supplier<List<Todo>> live, boolean includeArchived, Supplier<List<ArchivedTodo>> archived) {
+        return readOnlyTransaction.execute(status -> found(live.get(), includeArchived ? archived.get() : List.of()));
+    }
+
+    // Runs inside the read; archived todos keep their ids, so the two never share one
+    private Found found(List<Todo> live, List<ArchivedTodo> archived) {
+        Map<Long, List<AttachmentDto>> attachments = attachmentsOf(idsOf(live, Todo::getId), attachmentRepository::findInfoByTodoIds);
+        attachments.putAll(attachmentsOf(idsOf(archived, ArchivedTodo::getId), archivedTodoRepository::findAttachmentInfoByTodoIds));
+        return new Found(live, archived, attachments);
+    }
+
+    private List<TodoDto> toDtos(Found found) {
+        List<TodoDto> result = new ArrayList<>(found.live().size() + found.archived().size());
+        found.live().forEach(todo -> result.add(convertToDto(todo, found.attachmentsOf(todo.getId()))));
+        found.archived().forEach(todo -> result.add(convertToDto(todo, found.attachmentsOf(todo.getId()))));
+        return result;
+    }
 
     private Todo convertToEntity(TodoDto todoDto) {
         Todo todo = new Todo(
@@ -68,12 +217,7 @@ public class TodoServiceImpl implements TodoService {
         // Add attachments if present
         if (todoDto.attachments() != null && !todoDto.attachments().isEmpty()) {
             for (AttachmentDto attachmentDto : todoDto.attachments()) {
-                Attachment attachment = new Attachment(
-                        attachmentDto.fileName(),
-                        attachmentDto.fileType(),
-                        attachmentDto.data()
-                );
-                todo.addAttachment(attachment);
+                todo.addAttachment(attachmentCompressor.toAttachment(attachmentDto));
             }
         }
 
@@ -82,29 +226,41 @@ public class TodoServiceImpl implements TodoService {
 
     @Override
     public TodoDto create(TodoDto todoDto) {
-        Todo todo = convertToEntity(todoDto);
+        return save(convertToEntity(todoDto));
+    }
+
+    private TodoDto save(Todo todo) {
         Todo savedTodo = todoRepository.save(todo);
-        return convertToDto(savedTodo);
+        stampChanges(List.of(savedTodo));
+        todoStatsCounter.recordCreated(savedTodo);
+        todoReadCache.invalidateAfterCommit();
+        return publishChanges(TodoChangedEvent.Type.CREATED, List.of(savedTodo)).getFirst();
     }
 
     @Override
-    public TodoDto findById(Long id) {
-        Todo todo = todoRepository.findById(id)
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public TodoDto findById(Long id, boolean includeArchived) {
+        Found found = readOnlyTransaction.execute(status -> {
+            List<Todo> live = todoRepository.findById(id).stream().toList();
+            return found(live, live.isEmpty() && includeArchived
+                    ? archivedTodoRepository.findById(id).stream().toList()
+                    : List.of());
+        });
+        return toDtos(found).stream()
+                .findFirst()
                 .orElseThrow(() -> new RuntimeException("Todo not found"));
-        return convertToDto(todo);
     }
 
     @Override
-    public List<TodoDto> findAll() {
-        return todoRepository.findAll().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<TodoDto> findAll(boolean includeArchived) {
+        return toDtos(find(todoRepository::findAll, includeArchived, archivedTodoRepository::findAll));
     }
 
     @Override
     public TodoDto update(Long id, TodoDto todoDto) {
-        Todo existingTodo = todoRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Todo not found"));
+        Todo existingTodo = findForUpdate(id);
+        TodoStatsCounter.TodoState before = todoStatsCounter.stateOf(existingTodo);
 
         existingTodo.setTitle(todoDto.title());
         existingTodo.setDescription(todoDto.description());
@@ -126,42 +282,314 @@ public class TodoServiceImpl implements TodoService {
 
             // Add new attachments
             for (AttachmentDto attachmentDto : todoDto.attachments()) {
-                Attachment attachment = new Attachment(
-                        attachmentDto.fileName(),
-                        attachmentDto.fileType(),
-                        attachmentDto.data()
-                );
-                existingTodo.addAttachment(attachment);
+                existingTodo.addAttachment(attachmentCompressor.toAttachment(attachmentDto));
             }
         }
 
         Todo updatedTodo = todoRepository.save(existingTodo);
-        return convertToDto(updatedTodo);
+        stampChanges(List.of(updatedTodo));
+        todoStatsCounter.recordUpdated(before, updatedTodo);
+        todoReadCache.invalidateAfterCommit();
+        return publishChanges(TodoChangedEvent.Type.UPDATED, List.of(updatedTodo)).getFirst();
+    }
+
+    // Archived todos are read-only: changing one is a conflict rather than an unknown id
+    private Todo findForUpdate(Long id) {
+        return todoRepository.findById(id).orElseThrow(() -> archivedTodoRepository.existsById(id)
+                ? new TodoArchivedException(id)
+                : new RuntimeException("Todo not found"));
     }
 
+    // A live todo is only marked deleted; the row and its attachments are removed in the background by TodoPurger.
+    // The purger does not look at the archive, so an archived todo is removed from it right away.
     @Override
     public void delete(Long id) {
-        todoRepository.deleteById(id);
+        Optional<Todo> todo = todoRepository.findById(id);
+        if (todo.isPresent()) {
+            softDelete(List.of(todo.get()));
+            return;
+        }
+        archivedTodoRepository.lockById(id).ifPresent(this::deleteArchived);
+    }
+
+    private void deleteArchived(ArchivedTodo todo) {
+        archivedTodoRepository.purgeAttachmentsById(todo.getId());
+        archivedTodoRepository.purgeById(todo.getId());
+        todoStatsCounter.recordDeleted(new TodoStatsCounter.TodoState(todo.getPersonId(), todo.isCompleted(), false));
+        eventPublisher.publishEvent(new TodoChangedEvent(TodoChangedEvent.Type.DELETED, todo.getId(), todo.getPersonId(), null));
+        todoChangeLog.recordDeleted(todo);
     }
 
     @Override
-    public List<TodoDto> findByPersonId(Long personId) {
-        return todoRepository.findByPerson_Id(personId).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    public void deleteByPersonId(Long personId) {
+        softDelete(todoRepository.findByPerson_Id(personId));
+    }
+
+    private void softDelete(List<Todo> todos) {
+        if (todos.isEmpty()) {
+            return;
+        }
+        for (Todo todo : todos) {
+            TodoStatsCounter.TodoState before = todoStatsCounter.stateOf(todo);
+            todo.setDeleted(true);
+            todoStatsCounter.recordDeleted(before);
+            eventPublisher.publishEvent(new TodoChangedEvent(TodoChangedEvent.Type.DELETED, todo.getId(), before.personId(), null));
+        }
+        todoChangeLog.recordDeleted(todos);
+        todoReadCache.invalidateAfterCommit();
     }
 
     @Override
-    public List<TodoDto> findByCompleted(boolean completed) {
-        return todoRepository.findByCompleted(completed).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<TodoDto> findByPersonId(Long personId, boolean includeArchived) {
+        return toDtos(find(() -> todoRepository.findByPerson_Id(personId), includeArchived,
+                () -> archivedTodoRepository.findByPersonId(personId)));
     }
 
+    // Polled by many clients at once: identical concurrent calls share one query (see TodoReadCache).
+    // The shared query runs in its own read-only transaction, so waiting callers do not hold a connection.
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<TodoDto> findByCompleted(boolean completed, boolean includeArchived) {
+        List<TodoDto> todos = todoReadCache.byCompleted(completed, () ->
+                toDtos(find(() -> todoRepository.findByCompleted(completed), false, List::of)));
+        if (!includeArchived) {
+            return todos;
+        }
+        // The cached part ran in its own transaction, so the archive gets one too
+        List<TodoDto> result = new ArrayList<>(todos);
+        result.addAll(toDtos(find(List::of, true, () -> archivedTodoRepository.findByCompleted(completed))));
+        return result;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<TodoDto> findOverdueTodos() {
-        return todoRepository.findByDueDateBeforeAndCompletedFalse(LocalDateTime.now()).stream()
+        return todoReadCache.overdue(() -> toDtos(find(
+                () -> todoRepository.findByDueDateBeforeAndCompletedFalse(LocalDateTime.now()), false, List::of)));
+    }
+
+    // One statement for any combination of filters, paged by keyset (see TodoQueryCursor); live todos only
+    @Override
+    @Transactional(readOnly = true)
+    public TodoPageDto query(TodoQueryDto filter, Sort.Order order, String cursor, int limit) {
+        if (!TodoQueryCursor.SORT_PROPERTIES.contains(order.getProperty())) {
+            throw new IllegalArgumentException("Cannot sort by " + order.getProperty());
+        }
+        Specification<Todo> specification = TodoSpecifications.matching(filter);
+        if (cursor != null && !cursor.isBlank()) {
+            TodoQueryCursor position = TodoQueryCursor.parse(cursor, order);
+            specification = specification.and(
+                    TodoSpecifications.after(order.getProperty(), order.isAscending(), position.value(), position.id()));
+        }
+        Sort sort = order.getProperty().equals("id")
+                ? Sort.by(order)
+                : Sort.by(order, new Sort.Order(order.getDirection(), "id"));
+
+        // One extra row tells whether another page follows
+        List<TodoSummaryDto> rows = todoRepository.findSummaries(specification, sort, limit + 1);
+        boolean hasMore = rows.size() > limit;
+        List<TodoSummaryDto> items = withPreviewUrls(hasMore ? rows.subList(0, limit) : rows);
+        return TodoPageDto.builder()
+                .items(items)
+                .nextCursor(hasMore ? TodoQueryCursor.after(order, items.getLast()).toString() : null)
+                .build();
+    }
+
+    // A second statement reads which attachments of the page have a thumbnail, without their data
+    private List<TodoSummaryDto> withPreviewUrls(List<TodoSummaryDto> todos) {
+        if (todos.isEmpty()) {
+            return todos;
+        }
+        Map<Long, List<String>> previewUrls = attachmentRepository.findPreviewRefs(todos.stream().map(TodoSummaryDto::id).toList())
+                .stream()
+                .collect(Collectors.groupingBy(AttachmentRefDto::todoId,
+                        Collectors.mapping(ref -> previewUrl(ref.todoId(), ref.attachmentId()), Collectors.toList())));
+        return todos.stream()
+                .map(todo -> todo.withPreviewUrls(previewUrls.getOrDefault(todo.id(), List.of())))
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<AttachmentPreviewDto> findPreview(Long todoId, Long attachmentId) {
+        return attachmentRepository.findPreview(todoId, attachmentId);
+    }
+
+    // The read-only transaction stays open while the file is written to the client, archived attachments included
+    @Override
+    @Transactional(readOnly = true)
+    public boolean writeAttachment(Long todoId, Long attachmentId, AttachmentStreamRepository.ContentWriter writer) {
+        return attachmentRepository.streamContent(todoId, attachmentId, writer);
+    }
+
+    // The data is streamed from the file into the attachments table (see AttachmentStreamRepository); the returned
+    // attachment has no data, and neither has the published change, so no file is read back into memory.
+    @Override
+    public AttachmentDto addAttachment(Long todoId, String fileName, String fileType, AttachmentCodec codec, Path data) {
+        Todo todo = findForUpdate(todoId);
+        Long attachmentId = attachmentRepository.insertFromFile(todoId, fileName, fileType, codec, data);
+        stampChanges(List.of(todo));
+        todoReadCache.invalidateAfterCommit();
+        publishChanges(TodoChangedEvent.Type.UPDATED, List.of(todo));
+        return new AttachmentDto(attachmentId, fileName, fileType, null, null, attachmentUrl(todoId, attachmentId));
+    }
+
+    // Rows locked by a concurrent claim are skipped instead of waited for, so claimers never block each other
+    // and a todo can only be assigned once; the locks are held until this transaction commits
+    @Override
+    public List<TodoDto> claim(String username, int limit) {
+        Person person = personRepository.findByUserUsername(username)
+                .orElseThrow(() -> new RuntimeException("Person not found"));
+
+        List<Todo> todos = lockUnassigned(limit);
+        for (Todo todo : todos) {
+            TodoStatsCounter.TodoState before = todoStatsCounter.stateOf(todo);
+            todo.setPerson(person);
+            todoStatsCounter.recordUpdated(before, todo);
+        }
+        if (!todos.isEmpty()) {
+            stampChanges(todos);
+            todoReadCache.invalidateAfterCommit();
+        }
+        return publishChanges(TodoChangedEvent.Type.UPDATED, todos);
+    }
+
+    // Locked like claim() and deleted in the same transaction; the caller re-creates them on another shard
+    @Override
+    public List<TodoDto> takeUnassigned(int limit) {
+        List<Todo> todos = lockUnassigned(limit);
+        List<TodoDto> taken = todos.stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
+        softDelete(todos);
+        return taken;
+    }
+
+    // H2 applies the limit of lockUnassigned before skipping locked rows, so it can return nothing while other claimers
+    // hold the first rows. Then the unassigned todos are walked in windows of limit ids, each locked without a limit.
+    private List<Todo> lockUnassigned(int limit) {
+        List<Todo> todos = todoRepository.lockUnassigned(limit);
+        long afterId = 0;
+        while (todos.isEmpty()) {
+            List<Long> ids = todoRepository.findUnassignedIds(afterId, Limit.of(limit));
+            if (ids.isEmpty()) {
+                break;
+            }
+            todos = todoRepository.lockUnassignedByIds(ids);
+            afterId = ids.getLast();
+        }
+        return todos;
+    }
+
+    // The todos get new ids, but keep their creation time
+    @Override
+    public List<TodoDto> adopt(String username, List<TodoDto> todos) {
+        Person person = personRepository.findByUserUsername(username)
+                .orElseThrow(() -> new RuntimeException("Person not found"));
+        List<TodoDto> adopted = new ArrayList<>();
+        for (TodoDto todoDto : todos) {
+            Todo todo = convertToEntity(todoDto);
+            todo.setPerson(person);
+            todo.setCreatedAt(todoDto.createdAt());
+            adopted.add(save(todo));
+        }
+        return adopted;
+    }
+
+    // Todos and tombstones share one modification sequence, read up to the sequence value seen at the start so that
+    // a change committing in between cannot be skipped. The watermark is the (change_seq, id) position of the last
+    // change returned, since todos from before delta sync existed all have sequence 0.
+    @Override
+    @Transactional(readOnly = true)
+    public TodoChangesDto findChangesSince(String since, int limit) {
+        long maxSeq = todoChangeLog.current();
+        Watermark from = since == null || since.isBlank() ? Watermark.START : Watermark.parse(since);
+
+        List<Todo> todos = todoRepository.findChangedAfter(from.changeSeq(), from.id(), maxSeq, Limit.of(limit + 1));
+        // A first sync has nothing to delete, and any todo deleted before this read is not in the result
+        List<TodoTombstone> tombstones = from == Watermark.START
+                ? List.of()
+                : todoChangeLog.deletedBetween(from.changeSeq(), maxSeq, limit + 1);
+
+        List<Todo> changed = new ArrayList<>();
+        List<TodoTombstoneDto> deleted = new ArrayList<>();
+        Watermark last = from;
+        int t = 0;
+        int d = 0;
+        while (changed.size() + deleted.size() < limit && (t < todos.size() || d < tombstones.size())) {
+            if (d == tombstones.size() || (t < todos.size() && todos.get(t).getChangeSeq() < tombstones.get(d).getChangeSeq())) {
+                Todo todo = todos.get(t++);
+                changed.add(todo);
+                last = new Watermark(todo.getChangeSeq(), todo.getId());
+            } else {
+                TodoTombstone tombstone = tombstones.get(d++);
+                deleted.add(new TodoTombstoneDto(tombstone.getTodoId(), tombstone.getPersonId(), tombstone.getDeletedAt()));
+                last = new Watermark(tombstone.getChangeSeq(), tombstone.getTodoId());
+            }
+        }
+        boolean hasMore = t < todos.size() || d < tombstones.size();
+
+        return TodoChangesDto.builder()
+                .changed(convertToDtosWithoutAttachmentData(changed))
+                .deleted(deleted)
+                // Once everything up to maxSeq is delivered the position within it no longer matters
+                .watermark((hasMore ? last : new Watermark(Math.max(maxSeq, last.changeSeq()), Long.MAX_VALUE)).toString())
+                .hasMore(hasMore)
+                .build();
+    }
+
+    // Written as "changeSeq_id", or just "changeSeq" when every change with that sequence has been delivered
+    private record Watermark(long changeSeq, long id) {
+
+        private static final Watermark START = new Watermark(-1, -1);
+
+        static Watermark parse(String value) {
+            try {
+                int separator = value.indexOf('_');
+                return separator < 0
+                        ? new Watermark(Long.parseLong(value), Long.MAX_VALUE)
+                        : new Watermark(Long.parseLong(value.substring(0, separator)), Long.parseLong(value.substring(separator + 1)));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid watermark: " + value);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return id == Long.MAX_VALUE ? Long.toString(changeSeq) : changeSeq + "_" + id;
+        }
+    }
+
+    // The todos get their sequence numbers after this transaction commits (see TodoChangeLog)
+    private void stampChanges(Collection<Todo> todos) {
+        todoChangeLog.recordChanged(todos);
+    }
+
+    // Delivered to listeners after commit, see TodoChangeStream. The todos are published without attachment data,
+    // so events stay small in the stream's replay history; listeners that need a file read it themselves.
+    // Returns the published DTOs, which are also the response of the change.
+    private List<TodoDto> publishChanges(TodoChangedEvent.Type type, List<Todo> todos) {
+        if (todos.isEmpty()) {
+            return List.of();
+        }
+        List<TodoDto> published = convertToDtosWithoutAttachmentData(todos);
+        for (TodoDto todo : published) {
+            eventPublisher.publishEvent(new TodoChangedEvent(type, todo.id(), todo.personId(), todo));
+        }
+        return published;
+    }
+
+    // Served from in-memory counters, so no transaction (and no pooled connection) is needed
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public TodoStatsDto getStats() {
+        return todoStatsCounter.getStats();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public TodoCountsDto getStatsByPerson(Long personId) {
+        return todoStatsCounter.getStats(personId);
     }
-}
\ No newline at end of file
+}
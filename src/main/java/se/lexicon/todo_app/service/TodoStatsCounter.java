@@ -0,0 +1,187 @@
+package se.lexicon.todo_app.service;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import se.lexicon.todo_app.datasource.ShardRouter;
+import se.lexicon.todo_app.dto.TodoCountsDto;
+import se.lexicon.todo_app.dto.TodoGroupCountDto;
+import se.lexicon.todo_app.dto.TodoStatsDto;
+import se.lexicon.todo_app.entity.Todo;
+import se.lexicon.todo_app.repository.ArchivedTodoRepository;
+import se.lexicon.todo_app.repository.TodoRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * TodoStatsCounter keeps total, completed and overdue todo counts in memory, globally and per person,
+ * so the stats endpoint never has to scan the todos table.
+ * Counters are adjusted incrementally after every committed create, update and delete,
+ * and periodically rebuilt from GROUP BY queries to correct drift.
+ * Todos that become overdue only because time passes are picked up by the next reconciliation.
+ */
+@Component
+public class TodoStatsCounter {
+
+    private final TodoRepository todoRepository;
+    private final ArchivedTodoRepository archivedTodoRepository;
+    private final ShardRouter shardRouter;
+
+    private volatile Counters counters = new Counters(null);
+
+    public TodoStatsCounter(TodoRepository todoRepository, ArchivedTodoRepository archivedTodoRepository, ShardRouter shardRouter) {
+        this.todoRepository = todoRepository;
+        this.archivedTodoRepository = archivedTodoRepository;
+        this.shardRouter = shardRouter;
+    }
+
+    /**
+     * Snapshot of the counter-relevant fields of a todo, taken before it is modified or deleted.
+     */
+    public record TodoState(Long personId, boolean completed, boolean overdue) {
+    }
+
+    public TodoState stateOf(Todo todo) {
+        boolean overdue = !todo.isCompleted()
+                && todo.getDueDate() != null
+                && todo.getDueDate().isBefore(LocalDateTime.now());
+        Long personId = todo.getPerson() != null ? todo.getPerson().getId() : null;
+        return new TodoState(personId, todo.isCompleted(), overdue);
+    }
+
+    public void recordCreated(Todo todo) {
+        TodoState after = stateOf(todo);
+        afterCommit(() -> apply(after, 1));
+    }
+
+    public void recordUpdated(TodoState before, Todo todo) {
+        TodoState after = stateOf(todo);
+        if (before.equals(after)) {
+            return;
+        }
+        afterCommit(() -> {
+            apply(before, -1);
+            apply(after, 1);
+        });
+    }
+
+    public void recordDeleted(TodoState before) {
+        afterCommit(() -> apply(before, -1));
+    }
+
+    // Sums the global counters only, so the cost does not grow with the number of persons
+    public TodoStatsDto getStats() {
+        Counters current = counters;
+        return TodoStatsDto.builder()
+                .global(current.global.toDto())
+                .reconciledAt(current.reconciledAt)
+                .build();
+    }
+
+    public TodoCountsDto getStats(Long personId) {
+        Counts counts = counters.perPerson.get(personId);
+        return counts != null ? counts.toDto() : new TodoCountsDto(0, 0, 0, 0);
+    }
+
+    @Scheduled(fixedDelayString = "${todo.stats.reconcile.interval:60000}")
+    public void reconcile() {
+        LocalDateTime now = LocalDateTime.now();
+        Counters fresh = new Counters(now);
+
+        // Archived todos still count; they are completed, so never overdue
+        List<TodoGroupCountDto> groups = new ArrayList<>(onAllShards(todoRepository::countGroupedByPersonAndCompleted));
+        groups.addAll(onAllShards(archivedTodoRepository::countGroupedByPersonAndCompleted));
+        for (TodoGroupCountDto row : groups) {
+            fresh.global.total.add(row.count());
+            Counts personCounts = row.personId() != null ? fresh.forPerson(row.personId()) : null;
+            if (personCounts != null) {
+                personCounts.total.add(row.count());
+            }
+            if (row.completed()) {
+                fresh.global.completed.add(row.count());
+                if (personCounts != null) {
+                    personCounts.completed.add(row.count());
+                }
+            }
+        }
+
+        for (TodoGroupCountDto row : onAllShards(() -> todoRepository.countOverdueGroupedByPerson(now))) {
+            fresh.global.overdue.add(row.count());
+            if (row.personId() != null) {
+                fresh.forPerson(row.personId()).overdue.add(row.count());
+            }
+        }
+
+        // Writes committed while the queries ran may be missed or counted twice; the next run corrects them
+        counters = fresh;
+    }
+
+    private List<TodoGroupCountDto> onAllShards(Supplier<List<TodoGroupCountDto>> query) {
+        return shardRouter.onAllShards(query).stream()
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    private void apply(TodoState state, int delta) {
+        Counters current = counters;
+        current.global.add(state, delta);
+        if (state.personId() != null) {
+            current.forPerson(state.personId()).add(state, delta);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static final class Counters {
+        private final Counts global = new Counts();
+        private final ConcurrentHashMap<Long, Counts> perPerson = new ConcurrentHashMap<>();
+        private final LocalDateTime reconciledAt;
+
+        private Counters(LocalDateTime reconciledAt) {
+            this.reconciledAt = reconciledAt;
+        }
+
+        private Counts forPerson(Long personId) {
+            return perPerson.computeIfAbsent(personId, id -> new Counts());
+        }
+    }
+
+    private static final class Counts {
+        private final LongAdder total = new LongAdder();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder overdue = new LongAdder();
+
+        private void add(TodoState state, int delta) {
+            total.add(delta);
+            if (state.completed()) {
+                completed.add(delta);
+            }
+            if (state.overdue()) {
+                overdue.add(delta);
+            }
+        }
+
+        private TodoCountsDto toDto() {
+            long totalCount = total.sum();
+            long completedCount = completed.sum();
+            return new TodoCountsDto(totalCount, completedCount, totalCount - completedCount, Math.max(0, overdue.sum()));
+        }
+    }
+}
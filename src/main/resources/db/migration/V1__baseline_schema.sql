@@ -0,0 +1,52 @@
+-- Schema as created by spring.jpa.hibernate.ddl-auto=update before migrations were introduced.
+-- Existing databases are baselined at this version (spring.flyway.baseline-on-migrate), so it only runs on empty ones.
+
+create table users (
+    expired bit not null,
+    password varchar(255) not null,
+    username varchar(255) not null,
+    primary key (username)
+) engine=InnoDB;
+
+create table user_roles (
+    username varchar(255) not null,
+    role enum ('ADMIN','MODERATOR','USER')
+) engine=InnoDB;
+
+create table persons (
+    created_at date,
+    id bigint not null auto_increment,
+    name varchar(100) not null,
+    email varchar(150) not null,
+    user_id varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table todos (
+    completed bit not null,
+    created_at datetime(6) not null,
+    due_date datetime(6),
+    id bigint not null auto_increment,
+    person_id bigint,
+    updated_at datetime(6),
+    title varchar(100) not null,
+    description varchar(500),
+    primary key (id)
+) engine=InnoDB;
+
+create table attachments (
+    id bigint not null auto_increment,
+    todo_id bigint,
+    file_name varchar(255),
+    file_type varchar(255),
+    data longblob,
+    primary key (id)
+) engine=InnoDB;
+
+alter table persons add constraint UK1x5aosta48fbss4d5b3kuu0rd unique (email);
+alter table persons add constraint UK9ieowpbwhbaefgakkpmkkq4w8 unique (user_id);
+
+alter table user_roles add constraint FKcdp2dxqcsdh6rnh6o64rgtcir foreign key (username) references users (username);
+alter table persons add constraint FKrp309masjisdm7mmqon63obpv foreign key (user_id) references users (username);
+alter table todos add constraint FKk9a1gq3csn41xtxsst2gum8nw foreign key (person_id) references persons (id);
+alter table attachments add constraint FKcbli0d2ybr4o26jtyh9xjylld foreign key (todo_id) references todos (id);
@@ -0,0 +1,21 @@
+-- Modification sequence for delta sync (GET /api/todo/changes, TodoChangeLog) and tombstones of deleted todos.
+-- Todos from before delta sync get sequence 0, so a first sync returns them.
+alter table todos add column change_seq bigint not null default 0;
+
+create table todo_tombstones (
+    change_seq bigint not null,
+    deleted_at datetime(6) not null,
+    id bigint not null auto_increment,
+    person_id bigint,
+    todo_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table change_sequence (
+    id integer not null,
+    last_value bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_todos_change_seq on todos (change_seq, id);
+create index idx_todo_tombstones_change_seq on todo_tombstones (change_seq);
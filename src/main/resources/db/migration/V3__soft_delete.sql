@@ -0,0 +1,4 @@
+-- Soft delete of todos and persons (the person's login goes with it); TodoPurger removes the rows later.
+alter table users add column deleted bit not null default 0;
+alter table persons add column deleted bit not null default 0;
+alter table todos add column deleted bit not null default 0;
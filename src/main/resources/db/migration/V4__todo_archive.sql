@@ -0,0 +1,27 @@
+-- Completed todos moved out of the todos table by TodoArchiver, with their attachments. They keep their ids.
+create table todos_archive (
+    completed bit not null,
+    archived_at datetime(6) not null,
+    created_at datetime(6) not null,
+    due_date datetime(6),
+    id bigint not null,
+    person_id bigint,
+    updated_at datetime(6),
+    title varchar(100) not null,
+    description varchar(500),
+    primary key (id)
+) engine=InnoDB;
+
+create table attachments_archive (
+    id bigint not null,
+    todo_id bigint,
+    file_name varchar(255),
+    file_type varchar(255),
+    data longblob,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_todos_archive_person on todos_archive (person_id);
+create index idx_attachments_archive_todo on attachments_archive (todo_id);
+
+alter table attachments_archive add constraint FKjqcikuaace5hboucan70on53y foreign key (todo_id) references todos_archive (id);
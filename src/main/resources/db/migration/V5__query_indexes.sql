@@ -0,0 +1,21 @@
+-- One index per access path of TodoRepository and PersonRepository, checked by QueryPlanTest.
+-- Every todo and person query also filters deleted = false (soft delete); that check is left to the row lookup.
+-- There is deliberately no index leading with deleted: planners that cannot tell how few rows are deleted
+-- (H2 in particular) would pick it for that filter over the indexes below.
+
+-- findByPerson_Id, findByPersonIdAndCompletedTrue, countByPersonId, findByPersonIsNull, lockUnassigned,
+-- and the per-person NOT EXISTS of PersonRepository.findPurgeableIds
+create index idx_todos_person_completed_due on todos (person_id, completed, due_date);
+
+-- findByCompleted, findByCompletedFalseAndDueDateBefore, findByDueDateBeforeAndCompletedFalse,
+-- countOverdueGroupedByPerson and lockArchivable (completed = true)
+create index idx_todos_completed_due on todos (completed, due_date);
+
+-- findByDueDateBetween, findByDueDateIsNull
+create index idx_todos_due_date on todos (due_date);
+
+-- findAllDtos sorted by name (sorting by id or email uses the primary key or the unique email index)
+create index idx_persons_name on persons (name);
+
+-- Not indexed: findByTitleContainingIgnoreCase matches anywhere in the title, which no B-tree index can serve,
+-- and the purge queries findDeletedIds and findPurgeableIds read the primary key in order up to their limit
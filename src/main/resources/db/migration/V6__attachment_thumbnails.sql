@@ -0,0 +1,4 @@
+-- Thumbnails of image attachments, written in the background after the upload commits (AttachmentThumbnailer).
+-- Kept next to the file, so they are replaced and purged together with it (the archive keeps only the file).
+alter table attachments add column thumbnail longblob;
+alter table attachments add column thumbnail_type varchar(255);
@@ -0,0 +1,4 @@
+-- Compression of the stored attachment data (AttachmentCodec), NULL for data stored as uploaded.
+-- The archive copies the data as it is, so it needs the codec as well.
+alter table attachments add column codec enum ('DEFLATE');
+alter table attachments_archive add column codec enum ('DEFLATE');
@@ -0,0 +1,4 @@
+-- Changes are numbered after their transaction commits (TodoChangeLog), so change_seq is NULL until then.
+-- The NULLs sort first in the change_seq indexes, which is where the numbering looks for them.
+alter table todos modify change_seq bigint null;
+alter table todo_tombstones modify change_seq bigint null;
@@ -0,0 +1,106 @@
+package se.lexicon.todo_app.config;
+
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import se.lexicon.todo_app.dto.AttachmentDto;
+import se.lexicon.todo_app.dto.TodoDto;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryEncodingConfigTest {
+
+    private ObjectMapper cborMapper;
+    private ObjectMapper jsonMapper;
+    private TodoDto todoDto;
+
+    @BeforeEach
+    void setUp() {
+        cborMapper = BinaryEncodingConfig.cborObjectMapper();
+        jsonMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        byte[] data = new byte[4096];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+
+        todoDto = TodoDto.builder()
+                .id(1L)
+                .title("Write report")
+                .description("Quarterly numbers")
+                .createdAt(now)
+                .updatedAt(now.plusHours(1))
+                .dueDate(now.plusDays(3))
+                .personId(2L)
+                .numberOfAttachments(1)
+                .attachments(List.of(new AttachmentDto(3L, "report.bin", "application/octet-stream", data)))
+                .build();
+    }
+
+    @Test
+    @DisplayName("CBOR round trip should preserve timestamps and attachment bytes")
+    void cborRoundTrip_ShouldPreserveValues() throws Exception {
+        byte[] encoded = cborMapper.writeValueAsBytes(todoDto);
+        TodoDto decoded = cborMapper.readValue(encoded, TodoDto.class);
+
+        assertEquals(todoDto.createdAt(), decoded.createdAt());
+        assertEquals(todoDto.updatedAt(), decoded.updatedAt());
+        assertEquals(todoDto.dueDate(), decoded.dueDate());
+        assertArrayEquals(todoDto.attachments().get(0).data(), decoded.attachments().get(0).data());
+    }
+
+    @Test
+    @DisplayName("CBOR should write attachment data as a byte string and dates as numbers")
+    void cbor_ShouldUseNativeBinaryAndNumericTimestamps() throws Exception {
+        byte[] encoded = cborMapper.writeValueAsBytes(todoDto);
+
+        boolean binarySeen = false;
+        try (CBORParser parser = new CBORFactory().createParser(encoded)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.FIELD_NAME && "createdAt".equals(parser.currentName())) {
+                    assertEquals(JsonToken.VALUE_NUMBER_INT, parser.nextToken());
+                }
+                if (token == JsonToken.FIELD_NAME && "data".equals(parser.currentName())) {
+                    assertEquals(JsonToken.VALUE_EMBEDDED_OBJECT, parser.nextToken());
+                    binarySeen = true;
+                }
+            }
+        }
+        assertTrue(binarySeen);
+    }
+
+    @Test
+    @DisplayName("CBOR payload should be smaller than the JSON payload")
+    void cbor_ShouldBeSmallerThanJson() throws Exception {
+        int cborSize = cborMapper.writeValueAsBytes(List.of(todoDto)).length;
+        int jsonSize = jsonMapper.writeValueAsBytes(List.of(todoDto)).length;
+
+        assertTrue(cborSize < jsonSize, "cbor=" + cborSize + " json=" + jsonSize);
+    }
+
+    @Test
+    @DisplayName("CBOR should still accept ISO-8601 timestamps")
+    void cbor_ShouldAcceptIsoTimestamps() throws Exception {
+        byte[] encoded = cborMapper.writeValueAsBytes(
+                Map.of("title", "Plain", "dueDate", "2025-01-02T03:04:05"));
+
+        TodoDto decoded = cborMapper.readValue(encoded, TodoDto.class);
+
+        assertEquals(LocalDateTime.of(2025, 1, 2, 3, 4, 5), decoded.dueDate());
+    }
+}
@@ -0,0 +1,58 @@
+package se.lexicon.todo_app.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import se.lexicon.todo_app.dto.AuthRequestDto;
+import se.lexicon.todo_app.service.AuthService;
+import se.lexicon.todo_app.service.TodoService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The seed profile fills its own in-memory database on startup.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:seed",
+        "app.seed.persons=20",
+        "app.seed.todos=500",
+        "app.seed.batch-size=50",
+        "app.seed.attachment-ratio=0.1",
+        "app.seed.attachment-min-size=100",
+        "app.seed.attachment-max-size=200",
+        "app.seed.exit-when-done=false"
+})
+@ActiveProfiles("seed")
+public class DataSeederTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TodoService todoService;
+
+    @Autowired
+    private AuthService authService;
+
+    @Test
+    void testSeedProfileGeneratesData() {
+        assertEquals(20, count("SELECT COUNT(*) FROM persons WHERE email LIKE '%@seed.test'"));
+        assertEquals(500, count("SELECT COUNT(*) FROM todos"));
+        assertEquals(500, count("SELECT COUNT(DISTINCT change_seq) FROM todos"));
+        assertTrue(count("SELECT COUNT(*) FROM attachments") > 0);
+        assertEquals(0, count("SELECT COUNT(*) FROM attachments WHERE OCTET_LENGTH(data) NOT BETWEEN 100 AND 200"));
+
+        // Completed and open todos, some of them overdue
+        assertTrue(count("SELECT COUNT(*) FROM todos WHERE completed = true") > 0);
+        assertFalse(todoService.findOverdueTodos().isEmpty());
+        assertEquals(500, todoService.getStats().global().total());
+
+        assertEquals("seed3", authService.login(new AuthRequestDto("seed3", "password")).username());
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
@@ -0,0 +1,99 @@
+package se.lexicon.todo_app.config;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.CoreMigrationType;
+import org.flywaydb.core.api.MigrationInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import se.lexicon.todo_app.dto.AttachmentContentDto;
+import se.lexicon.todo_app.entity.Person;
+import se.lexicon.todo_app.entity.Todo;
+import se.lexicon.todo_app.repository.AttachmentRepository;
+import se.lexicon.todo_app.repository.PersonRepository;
+import se.lexicon.todo_app.repository.TodoRepository;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A database that ddl-auto=update created before migrations existed (the V1 schema with rows, but no Flyway history)
+ * is baselined at V1 and migrated with the prd settings; the entities then validate against it and the old rows load.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:baseline;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.flyway.enabled=true",
+        "spring.flyway.baseline-on-migrate=true",
+        "spring.flyway.baseline-version=1",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class FlywayBaselineTest {
+
+    @TestConfiguration
+    static class PreMigrationDatabase {
+
+        // Builds and fills the schema as ddl-auto=update left it, then migrates
+        @Bean
+        FlywayMigrationStrategy createPreMigrationSchemaThenMigrate() {
+            return flyway -> {
+                DataSource dataSource = flyway.getConfiguration().getDataSource();
+                new ResourceDatabasePopulator(new ClassPathResource("db/migration/V1__baseline_schema.sql")).execute(dataSource);
+                JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+                jdbcTemplate.update("INSERT INTO users (username, password, expired) VALUES ('legacy', 'hash', false)");
+                jdbcTemplate.update("INSERT INTO user_roles (username, role) VALUES ('legacy', 'USER')");
+                jdbcTemplate.update("INSERT INTO persons (id, name, email, created_at, user_id) " +
+                        "VALUES (1, 'Legacy Person', 'legacy@example.com', CURRENT_DATE, 'legacy')");
+                jdbcTemplate.update("INSERT INTO todos (id, title, completed, created_at, person_id) " +
+                        "VALUES (1, 'Legacy todo', false, CURRENT_TIMESTAMP, 1)");
+                jdbcTemplate.update("INSERT INTO attachments (id, todo_id, file_name, file_type, data) " +
+                        "VALUES (1, 1, 'notes.txt', 'text/plain', ?)", (Object) "notes".getBytes());
+                flyway.migrate();
+            };
+        }
+    }
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private TodoRepository todoRepository;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Test
+    void testPreMigrationDatabaseIsBaselinedAndMigrated() {
+        // Assert: V1 is recorded as the baseline, not run, and every later script ran
+        MigrationInfo[] applied = flyway.info().applied();
+        assertEquals(CoreMigrationType.BASELINE, applied[0].getType());
+        assertEquals("1", applied[0].getVersion().getVersion());
+        assertEquals(List.of("2", "3", "4", "5", "6", "7", "8"), Arrays.stream(applied).skip(1)
+                .map(migration -> migration.getVersion().getVersion())
+                .toList());
+        assertEquals(0, flyway.info().pending().length);
+
+        // Assert: the old rows are live, and the old todo is part of a first delta sync
+        Todo todo = todoRepository.findById(1L).orElseThrow();
+        assertEquals("Legacy todo", todo.getTitle());
+        assertEquals(0L, todo.getChangeSeq());
+        Person person = personRepository.findById(1L).orElseThrow();
+        assertEquals("legacy", person.getUser().getUsername());
+        AttachmentContentDto attachment = attachmentRepository.findContent(1L, 1L).orElseThrow();
+        assertNull(attachment.codec());
+        assertArrayEquals("notes".getBytes(), attachment.data());
+    }
+}
@@ -0,0 +1,179 @@
+package se.lexicon.todo_app.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import se.lexicon.todo_app.dto.AttachmentDto;
+import se.lexicon.todo_app.dto.TodoDto;
+import se.lexicon.todo_app.entity.AttachmentCodec;
+import se.lexicon.todo_app.service.TodoArchiver;
+import se.lexicon.todo_app.service.TodoService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Text-like attachments are stored compressed, downloaded as uploaded, and passed through compressed to clients
+ * that accept deflate.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:download")
+@AutoConfigureMockMvc
+@WithMockUser(roles = "USER")
+public class AttachmentDownloadTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TodoService todoService;
+
+    @Autowired
+    private TodoArchiver todoArchiver;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testCompressibleAttachmentsAreStoredCompressed() throws Exception {
+        // Arrange
+        byte[] csv = "id,title,completed\n".repeat(500).getBytes();
+        byte[] random = new byte[4096];
+        new Random(1).nextBytes(random);
+        TodoDto created = todoService.create(TodoDto.builder()
+                .title("Export")
+                .completed(false)
+                .attachments(List.of(
+                        new AttachmentDto(null, "export.csv", "text/csv", csv),
+                        new AttachmentDto(null, "notes.txt", "text/plain", "short".getBytes()),
+                        new AttachmentDto(null, "random.json", "application/json", random)))
+                .build());
+
+        // Assert: only the large and compressible file is compressed, and every file reads back as uploaded
+        Long csvId = idOf(created, "export.csv");
+        assertEquals("DEFLATE", codecOf(csvId));
+        assertTrue(storedSize(csvId) < csv.length / 5);
+        assertNull(codecOf(idOf(created, "notes.txt")));
+        assertNull(codecOf(idOf(created, "random.json")));
+
+        TodoDto found = todoService.findById(created.id(), false);
+        assertNull(attachmentOf(found, "export.csv").data());
+        assertArrayEquals(csv, download(found, "export.csv"));
+        assertArrayEquals(random, download(found, "random.json"));
+    }
+
+    @Test
+    void testDownloadPassesCompressedDataThroughOrDecompresses() throws Exception {
+        // Arrange
+        byte[] log = "2024-01-01 INFO started\n".repeat(400).getBytes();
+        TodoDto created = todoService.create(TodoDto.builder()
+                .title("Logs")
+                .completed(false)
+                .attachments(List.of(new AttachmentDto(null, "app.log", "text/plain", log)))
+                .build());
+        String url = "/api/todo/" + created.id() + "/attachments/" + idOf(created, "app.log");
+
+        // Act
+        MvcResult compressed = mockMvc.perform(get(url).header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "deflate"))
+                .andReturn();
+        MvcResult plain = mockMvc.perform(get(url).header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate;q=0"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT_ENCODING)))
+                .andReturn();
+
+        // Assert
+        byte[] passedThrough = compressed.getResponse().getContentAsByteArray();
+        assertTrue(passedThrough.length < log.length / 5);
+        assertArrayEquals(log, AttachmentCodec.decode(AttachmentCodec.DEFLATE, passedThrough));
+        assertArrayEquals(log, plain.getResponse().getContentAsByteArray());
+        assertTrue(plain.getResponse().getHeader(HttpHeaders.CONTENT_DISPOSITION).contains("app.log"));
+
+        mockMvc.perform(get("/api/todo/" + created.id() + "/attachments/" + Long.MAX_VALUE))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testAttachmentsOfDeletedTodoCannotBeDownloaded() throws Exception {
+        // Arrange
+        TodoDto created = todoService.create(TodoDto.builder()
+                .title("Soon deleted")
+                .completed(false)
+                .attachments(List.of(new AttachmentDto(null, "secret.txt", "text/plain", "secret".getBytes())))
+                .build());
+        String url = "/api/todo/" + created.id() + "/attachments/" + idOf(created, "secret.txt");
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+
+        // Act: the rows stay until the purger runs
+        todoService.delete(created.id());
+
+        // Assert
+        mockMvc.perform(get(url)).andExpect(status().isNotFound());
+        mockMvc.perform(get(url + "/preview")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testArchivedAttachmentsCanBeDownloaded() throws Exception {
+        // Arrange
+        byte[] report = "quarter,total\n".repeat(200).getBytes();
+        TodoDto created = todoService.create(TodoDto.builder()
+                .title("Archived report")
+                .completed(true)
+                .attachments(List.of(new AttachmentDto(null, "report.csv", "text/csv", report)))
+                .build());
+        String url = "/api/todo/" + created.id() + "/attachments/" + idOf(created, "report.csv");
+        jdbcTemplate.update("UPDATE todos SET created_at = ?, updated_at = NULL WHERE id = ?",
+                LocalDateTime.now().minusDays(90), created.id());
+
+        // Act
+        todoArchiver.archive();
+
+        // Assert: the file is read from the archive, still compressed as stored
+        MvcResult download = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn();
+        assertArrayEquals(report, download.getResponse().getContentAsByteArray());
+        assertEquals("DEFLATE", jdbcTemplate.queryForObject(
+                "SELECT codec FROM attachments_archive WHERE todo_id = ?", String.class, created.id()));
+    }
+
+    private String codecOf(Long attachmentId) {
+        return jdbcTemplate.queryForObject("SELECT codec FROM attachments WHERE id = ?", String.class, attachmentId);
+    }
+
+    private long storedSize(Long attachmentId) {
+        return jdbcTemplate.queryForObject("SELECT OCTET_LENGTH(data) FROM attachments WHERE id = ?", Long.class, attachmentId);
+    }
+
+    private static Long idOf(TodoDto todo, String fileName) {
+        return attachmentOf(todo, fileName).id();
+    }
+
+    // Follows the attachment's url, as a client without deflate support would
+    private byte[] download(TodoDto todo, String fileName) throws Exception {
+        return mockMvc.perform(get(attachmentOf(todo, fileName).url()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+
+    private static AttachmentDto attachmentOf(TodoDto todo, String fileName) {
+        return todo.attachments().stream()
+                .filter(attachment -> attachment.fileName().equals(fileName))
+                .findFirst().orElseThrow();
+    }
+}
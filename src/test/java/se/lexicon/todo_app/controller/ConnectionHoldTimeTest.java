@@ -0,0 +1,78 @@
+package se.lexicon.todo_app.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import se.lexicon.todo_app.datasource.ConnectionHoldTimeDataSource;
+import se.lexicon.todo_app.dto.AttachmentDto;
+import se.lexicon.todo_app.dto.TodoDto;
+import se.lexicon.todo_app.service.TodoService;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * With open-in-view disabled the responses must be complete without lazy loading, and every endpoint
+ * that used a connection reports how long it held it.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:hold")
+@AutoConfigureMockMvc
+@WithMockUser(roles = "USER")
+public class ConnectionHoldTimeTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TodoService todoService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void testResponsesIncludeAttachmentsAndRecordHoldTime() throws Exception {
+        // Arrange
+        TodoDto created = todoService.create(TodoDto.builder()
+                .title("Held todo")
+                .completed(false)
+                .attachments(List.of(new AttachmentDto(null, "notes.txt", "text/plain", "notes".getBytes())))
+                .build());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/todo/{id}", created.id()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.attachments[0].fileName").value("notes.txt"))
+                .andExpect(jsonPath("$.attachments[0].url").value(created.attachments().get(0).url()));
+        mockMvc.perform(get("/api/todo/status").param("completed", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].attachments[*].fileName", hasItem("notes.txt")));
+
+        assertTrue(holdTime("/api/todo/{id}").count() >= 1);
+        assertTrue(holdTime("/api/todo/status").count() >= 1);
+    }
+
+    @Test
+    void testEndpointsWithoutDatabaseWorkHoldNoConnection() throws Exception {
+        // Act: the stats are served from in-memory counters
+        mockMvc.perform(get("/api/todo/stats")).andExpect(status().isOk());
+
+        // Assert
+        assertNull(meterRegistry.find(ConnectionHoldTimeDataSource.METRIC_NAME).tag("uri", "/api/todo/stats").timer());
+    }
+
+    private Timer holdTime(String uri) {
+        Timer timer = meterRegistry.find(ConnectionHoldTimeDataSource.METRIC_NAME).tags("uri", uri, "method", "GET").timer();
+        assertNotNull(timer, "no hold time recorded for " + uri);
+        return timer;
+    }
+}
@@ -0,0 +1,87 @@
+package se.lexicon.todo_app.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import se.lexicon.todo_app.dto.TodoDto;
+import se.lexicon.todo_app.service.TodoService;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(roles = "USER")
+public class TodoStreamTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TodoService todoService;
+
+    @Test
+    void testChangesArePushedAndCanBeResumed() throws Exception {
+        // Arrange
+        MvcResult stream = mockMvc.perform(get("/api/todo/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Act
+        TodoDto created = todoService.create(todo("Streamed todo"));
+        todoService.update(created.id(), todo("Streamed todo, renamed"));
+        todoService.delete(created.id());
+
+        // Assert
+        String events = awaitContent(stream, "event:deleted");
+        assertTrue(events.contains("event:created"));
+        assertTrue(events.contains("event:updated"));
+        assertTrue(events.contains("Streamed todo, renamed"));
+
+        // A client that saw only the first event gets the rest replayed
+        Matcher firstId = Pattern.compile("id:(\\S+)").matcher(events);
+        assertTrue(firstId.find());
+        MvcResult resumed = mockMvc.perform(get("/api/todo/stream").header("Last-Event-ID", firstId.group(1)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String replayed = awaitContent(resumed, "event:deleted");
+        assertFalse(replayed.contains("event:created"));
+        assertTrue(replayed.contains("event:updated"));
+    }
+
+    @Test
+    void testUnknownLastEventIdGetsReset() throws Exception {
+        // Act
+        MvcResult stream = mockMvc.perform(get("/api/todo/stream").header("Last-Event-ID", "1-42"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        assertTrue(awaitContent(stream, "event:reset").contains("event:reset"));
+    }
+
+    private static String awaitContent(MvcResult result, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        String content = result.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            content = result.getResponse().getContentAsString();
+        }
+        return content;
+    }
+
+    private static TodoDto todo(String title) {
+        return TodoDto.builder()
+                .title(title)
+                .completed(false)
+                .build();
+    }
+}
@@ -0,0 +1,91 @@
+package se.lexicon.todo_app.datasource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Uses two separate in-memory H2 databases as primary and replica and checks which one a transaction ends up on.
+ */
+public class ReadWriteRoutingDataSourceTest {
+
+    private DataSource replica;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        replica = h2("routing_replica");
+        new JdbcTemplate(replica).execute("CREATE TABLE IF NOT EXISTS heartbeat (lag_seconds INT)");
+        new JdbcTemplate(replica).execute("DELETE FROM heartbeat");
+        new JdbcTemplate(replica).execute("INSERT INTO heartbeat VALUES (0)");
+    }
+
+    @Test
+    void testReadOnlyTransactionsGoToReplica() {
+        // Arrange
+        routing(new ReplicaLagMonitor(replica, "", 5, true));
+
+        // Act & Assert
+        assertEquals("routing_replica", currentDatabase(true));
+        assertEquals("routing_primary", currentDatabase(false));
+    }
+
+    @Test
+    void testLaggingReplicaFallsBackToPrimary() {
+        // Arrange
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replica, "SELECT lag_seconds FROM heartbeat", 5, true);
+        routing(monitor);
+        new JdbcTemplate(replica).update("UPDATE heartbeat SET lag_seconds = 30");
+
+        // Act
+        monitor.checkReplica();
+
+        // Assert
+        assertEquals("routing_primary", currentDatabase(true));
+
+        // Replica caught up again
+        new JdbcTemplate(replica).update("UPDATE heartbeat SET lag_seconds = 1");
+        monitor.checkReplica();
+        assertEquals("routing_replica", currentDatabase(true));
+    }
+
+    @Test
+    void testLaggingReplicaIsStillUsedWhenFallbackDisabled() {
+        // Arrange
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replica, "SELECT lag_seconds FROM heartbeat", 5, false);
+        routing(monitor);
+        new JdbcTemplate(replica).update("UPDATE heartbeat SET lag_seconds = 30");
+
+        // Act
+        monitor.checkReplica();
+
+        // Assert
+        assertEquals("routing_replica", currentDatabase(true));
+    }
+
+    private void routing(ReplicaLagMonitor monitor) {
+        DataSource dataSource = new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(h2("routing_primary"), replica, monitor));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    private String currentDatabase(boolean readOnly) {
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status ->
+                jdbcTemplate.queryForObject("SELECT DATABASE()", String.class)).toLowerCase();
+    }
+
+    private static DataSource h2(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+}
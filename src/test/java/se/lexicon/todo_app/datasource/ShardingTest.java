@@ -0,0 +1,328 @@
+package se.lexicon.todo_app.datasource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import se.lexicon.todo_app.dto.AuthRequestDto;
+import se.lexicon.todo_app.dto.AuthResponseDto;
+import se.lexicon.todo_app.dto.PersonDto;
+import se.lexicon.todo_app.dto.PersonRegistrationDto;
+import se.lexicon.todo_app.dto.PersonRegistrationResultDto;
+import se.lexicon.todo_app.dto.TodoChangesDto;
+import se.lexicon.todo_app.dto.TodoDto;
+import se.lexicon.todo_app.dto.TodoPageDto;
+import se.lexicon.todo_app.dto.TodoQueryDto;
+import se.lexicon.todo_app.service.AuthService;
+import se.lexicon.todo_app.service.PersonService;
+import se.lexicon.todo_app.service.TodoService;
+import se.lexicon.todo_app.service.TodoStatsCounter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the services against three in-memory H2 databases acting as shards; like MySQL, they compare text ignoring case.
+ */
+@SpringBootTest(properties = {
+        "app.sharding.enabled=true",
+        "app.sharding.shards[0].url=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1;IGNORECASE=TRUE",
+        "app.sharding.shards[0].username=sa",
+        "app.sharding.shards[1].url=jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1;IGNORECASE=TRUE",
+        "app.sharding.shards[1].username=sa",
+        "app.sharding.shards[2].url=jdbc:h2:mem:shard2;DB_CLOSE_DELAY=-1;IGNORECASE=TRUE",
+        "app.sharding.shards[2].username=sa"
+})
+public class ShardingTest {
+
+    @Autowired
+    private TodoService todoService;
+
+    @Autowired
+    private PersonService personService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private TodoStatsCounter todoStatsCounter;
+
+    @Autowired
+    private AuthService authService;
+
+    @Test
+    void testPeopleAndTodosAreSpreadOverShards() {
+        // Arrange: one person per shard
+        List<PersonDto> people = new ArrayList<>();
+        for (int shard = 0; shard < 3; shard++) {
+            String username = usernameOnShard("sharded", shard);
+            people.add(personService.create(registration(username, username + "@test.se")));
+        }
+
+        // Act
+        List<TodoDto> created = new ArrayList<>();
+        for (PersonDto person : people) {
+            created.add(todoService.create(todo("Todo of " + person.id(), person.id(), LocalDateTime.now().minusDays(1))));
+            created.add(todoService.create(todo("Another todo of " + person.id(), person.id(), null)));
+        }
+
+        // Assert: every person and todo lives on its own shard, with ids from that shard's range
+        for (int shard = 0; shard < 3; shard++) {
+            PersonDto person = people.get(shard);
+            assertEquals(shard, shardRouter.shardForId(person.id()));
+            assertEquals(2, shard(shard).queryForObject(
+                    "SELECT COUNT(*) FROM todos WHERE person_id = ?", Integer.class, person.id()));
+            assertEquals(2, todoService.findByPersonId(person.id(), false).size());
+        }
+        for (TodoDto todo : created) {
+            assertEquals(shardRouter.shardForId(todo.personId()), shardRouter.shardForId(todo.id()));
+            assertEquals(todo.title(), todoService.findById(todo.id(), false).title());
+        }
+
+        // Global queries gather all shards
+        List<Long> allIds = todoService.findAll(false).stream().map(TodoDto::id).toList();
+        assertTrue(allIds.containsAll(created.stream().map(TodoDto::id).toList()));
+        assertEquals(3, todoService.findOverdueTodos().stream()
+                .filter(todo -> todo.title().startsWith("Todo of ")).count());
+        assertEquals(people.get(2), personService.findByEmail(people.get(2).email()));
+        assertTrue(personService.existsByUsername(usernameOnShard("sharded", 1)));
+        List<PersonDto> byEmail = personService.findAll(Pageable.unpaged(Sort.by(Sort.Direction.DESC, "email")));
+        assertTrue(byEmail.containsAll(people));
+        assertEquals(byEmail.subList(1, 2), personService.findAll(PageRequest.of(1, 1, Sort.by(Sort.Direction.DESC, "email"))));
+
+        todoStatsCounter.reconcile();
+        assertEquals(2, todoService.getStatsByPerson(people.get(1).id()).total());
+    }
+
+    @Test
+    void testPeopleSortedByNameAcrossShardsIgnoreCase() {
+        // Arrange: one person per shard, names differing in case that sort before everyone else's
+        List<String> names = List.of("aa alice", "AA Bob", "aa carol");
+        for (int shard = 0; shard < 3; shard++) {
+            String username = usernameOnShard("named", shard);
+            personService.create(PersonRegistrationDto.builder()
+                    .name(names.get(shard))
+                    .email(username + "@test.se")
+                    .username(username)
+                    .password("password")
+                    .confirmPassword("password")
+                    .build());
+        }
+
+        // Act
+        List<PersonDto> firstThree = personService.findAll(PageRequest.of(0, 3, Sort.by("name")));
+        List<PersonDto> second = personService.findAll(PageRequest.of(1, 1, Sort.by("name")));
+
+        // Assert: the order of the shards, page by page
+        assertEquals(names, firstThree.stream().map(PersonDto::name).toList());
+        assertEquals(List.of("AA Bob"), second.stream().map(PersonDto::name).toList());
+    }
+
+    @Test
+    void testTodosQueriedByTitleAcrossShardsIgnoreCase() {
+        // Arrange: one todo per shard, titles differing in case
+        List<String> titles = List.of("collate a", "COLLATE b", "collate c");
+        for (int shard = 0; shard < 3; shard++) {
+            String username = usernameOnShard("titled", shard);
+            PersonDto person = personService.create(registration(username, username + "@test.se"));
+            todoService.create(todo(titles.get(shard), person.id(), null));
+        }
+
+        // Act: one todo per page
+        TodoQueryDto filter = TodoQueryDto.builder().title("collate").build();
+        List<String> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            TodoPageDto page = todoService.query(filter, Sort.Order.asc("title"), cursor, 1);
+            page.items().forEach(item -> paged.add(item.title()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        // Assert
+        assertEquals(titles, paged);
+    }
+
+    @Test
+    void testLoginFindsUserOnItsShard() {
+        // Arrange
+        String username = usernameOnShard("login", 2);
+        personService.create(registration(username, username + "@test.se"));
+
+        // Act
+        AuthResponseDto response = authService.login(new AuthRequestDto(username, "password"));
+
+        // Assert
+        assertEquals(username + "@test.se", response.email());
+        assertEquals("user1@test.se", authService.login(new AuthRequestDto("user1", "password")).email());
+    }
+
+    @Test
+    void testTodoCannotMoveToAnotherShard() {
+        // Arrange
+        PersonDto first = personService.create(registration(usernameOnShard("mover", 0), "mover0@test.se"));
+        PersonDto second = personService.create(registration(usernameOnShard("mover", 1), "mover1@test.se"));
+        TodoDto todo = todoService.create(todo("Stays home", first.id(), null));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> todoService.update(todo.id(), todo("Stays home", second.id(), null)));
+    }
+
+    @Test
+    void testDuplicateEmailIsRejectedAcrossShards() {
+        // Arrange
+        String email = "shared@test.se";
+        personService.create(registration(usernameOnShard("dup", 0), email));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> personService.create(registration(usernameOnShard("dup", 2), email)));
+    }
+
+    @Test
+    void testBulkRegistrationSplitsRowsByShard() {
+        // Arrange: the third row repeats an email that lives on another shard
+        personService.create(registration(usernameOnShard("bulkdup", 1), "bulkdup@test.se"));
+        List<PersonRegistrationDto> rows = List.of(
+                registration(usernameOnShard("bulk", 0), "bulk0@test.se"),
+                registration(usernameOnShard("bulk", 2), "bulk2@test.se"),
+                registration(usernameOnShard("bulkdup", 0), "bulkdup@test.se"));
+
+        // Act
+        List<PersonRegistrationResultDto> results = personService.createAll(rows);
+
+        // Assert
+        assertEquals(0, shardRouter.shardForId(results.get(0).person().id()));
+        assertEquals(2, shardRouter.shardForId(results.get(1).person().id()));
+        assertEquals("Email already exists", results.get(2).error());
+        assertEquals(results.get(1).person(), personService.findByEmail("bulk2@test.se"));
+    }
+
+    @Test
+    void testChangesAreTrackedPerShard() {
+        // Arrange
+        PersonDto first = personService.create(registration(usernameOnShard("sync", 0), "sync0@test.se"));
+        PersonDto third = personService.create(registration(usernameOnShard("sync", 2), "sync2@test.se"));
+        TodoDto kept = todoService.create(todo("Kept", first.id(), null));
+        TodoDto removed = todoService.create(todo("Removed", third.id(), null));
+        String watermark = drainChanges(null);
+
+        // Act
+        todoService.update(kept.id(), todo("Kept, renamed", first.id(), null));
+        todoService.delete(removed.id());
+        TodoChangesDto changes = todoService.findChangesSince(watermark, 100);
+
+        // Assert: one position per shard, and only what happened after the watermark comes back
+        assertEquals(3, changes.watermark().split("\\.").length);
+        assertEquals(List.of("Kept, renamed"), changes.changed().stream().map(TodoDto::title).toList());
+        assertEquals(List.of(removed.id()), changes.deleted().stream().map(deleted -> deleted.id()).toList());
+        assertTrue(todoService.findChangesSince(changes.watermark(), 100).changed().isEmpty());
+    }
+
+    @Test
+    void testQueryPagesThroughAllShards() {
+        // Arrange: two todos per shard, due dates interleaved across the shards, one without a due date
+        LocalDateTime start = LocalDateTime.now().withNano(0);
+        List<TodoDto> created = new ArrayList<>();
+        for (int shard = 0; shard < 3; shard++) {
+            PersonDto person = personService.create(registration(usernameOnShard("query", shard), "query" + shard + "@test.se"));
+            created.add(todoService.create(todo("Queried " + shard, person.id(), start.plusHours(shard))));
+            created.add(todoService.create(todo("Queried " + (shard + 3), person.id(), shard == 1 ? null : start.plusHours(shard + 3))));
+        }
+        TodoQueryDto filter = TodoQueryDto.builder().title("queried").build();
+        Sort.Order byDueDateDesc = Sort.Order.desc("dueDate");
+
+        // Act: pages of two
+        List<String> titles = new ArrayList<>();
+        String cursor = null;
+        do {
+            TodoPageDto page = todoService.query(filter, byDueDateDesc, cursor, 2);
+            page.items().forEach(todo -> titles.add(todo.title()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        // Assert: every todo once, in due date order across the shards, the one without due date last
+        assertEquals(List.of("Queried 5", "Queried 3", "Queried 2", "Queried 1", "Queried 0", "Queried 4"), titles);
+        assertEquals(2, todoService.query(TodoQueryDto.builder().personId(created.get(2).personId()).build(),
+                Sort.Order.asc("id"), null, 10).items().size());
+    }
+
+    @Test
+    void testClaimTakesUnassignedTodosFromEveryShard() {
+        // Arrange: unassigned todos on shard 0 (where new ones go) and on shard 2 (unassigned after creation)
+        String claimer = usernameOnShard("claimer", 1);
+        PersonDto person = personService.create(registration(claimer, claimer + "@test.se"));
+        PersonDto owner = personService.create(registration(usernameOnShard("releaser", 2), "releaser@test.se"));
+        TodoDto onShard0 = todoService.create(todo("Queued on shard 0", null, null));
+        TodoDto released = todoService.create(todo("Queued on shard 2", owner.id(), null));
+        todoService.update(released.id(), todo("Queued on shard 2", null, null));
+
+        // Act
+        List<TodoDto> claimed = new ArrayList<>();
+        List<TodoDto> batch;
+        while (!(batch = todoService.claim(claimer, 10)).isEmpty()) {
+            claimed.addAll(batch);
+        }
+
+        // Assert: both moved to the claimer's shard, and are gone from where they were
+        List<String> titles = claimed.stream().map(TodoDto::title).toList();
+        assertTrue(titles.containsAll(List.of("Queued on shard 0", "Queued on shard 2")));
+        for (TodoDto todo : claimed) {
+            assertEquals(person.id(), todo.personId());
+            assertEquals(1, shardRouter.shardForId(todo.id()));
+            assertEquals(todo.title(), todoService.findById(todo.id(), false).title());
+        }
+        assertThrows(RuntimeException.class, () -> todoService.findById(onShard0.id(), false));
+        assertThrows(RuntimeException.class, () -> todoService.findById(released.id(), false));
+        assertTrue(todoService.query(TodoQueryDto.builder().unassigned(true).build(), Sort.Order.asc("id"), null, 10)
+                .items().isEmpty());
+    }
+
+    private String drainChanges(String watermark) {
+        TodoChangesDto changes;
+        do {
+            changes = todoService.findChangesSince(watermark, 100);
+            watermark = changes.watermark();
+        } while (changes.hasMore());
+        return watermark;
+    }
+
+    private String usernameOnShard(String prefix, int shard) {
+        for (int i = 0; ; i++) {
+            String username = prefix + i;
+            if (shardRouter.shardForUsername(username) == shard) {
+                return username;
+            }
+        }
+    }
+
+    private static PersonRegistrationDto registration(String username, String email) {
+        return PersonRegistrationDto.builder()
+                .name("Test")
+                .email(email)
+                .username(username)
+                .password("password")
+                .confirmPassword("password")
+                .build();
+    }
+
+    private static TodoDto todo(String title, Long personId, LocalDateTime dueDate) {
+        return TodoDto.builder()
+                .title(title)
+                .completed(false)
+                .dueDate(dueDate)
+                .personId(personId)
+                .build();
+    }
+
+    private static JdbcTemplate shard(int shard) {
+        return new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:shard" + shard, "sa", ""));
+    }
+}
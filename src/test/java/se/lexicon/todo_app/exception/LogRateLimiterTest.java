@@ -0,0 +1,26 @@
+package se.lexicon.todo_app.exception;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogRateLimiterTest {
+
+    @Test
+    @DisplayName("Events over the limit should be suppressed and reported with the next permitted event")
+    void tryAcquire_ShouldSuppressBurstAndReportCount() throws InterruptedException {
+        LogRateLimiter limiter = new LogRateLimiter(2, 50);
+
+        assertEquals(0, limiter.tryAcquire("boom"));
+        assertEquals(0, limiter.tryAcquire("boom"));
+        assertEquals(-1, limiter.tryAcquire("boom"));
+        assertEquals(-1, limiter.tryAcquire("boom"));
+
+        // Other keys have their own budget
+        assertEquals(0, limiter.tryAcquire("other"));
+
+        Thread.sleep(60);
+        assertEquals(2, limiter.tryAcquire("boom"));
+    }
+}
@@ -4,8 +4,13 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import se.lexicon.todo_app.dto.PersonDto;
 import se.lexicon.todo_app.entity.Person;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @DataJpaTest
@@ -102,4 +107,24 @@ class PersonRepositoryTest {
         // Assert
         assertEquals(2, allPersons.size());
     }
+
+    @Test
+    @DisplayName("Project persons to DTOs page by page in the requested order")
+    void testFindAllDtosPaged() {
+        // Arrange
+        Person charlie = personRepository.save(new Person("Charlie", "charlie@example.com"));
+        Person alice = personRepository.save(new Person("Alice", "alice@example.com"));
+        Person bob = personRepository.save(new Person("Bob", "bob@example.com"));
+
+        // Act
+        List<PersonDto> firstPage = personRepository.findAllDtos(PageRequest.of(0, 2, Sort.by("name")));
+        List<PersonDto> secondPage = personRepository.findAllDtos(PageRequest.of(1, 2, Sort.by("name")));
+
+        // Assert
+        assertEquals(List.of(new PersonDto(alice.getId(), "Alice", "alice@example.com"),
+                new PersonDto(bob.getId(), "Bob", "bob@example.com")), firstPage);
+        assertEquals(List.of(new PersonDto(charlie.getId(), "Charlie", "charlie@example.com")), secondPage);
+        assertEquals("Bob", personRepository.findDtoById(bob.getId()).orElseThrow().name());
+        assertEquals(alice.getId(), personRepository.findDtoByEmail("alice@example.com").orElseThrow().id());
+    }
 }
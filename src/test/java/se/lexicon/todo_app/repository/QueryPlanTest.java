@@ -0,0 +1,149 @@
+package se.lexicon.todo_app.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import se.lexicon.todo_app.dto.TodoQueryDto;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Applies the db/migration scripts to H2 in MySQL mode, validates the entities against them and checks with EXPLAIN
+ * that the TodoRepository and PersonRepository queries use the index designed for them (see V5__query_indexes.sql).
+ * The SQL is captured from the repository calls, so a changed query fails here just like a dropped index.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:plans;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=se.lexicon.todo_app.repository.QueryPlanTest$SqlRecorder"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class QueryPlanTest {
+
+    @Autowired
+    private TodoRepository todoRepository;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @BeforeEach
+    void setUp() {
+        // Enough rows with a realistic spread for the planner statistics; ANALYZE commits, so this runs once
+        if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM todos", Long.class) > 0) {
+            return;
+        }
+        for (int i = 1; i <= 200; i++) {
+            jdbcTemplate.update("INSERT INTO persons (id, name, email, deleted) VALUES (?, ?, ?, ?)",
+                    i, "Person " + i % 50, "person" + i + "@example.com", i % 50 == 0);
+        }
+        for (int i = 0; i < 2000; i++) {
+            jdbcTemplate.update("INSERT INTO todos (title, completed, deleted, change_seq, created_at, due_date, person_id) " +
+                            "VALUES (?, ?, ?, ?, ?, ?, ?)",
+                    "Todo " + i, i % 3 == 0, i % 100 == 0, i, now, i % 7 == 0 ? null : now.plusHours(i - 1000),
+                    i % 10 == 0 ? null : i % 200 + 1);
+        }
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void testTodoQueriesUseTheirIndexes() {
+        // Lookups by person_id may use the foreign key's own index instead of idx_todos_person_completed_due
+        // (H2 picks either, depending on the order they were created in), so only the index lookup is checked for them
+        assertIndexLookup("person_id = ?1", () -> todoRepository.findByPerson_Id(1L));
+        assertIndexLookup("person_id = ?1", () -> todoRepository.findByPersonIdAndCompletedTrue(1L));
+        assertIndexLookup("person_id = ?1", () -> todoRepository.countByPersonId(1L));
+        assertIndexLookup("person_id IS NULL", () -> todoRepository.findByPersonIsNull());
+        assertIndexLookup("person_id IS NULL", () -> todoRepository.lockUnassigned(10));
+
+        assertPlanUses("idx_todos_completed_due", () -> todoRepository.findByCompleted(false));
+        assertPlanUses("idx_todos_completed_due", () -> todoRepository.findByCompletedFalseAndDueDateBefore(now));
+        assertPlanUses("idx_todos_completed_due", () -> todoRepository.findByDueDateBeforeAndCompletedFalse(now));
+        assertPlanUses("idx_todos_completed_due", () -> todoRepository.countOverdueGroupedByPerson(now));
+        assertPlanUses("idx_todos_completed_due", () -> todoRepository.lockArchivable(now, 10));
+
+        assertPlanUses("idx_todos_due_date", () -> todoRepository.findByDueDateBetween(now, now.plusDays(1)));
+        assertPlanUses("idx_todos_due_date", () -> todoRepository.findByDueDateIsNull());
+
+        assertPlanUses("idx_todos_change_seq", () -> todoRepository.findChangedAfter(10, 0, 20, Limit.of(10)));
+        assertIndexLookup("change_seq IS NULL", () -> todoRepository.lockUnstamped(10));
+
+        // Composed queries (GET /api/todo/query)
+        TodoQueryDto overdue = TodoQueryDto.builder().completed(false).dueTo(now).build();
+        assertPlanUses("idx_todos_completed_due", () -> todoRepository.findSummaries(
+                TodoSpecifications.matching(overdue), Sort.by("dueDate", "id"), 10));
+        assertPlanUses("idx_todos_due_date", () -> todoRepository.findSummaries(
+                TodoSpecifications.after("dueDate", true, now, 100), Sort.by("dueDate", "id"), 10));
+        assertIndexLookup("person_id = ?1", () -> todoRepository.findSummaries(
+                TodoSpecifications.matching(TodoQueryDto.builder().personId(1L).title("todo").build()), Sort.by("id"), 10));
+    }
+
+    @Test
+    void testPersonQueriesUseTheirIndexes() {
+        assertPlanUses("idx_persons_name", () -> personRepository.findAllDtos(PageRequest.of(0, 10, Sort.by("name"))));
+        assertIndexLookup("person_id = p.id", () -> personRepository.findPurgeableIds(10));
+    }
+
+    // The first statement of the call is the repository query itself, later ones load associations
+    private void assertPlanUses(String index, Runnable repositoryCall) {
+        SqlRecorder.STATEMENTS.clear();
+        repositoryCall.run();
+        String sql = SqlRecorder.STATEMENTS.getFirst();
+        String plan = explain(sql);
+        assertTrue(plan.contains("/* public." + index), () -> "Expected " + index + " for " + sql + "\n" + plan);
+    }
+
+    private void assertIndexLookup(String condition, Runnable repositoryCall) {
+        SqlRecorder.STATEMENTS.clear();
+        repositoryCall.run();
+        String sql = SqlRecorder.STATEMENTS.getFirst();
+        String plan = explain(sql);
+        assertTrue(Pattern.compile("/\\* public\\.\\w+: [^*]*" + Pattern.quote(condition)).matcher(plan).find(),
+                () -> "Expected an index lookup on " + condition + " for " + sql + "\n" + plan);
+    }
+
+    // Parameters are left NULL: H2 plans a prepared statement before its values are known
+    private String explain(String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                for (int i = 1; i <= statement.getParameterMetaData().getParameterCount(); i++) {
+                    statement.setObject(i, null);
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    return resultSet.getString(1);
+                }
+            }
+        });
+    }
+
+    public static class SqlRecorder implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
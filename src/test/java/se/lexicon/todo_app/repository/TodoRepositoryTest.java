@@ -5,6 +5,11 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import se.lexicon.todo_app.dto.TodoQueryDto;
+import se.lexicon.todo_app.dto.TodoSummaryDto;
+import se.lexicon.todo_app.dto.TodoGroupCountDto;
 import se.lexicon.todo_app.entity.Person;
 import se.lexicon.todo_app.entity.Todo;
 
@@ -166,6 +171,25 @@ class TodoRepositoryTest {
         assertEquals(3, todoCount);
     }
 
+    @Test
+    @DisplayName("Count Todos grouped by Person and status should include unassigned Todos")
+    void countGroupedByPersonAndCompleted_ShouldReturnGroupCounts() {
+        List<TodoGroupCountDto> counts = todoRepository.countGroupedByPersonAndCompleted();
+
+        assertEquals(3, counts.size());
+        assertTrue(counts.contains(new TodoGroupCountDto(testPerson.getId(), false, 2)));
+        assertTrue(counts.contains(new TodoGroupCountDto(testPerson.getId(), true, 1)));
+        assertTrue(counts.contains(new TodoGroupCountDto(null, false, 1)));
+    }
+
+    @Test
+    @DisplayName("Count overdue Todos grouped by Person should return matching counts")
+    void countOverdueGroupedByPerson_ShouldReturnOverdueCounts() {
+        List<TodoGroupCountDto> counts = todoRepository.countOverdueGroupedByPerson(now);
+
+        assertEquals(List.of(new TodoGroupCountDto(testPerson.getId(), false, 1)), counts);
+    }
+
     @Test
     @DisplayName("Save Todo should persist the Todo and return it with generated ID")
     void saveTodo_ShouldPersistTodo() {
@@ -178,4 +202,86 @@ class TodoRepositoryTest {
         assertFalse(saved.isCompleted());
         assertEquals(now.plusDays(3).withNano(0), saved.getDueDate().withNano(0));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Find changed Todos should page by (changeSeq, id) and stop at the max sequence")
+    void findChangedAfter_ShouldReturnTodosAfterPosition() {
+        List<Todo> todos = todoRepository.findAll().stream()
+                .sorted((a, b) -> a.getId().compareTo(b.getId()))
+                .toList();
+        todos.get(0).setChangeSeq(0L);
+        todos.get(1).setChangeSeq(0L);
+        todos.get(2).setChangeSeq(5L);
+        todos.get(3).setChangeSeq(9L);
+        todoRepository.saveAll(todos);
+
+        // The first two share sequence 0, so the position inside it decides
+        List<Todo> firstPage = todoRepository.findChangedAfter(-1, -1, 9, Limit.of(1));
+        List<Todo> secondPage = todoRepository.findChangedAfter(0, firstPage.get(0).getId(), 9, Limit.of(10));
+        List<Todo> upToFive = todoRepository.findChangedAfter(0, todos.get(1).getId(), 5, Limit.of(10));
+
+        assertEquals(List.of(todos.get(0)), firstPage);
+        assertEquals(List.of(todos.get(1), todos.get(2), todos.get(3)), secondPage);
+        assertEquals(List.of(todos.get(2)), upToFive);
+    }
+
+    @Test
+    @DisplayName("Soft-deleted Todos should be hidden from queries but found by the purger")
+    void softDeletedTodos_ShouldBeHiddenFromQueries() {
+        Todo deleted = todoRepository.findByTitleContainingIgnoreCase("Gym").get(0);
+        deleted.setDeleted(true);
+        todoRepository.saveAndFlush(deleted);
+
+        assertEquals(3, todoRepository.findAll().size());
+        assertTrue(todoRepository.findByPersonIsNull().isEmpty());
+        assertEquals(List.of(deleted.getId()), todoRepository.findDeletedIds(10));
+    }
+
+    @Test
+    @DisplayName("Find summaries should apply every given filter at once")
+    void findSummaries_ShouldCombineFilters() {
+        TodoQueryDto openAndDueSoon = TodoQueryDto.builder()
+                .personId(testPerson.getId())
+                .completed(false)
+                .dueFrom(now.minusDays(2))
+                .dueTo(now.plusDays(2))
+                .build();
+        TodoQueryDto assignedWithIng = TodoQueryDto.builder().unassigned(false).title("ING").build();
+        Sort byDueDate = Sort.by("dueDate", "id");
+
+        List<TodoSummaryDto> result = todoRepository.findSummaries(TodoSpecifications.matching(openAndDueSoon), byDueDate, 10);
+
+        assertEquals(List.of("Reading", "Shopping"), result.stream().map(TodoSummaryDto::title).toList());
+        assertEquals(testPerson.getId(), result.get(0).personId());
+        assertEquals(List.of("Reading", "Shopping"), titles(todoRepository.findSummaries(
+                TodoSpecifications.matching(assignedWithIng), byDueDate, 10)));
+        assertEquals(List.of("Gym"), titles(todoRepository.findSummaries(
+                TodoSpecifications.matching(TodoQueryDto.builder().hasDueDate(false).build()), byDueDate, 10)));
+        assertEquals(List.of("Reading"), titles(todoRepository.findSummaries(
+                TodoSpecifications.matching(TodoQueryDto.builder().title("ing").build()), byDueDate, 1)));
+    }
+
+    @Test
+    @DisplayName("Find summaries after a keyset position should continue the sort order, todos without due date first")
+    void findSummaries_ShouldContinueAfterKeysetPosition() {
+        List<TodoSummaryDto> ascending = todoRepository.findSummaries(
+                TodoSpecifications.matching(TodoQueryDto.builder().build()), Sort.by("dueDate", "id"), 10);
+        TodoSummaryDto gym = ascending.get(0);
+        TodoSummaryDto reading = ascending.get(1);
+        Sort descending = Sort.by(Sort.Direction.DESC, "dueDate", "id");
+
+        assertEquals(List.of("Gym", "Reading", "Shopping", "Study"), titles(ascending));
+        assertEquals(List.of("Reading", "Shopping", "Study"), titles(todoRepository.findSummaries(
+                TodoSpecifications.after("dueDate", true, null, gym.id()), Sort.by("dueDate", "id"), 10)));
+        assertEquals(List.of("Shopping", "Study"), titles(todoRepository.findSummaries(
+                TodoSpecifications.after("dueDate", true, reading.dueDate(), reading.id()), Sort.by("dueDate", "id"), 10)));
+        assertEquals(List.of("Gym"), titles(todoRepository.findSummaries(
+                TodoSpecifications.after("dueDate", false, reading.dueDate(), reading.id()), descending, 10)));
+        assertTrue(todoRepository.findSummaries(
+                TodoSpecifications.after("dueDate", false, null, gym.id()), descending, 10).isEmpty());
+    }
+
+    private static List<String> titles(List<TodoSummaryDto> summaries) {
+        return summaries.stream().map(TodoSummaryDto::title).toList();
+    }
+}
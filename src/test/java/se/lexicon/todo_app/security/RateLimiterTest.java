@@ -0,0 +1,122 @@
+package se.lexicon.todo_app.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000);
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties properties = new RateLimitProperties(true, 100, Map.of(
+                EndpointClass.LIST, Map.of(
+                        "user", new RateLimitProperties.Quota(3, 1),
+                        "admin", new RateLimitProperties.Quota(10, 5))));
+        rateLimiter = new RateLimiter(properties, clock::get);
+    }
+
+    @Test
+    void testBurstThenReject() {
+        // Act & Assert
+        for (int remaining = 2; remaining >= 0; remaining--) {
+            RateLimiter.Decision decision = rateLimiter.tryConsume("user:john", EndpointClass.LIST, List.of("user"));
+            assertTrue(decision.allowed());
+            assertEquals(3, decision.limit());
+            assertEquals(remaining, decision.remaining());
+        }
+
+        RateLimiter.Decision rejected = rateLimiter.tryConsume("user:john", EndpointClass.LIST, List.of("user"));
+        assertFalse(rejected.allowed());
+        assertEquals(1, rejected.retryAfterSeconds());
+        assertEquals(3, rejected.resetSeconds());
+
+        // Other users have their own bucket
+        assertTrue(rateLimiter.tryConsume("user:jane", EndpointClass.LIST, List.of("user")).allowed());
+    }
+
+    @Test
+    void testTokensRefillOverTime() {
+        // Arrange
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryConsume("user:john", EndpointClass.LIST, List.of("user"));
+        }
+
+        // Act
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        // Assert
+        assertTrue(rateLimiter.tryConsume("user:john", EndpointClass.LIST, List.of("user")).allowed());
+        assertFalse(rateLimiter.tryConsume("user:john", EndpointClass.LIST, List.of("user")).allowed());
+    }
+
+    @Test
+    void testMostGenerousRoleWinsAndUnconfiguredIsUnlimited() {
+        // Act
+        RateLimiter.Decision admin = rateLimiter.tryConsume("user:admin", EndpointClass.LIST, List.of("user", "admin"));
+
+        // Assert
+        assertEquals(10, admin.limit());
+        assertNull(rateLimiter.tryConsume("user:john", EndpointClass.WRITE, List.of("user")));
+        assertNull(rateLimiter.tryConsume("ip:127.0.0.1", EndpointClass.LIST, List.of("anonymous")));
+    }
+
+    @Test
+    void testIdleBucketsAreEvicted() {
+        // Arrange
+        rateLimiter.tryConsume("user:john", EndpointClass.LIST, List.of("user"));
+        rateLimiter.tryConsume("user:jane", EndpointClass.LIST, List.of("user"));
+        rateLimiter.tryConsume("user:jane", EndpointClass.LIST, List.of("user"));
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        // Act
+        rateLimiter.evictIdleBuckets();
+
+        // Assert: john's bucket has refilled, jane still owes a token
+        assertEquals(1, rateLimiter.bucketCount());
+    }
+
+    @Test
+    void testFullMapSharesOneBucketAndEvictsAtMostOnceASecond() {
+        // Arrange: room for two buckets, both in use
+        RateLimitProperties properties = new RateLimitProperties(true, 2, Map.of(
+                EndpointClass.LIST, Map.of("anonymous", new RateLimitProperties.Quota(3, 1))));
+        RateLimiter limiter = new RateLimiter(properties, clock::get);
+        limiter.tryConsume("ip:1", EndpointClass.LIST, List.of("anonymous"));
+        limiter.tryConsume("ip:2", EndpointClass.LIST, List.of("anonymous"));
+
+        // Act: many new addresses while nothing can be evicted
+        int allowed = 0;
+        for (int i = 3; i < 100; i++) {
+            if (limiter.tryConsume("ip:" + i, EndpointClass.LIST, List.of("anonymous")).allowed()) {
+                allowed++;
+            }
+        }
+
+        // Assert: the map stays bounded and the newcomers share one bucket
+        assertEquals(2, limiter.bucketCount());
+        assertEquals(3, allowed);
+
+        // Once the buckets have refilled, the next newcomer's request evicts them and gets its own bucket
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(3));
+        assertTrue(limiter.tryConsume("ip:100", EndpointClass.LIST, List.of("anonymous")).allowed());
+        assertEquals(1, limiter.bucketCount());
+    }
+
+    @Test
+    void testQuotaMustRefill() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new RateLimitProperties.Quota(10, 0));
+        assertThrows(IllegalArgumentException.class, () -> new RateLimitProperties.Quota(10, -1));
+        assertThrows(IllegalArgumentException.class, () -> new RateLimitProperties.Quota(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new RateLimitProperties.Quota(10, 1e-12));
+    }
+}
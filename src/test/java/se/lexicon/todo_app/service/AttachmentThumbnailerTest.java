@@ -0,0 +1,116 @@
+package se.lexicon.todo_app.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import se.lexicon.todo_app.dto.AttachmentDto;
+import se.lexicon.todo_app.dto.AttachmentPreviewDto;
+import se.lexicon.todo_app.dto.TodoDto;
+import se.lexicon.todo_app.dto.TodoQueryDto;
+import se.lexicon.todo_app.dto.TodoSummaryDto;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Image attachments get a thumbnail in the background after commit, linked by previewUrl.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:thumbnails")
+public class AttachmentThumbnailerTest {
+
+    @Autowired
+    private TodoService todoService;
+
+    @Test
+    void testRenderScalesDownKeepingAspectRatio() throws IOException {
+        // Act
+        AttachmentPreviewDto opaque = AttachmentThumbnailer.render(png(800, 400, BufferedImage.TYPE_INT_RGB), 160, 1_000_000);
+        AttachmentPreviewDto transparent = AttachmentThumbnailer.render(png(50, 100, BufferedImage.TYPE_INT_ARGB), 160, 1_000_000);
+
+        // Assert
+        assertEquals("image/jpeg", opaque.contentType());
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(opaque.data()));
+        assertEquals(160, image.getWidth());
+        assertEquals(80, image.getHeight());
+
+        // Smaller images keep their size, and transparency needs PNG
+        assertEquals("image/png", transparent.contentType());
+        image = ImageIO.read(new ByteArrayInputStream(transparent.data()));
+        assertEquals(50, image.getWidth());
+        assertEquals(100, image.getHeight());
+    }
+
+    @Test
+    void testRenderSkipsUnreadableAndOversizedImages() throws IOException {
+        assertNull(AttachmentThumbnailer.render("not an image".getBytes(), 160, 1_000_000));
+        assertNull(AttachmentThumbnailer.render(png(2000, 1000, BufferedImage.TYPE_INT_RGB), 160, 1_000_000));
+        assertFalse(AttachmentThumbnailer.isImage("text/plain"));
+        assertTrue(AttachmentThumbnailer.isImage("image/png"));
+    }
+
+    @Test
+    void testImageAttachmentsGetPreviewAfterCommit() throws Exception {
+        // Arrange
+        TodoDto created = todoService.create(TodoDto.builder()
+                .title("Holiday photos")
+                .completed(false)
+                .attachments(List.of(
+                        new AttachmentDto(null, "beach.png", "image/png", png(1200, 900, BufferedImage.TYPE_INT_RGB)),
+                        new AttachmentDto(null, "notes.txt", "text/plain", "notes".getBytes())))
+                .build());
+        AttachmentDto image = created.attachments().stream()
+                .filter(attachment -> attachment.fileName().equals("beach.png"))
+                .findFirst().orElseThrow();
+        assertNull(image.previewUrl());
+
+        // Act
+        TodoDto todo = awaitPreview(created.id());
+
+        // Assert
+        String previewUrl = "/api/todo/" + created.id() + "/attachments/" + image.id() + "/preview";
+        assertEquals(List.of(previewUrl), todo.attachments().stream()
+                .map(AttachmentDto::previewUrl)
+                .filter(url -> url != null)
+                .toList());
+        AttachmentPreviewDto preview = todoService.findPreview(created.id(), image.id()).orElseThrow();
+        assertEquals("image/jpeg", preview.contentType());
+        assertTrue(preview.data().length < 10_000);
+
+        // The list projection links the preview without loading the attachment data
+        TodoSummaryDto summary = todoService.query(TodoQueryDto.builder().title("Holiday photos").build(),
+                Sort.Order.asc("id"), null, 10).items().getFirst();
+        assertEquals(List.of(previewUrl), summary.previewUrls());
+
+        // A deleted todo's thumbnails are gone with it, although the rows wait for the purger
+        todoService.delete(created.id());
+        assertTrue(todoService.findPreview(created.id(), image.id()).isEmpty());
+    }
+
+    private TodoDto awaitPreview(Long todoId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        TodoDto todo = todoService.findById(todoId, false);
+        while (todo.attachments().stream().allMatch(attachment -> attachment.previewUrl() == null)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            todo = todoService.findById(todoId, false);
+        }
+        return todo;
+    }
+
+    private static byte[] png(int width, int height, int type) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, type);
+        for (int x = 0; x < width; x++) {
+            image.setRGB(x, x * height / width, 0xFF3366CC);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,196 @@
+package se.lexicon.todo_app.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import se.lexicon.todo_app.dto.AttachmentDto;
+import se.lexicon.todo_app.dto.TodoDto;
+import se.lexicon.todo_app.dto.UploadSessionDto;
+import se.lexicon.todo_app.dto.UploadSessionRequestDto;
+import se.lexicon.todo_app.entity.Attachment;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A file sent in chunks, with a resume after a chunk went missing, arrives as one attachment; idle uploads
+ * expire with their data. Completing an upload does not read attachment data back into memory.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:uploads",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+@RecordApplicationEvents
+@WithMockUser(username = "uploader", roles = "USER")
+public class AttachmentUploadServiceTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TodoService todoService;
+
+    @Autowired
+    private AttachmentUploadService attachmentUploadService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
+    @Value("${todo.upload.staging-dir}")
+    private Path stagingDir;
+
+    @Test
+    void testChunkedUploadResumesAndAddsAttachment() throws Exception {
+        // Arrange
+        TodoDto todo = todoService.create(TodoDto.builder().title("Large file").completed(false).build());
+        byte[] file = new byte[200_000];
+        new Random(7).nextBytes(file);
+
+        // Act: open the session
+        String response = mockMvc.perform(post("/api/todo/uploads")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UploadSessionRequestDto("scan.bin", "application/octet-stream", file.length))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.received").value(0))
+                .andReturn().getResponse().getContentAsString();
+        String uploadId = objectMapper.readTree(response).get("id").asText();
+
+        // Act: the first chunk arrives, the second is lost and the third is rejected because of the gap
+        putChunk(uploadId, 0, Arrays.copyOfRange(file, 0, 80_000)).andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(80_000));
+        putChunk(uploadId, 160_000, Arrays.copyOfRange(file, 160_000, file.length)).andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/todo/uploads/{id}/complete", uploadId).param("todoId", todo.id().toString()))
+                .andExpect(status().isBadRequest());
+
+        // Act: resume from the offset the server reports, overlapping bytes are written again
+        JsonNode session = objectMapper.readTree(mockMvc.perform(get("/api/todo/uploads/{id}", uploadId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        int resumeAt = session.get("received").asInt() - 1000;
+        putChunk(uploadId, resumeAt, Arrays.copyOfRange(file, resumeAt, file.length)).andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(file.length));
+        AttachmentDto attachment = objectMapper.readValue(mockMvc.perform(post("/api/todo/uploads/{id}/complete", uploadId)
+                        .param("todoId", todo.id().toString()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), AttachmentDto.class);
+
+        // Assert: the file is attached as sent, and the session is gone with its staging file
+        AttachmentDto stored = todoService.findById(todo.id(), false).attachments().stream()
+                .filter(a -> a.id().equals(attachment.id()))
+                .findFirst().orElseThrow();
+        assertEquals("scan.bin", stored.fileName());
+        assertArrayEquals(file, mockMvc.perform(get(stored.url()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray());
+        assertFalse(Files.exists(stagingDir.resolve(uploadId + ".part")));
+        mockMvc.perform(get("/api/todo/uploads/{id}", uploadId)).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testIdleUploadsExpireWithTheirData() {
+        // Arrange
+        UploadSessionDto session = attachmentUploadService.open("uploader",
+                new UploadSessionRequestDto("notes.txt", "text/plain", 10));
+        attachmentUploadService.writeChunk("uploader", session.id(), 0, new ByteArrayInputStream("notes".getBytes()));
+        Path file = stagingDir.resolve(session.id() + ".part");
+        assertTrue(Files.exists(file));
+
+        // Act & Assert: still there before the expiry, gone after it
+        attachmentUploadService.expire(Instant.now());
+        assertEquals(5, attachmentUploadService.status("uploader", session.id()).received());
+        attachmentUploadService.expire(Instant.now().plus(Duration.ofHours(2)));
+        assertFalse(Files.exists(file));
+        assertThrows(RuntimeException.class, () -> attachmentUploadService.status("uploader", session.id()));
+    }
+
+    @Test
+    void testUploadsBelongToTheirOwner() {
+        // Arrange
+        UploadSessionDto session = attachmentUploadService.open("uploader",
+                new UploadSessionRequestDto("notes.txt", "text/plain", 10));
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> attachmentUploadService.status("someone-else", session.id()));
+        assertThrows(IllegalArgumentException.class, () -> attachmentUploadService.open("uploader",
+                new UploadSessionRequestDto("huge.bin", null, Long.MAX_VALUE)));
+        attachmentUploadService.cancel("uploader", session.id());
+    }
+
+    @Test
+    void testCompletedUploadIsPublishedWithoutAttachmentData() throws Exception {
+        // Arrange: a todo that already has a large attachment, and an uploaded image
+        TodoDto todo = todoService.create(TodoDto.builder()
+                .title("Many files")
+                .completed(false)
+                .attachments(List.of(new AttachmentDto(null, "archive.bin", "application/octet-stream", new byte[500_000])))
+                .build());
+        ByteArrayOutputStream image = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB), "png", image);
+        UploadSessionDto session = attachmentUploadService.open("uploader",
+                new UploadSessionRequestDto("photo.png", "image/png", image.size()));
+        attachmentUploadService.writeChunk("uploader", session.id(), 0, new ByteArrayInputStream(image.toByteArray()));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Act
+        AttachmentDto uploaded = attachmentUploadService.complete("uploader", session.id(), todo.id());
+
+        // Assert: no attachment was loaded, and the change lists both attachments without data
+        assertEquals(0, statistics.getEntityStatistics(Attachment.class.getName()).getLoadCount());
+        TodoDto published = applicationEvents.stream(TodoChangedEvent.class)
+                .filter(event -> event.todoId().equals(todo.id()))
+                .reduce((first, second) -> second)
+                .orElseThrow().todo();
+        assertEquals(List.of("archive.bin", "photo.png"), published.attachments().stream().map(AttachmentDto::fileName).toList());
+        assertEquals(2, published.numberOfAttachments());
+        assertTrue(published.attachments().stream().allMatch(attachment -> attachment.data() == null));
+
+        // Assert: the uploaded image still gets its thumbnail, read by the thumbnailer
+        for (int i = 0; i < 100 && todoService.findPreview(todo.id(), uploaded.id()).isEmpty(); i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(todoService.findPreview(todo.id(), uploaded.id()).isPresent());
+    }
+
+    private ResultActions putChunk(String uploadId, long offset, byte[] chunk) throws Exception {
+        return mockMvc.perform(put("/api/todo/uploads/{id}", uploadId)
+                .param("offset", Long.toString(offset))
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .content(chunk));
+    }
+}
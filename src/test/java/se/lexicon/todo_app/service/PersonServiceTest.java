@@ -1,19 +1,26 @@
 package se.lexicon.todo_app.service;
 
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.password.PasswordEncoder;
 //import se.lexicon.notify.model.Email;
 //import se.lexicon.notify.service.MessageService;
 import se.lexicon.todo_app.dto.PersonDto;
 import se.lexicon.todo_app.dto.PersonRegistrationDto;
+import se.lexicon.todo_app.dto.PersonRegistrationResultDto;
 import se.lexicon.todo_app.entity.Person;
+import se.lexicon.todo_app.entity.User;
+import se.lexicon.todo_app.repository.PersonBatchRepository;
 import se.lexicon.todo_app.repository.PersonRepository;
 import se.lexicon.todo_app.repository.UserRepository;
+import se.lexicon.todo_app.security.PasswordHasher;
 
 import java.util.Arrays;
 import java.util.List;
@@ -21,6 +28,8 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -40,6 +49,18 @@ public class PersonServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private TodoService todoService;
+
+    @Mock
+    private PasswordHasher passwordHasher;
+
+    @Mock
+    private PersonBatchRepository personBatchRepository;
+
+    @Mock
+    private Validator validator;
+
     @InjectMocks
     private PersonServiceImpl personService;
 
@@ -88,22 +109,57 @@ public class PersonServiceTest {
         // Removed verify(userRepository).save(any()) since it's handled by cascade
     }
 
+    @Test
+    void testCreateAll() {
+        // Arrange: one new person, one with a taken email and one repeating the first username
+        List<PersonRegistrationDto> rows = List.of(
+                new PersonRegistrationDto(TEST_NAME, TEST_EMAIL, TEST_USERNAME, TEST_PASSWORD, TEST_PASSWORD),
+                new PersonRegistrationDto("John Doe", "taken@lexicon.se", "johndoe", TEST_PASSWORD, TEST_PASSWORD),
+                new PersonRegistrationDto("Jane Doe", "jane@lexicon.se", TEST_USERNAME, TEST_PASSWORD, TEST_PASSWORD));
+        when(personRepository.findTakenEmails(List.of(TEST_EMAIL, "taken@lexicon.se"))).thenReturn(List.of("Taken@lexicon.se"));
+        when(userRepository.findTakenUsernames(any())).thenReturn(List.of());
+        when(passwordHasher.encodeAll(List.of(TEST_PASSWORD))).thenReturn(List.of("hashed"));
+        doAnswer(invocation -> {
+            List<Person> persons = invocation.getArgument(0);
+            persons.get(0).setId(TEST_ID);
+            return null;
+        }).when(personBatchRepository).insertAll(any());
+
+        // Act
+        List<PersonRegistrationResultDto> results = personService.createAll(rows);
+
+        // Assert
+        assertEquals(new PersonRegistrationResultDto(0, personDto, null), results.get(0));
+        assertEquals("Email already exists", results.get(1).error());
+        assertEquals("Username appears more than once", results.get(2).error());
+        verify(personBatchRepository).insertAll(org.mockito.ArgumentMatchers.argThat(persons -> persons.size() == 1
+                && persons.get(0).getUser().getPassword().equals("hashed")));
+    }
+
     @Test
     void testFindAll() {
         // Arrange
-        Person person2 = new Person("John Doe", "john.doe@lexicon.se");
-        person2.setId(2L);
-        when(personRepository.findAll()).thenReturn(Arrays.asList(person, person2));
+        PersonDto person1 = new PersonDto(TEST_ID, TEST_NAME, TEST_EMAIL);
+        PersonDto person2 = new PersonDto(2L, "John Doe", "john.doe@lexicon.se");
+        PageRequest stable = PageRequest.of(0, 10, Sort.by("name").and(Sort.by("id")));
+        when(personRepository.findAllDtos(stable)).thenReturn(Arrays.asList(person1, person2));
 
         // Act
-        List<PersonDto> result = personService.findAll();
+        List<PersonDto> result = personService.findAll(PageRequest.of(0, 10, Sort.by("name")));
 
         // Assert
         assertNotNull(result);
         assertEquals(2, result.size());
         assertEquals(TEST_NAME, result.get(0).name());
         assertEquals("John Doe", result.get(1).name());
-        verify(personRepository).findAll();
+        verify(personRepository).findAllDtos(stable);
+    }
+
+    @Test
+    void testFindAll_UnknownSortProperty() {
+        assertThrows(IllegalArgumentException.class,
+                () -> personService.findAll(PageRequest.of(0, 10, Sort.by("password"))));
+        verify(personRepository, never()).findAllDtos(any());
     }
 
     @Test
@@ -135,17 +191,25 @@ public class PersonServiceTest {
 
     @Test
     void testDelete() {
+        // Arrange
+        User user = new User(TEST_USERNAME, TEST_PASSWORD);
+        person.setUser(user);
+        when(personRepository.findById(TEST_ID)).thenReturn(Optional.of(person));
+
         // Act
         personService.delete(TEST_ID);
 
-        // Assert
-        verify(personRepository).deleteById(TEST_ID);
+        // Assert: only marked deleted, the purger removes the rows later
+        assertTrue(person.isDeleted());
+        assertTrue(user.isDeleted());
+        verify(todoService).deleteByPersonId(TEST_ID);
+        verify(personRepository, never()).deleteById(any());
     }
 
     @Test
     void testFindByEmail() {
         // Arrange
-        when(personRepository.findByEmail(TEST_EMAIL)).thenReturn(Optional.of(person));
+        when(personRepository.findDtoByEmail(TEST_EMAIL)).thenReturn(Optional.of(new PersonDto(TEST_ID, TEST_NAME, TEST_EMAIL)));
 
         // Act
         PersonDto found = personService.findByEmail(TEST_EMAIL);
@@ -153,16 +217,16 @@ public class PersonServiceTest {
         // Assert
         assertNotNull(found);
         assertEquals(TEST_EMAIL, found.email());
-        verify(personRepository).findByEmail(TEST_EMAIL);
+        verify(personRepository).findDtoByEmail(TEST_EMAIL);
     }
 
     @Test
     void testFindByEmail_NotFound() {
         // Arrange
-        when(personRepository.findByEmail(TEST_EMAIL)).thenReturn(Optional.empty());
+        when(personRepository.findDtoByEmail(TEST_EMAIL)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(RuntimeException.class, () -> personService.findByEmail(TEST_EMAIL));
-        verify(personRepository).findByEmail(TEST_EMAIL);
+        verify(personRepository).findDtoByEmail(TEST_EMAIL);
     }
 }
\ No newline at end of file
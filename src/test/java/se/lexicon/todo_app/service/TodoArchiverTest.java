@@ -0,0 +1,104 @@
+package se.lexicon.todo_app.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import se.lexicon.todo_app.dto.AttachmentDto;
+import se.lexicon.todo_app.dto.TodoDto;
+import se.lexicon.todo_app.exception.TodoArchivedException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Old completed todos move to the archive tables and stay readable through includeArchived.
+ */
+@SpringBootTest
+public class TodoArchiverTest {
+
+    @Autowired
+    private TodoService todoService;
+
+    @Autowired
+    private TodoArchiver todoArchiver;
+
+    @Autowired
+    private TodoStatsCounter todoStatsCounter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testOldCompletedTodosAreArchived() {
+        // Arrange
+        TodoDto old = todoService.create(todo("Done long ago", true));
+        TodoDto recent = todoService.create(todo("Done today", true));
+        TodoDto open = todoService.create(todo("Still open", false));
+        for (TodoDto todo : List.of(old, open)) {
+            jdbcTemplate.update("UPDATE todos SET created_at = ?, updated_at = NULL WHERE id = ?",
+                    LocalDateTime.now().minusDays(90), todo.id());
+        }
+        todoStatsCounter.reconcile();
+        long totalBefore = todoService.getStats().global().total();
+
+        // Act
+        todoArchiver.archive();
+
+        // Assert: only the old completed todo moved, with its attachment
+        assertEquals(0, count("SELECT COUNT(*) FROM todos WHERE id = ?", old.id()));
+        assertEquals(1, count("SELECT COUNT(*) FROM attachments_archive WHERE todo_id = ?", old.id()));
+        assertEquals(1, count("SELECT COUNT(*) FROM todos WHERE id = ?", recent.id()));
+        assertEquals(1, count("SELECT COUNT(*) FROM todos WHERE id = ?", open.id()));
+
+        assertThrows(RuntimeException.class, () -> todoService.findById(old.id(), false));
+        TodoDto archived = todoService.findById(old.id(), true);
+        assertTrue(archived.archived());
+        assertEquals("Done long ago", archived.title());
+        assertEquals(1, archived.numberOfAttachments());
+        assertEquals(old.attachments().get(0).url(), archived.attachments().get(0).url());
+        assertFalse(todoService.findByCompleted(true, false).stream().anyMatch(todo -> todo.id().equals(old.id())));
+        assertTrue(todoService.findByCompleted(true, true).stream().anyMatch(todo -> todo.id().equals(old.id())));
+
+        todoStatsCounter.reconcile();
+        assertEquals(totalBefore, todoService.getStats().global().total());
+    }
+
+    @Test
+    void testArchivedTodosCannotBeUpdatedButCanBeDeleted() {
+        // Arrange
+        TodoDto old = todoService.create(todo("Archived, then deleted", true));
+        jdbcTemplate.update("UPDATE todos SET created_at = ?, updated_at = NULL WHERE id = ?",
+                LocalDateTime.now().minusDays(90), old.id());
+        todoArchiver.archive();
+        todoStatsCounter.reconcile();
+        long totalBefore = todoService.getStats().global().total();
+
+        // Act & Assert: the archive is read-only
+        assertThrows(TodoArchivedException.class, () -> todoService.update(old.id(), todo("Changed", false)));
+
+        // Act: deleting removes the todo and its attachments from the archive
+        todoService.delete(old.id());
+
+        // Assert
+        assertEquals(0, count("SELECT COUNT(*) FROM todos_archive WHERE id = ?", old.id()));
+        assertEquals(0, count("SELECT COUNT(*) FROM attachments_archive WHERE todo_id = ?", old.id()));
+        assertEquals(1, count("SELECT COUNT(*) FROM todo_tombstones WHERE todo_id = ?", old.id()));
+        assertThrows(RuntimeException.class, () -> todoService.findById(old.id(), true));
+        assertEquals(totalBefore - 1, todoService.getStats().global().total());
+    }
+
+    private int count(String sql, Object arg) {
+        return jdbcTemplate.queryForObject(sql, Integer.class, arg);
+    }
+
+    private static TodoDto todo(String title, boolean completed) {
+        return TodoDto.builder()
+                .title(title)
+                .completed(completed)
+                .attachments(List.of(new AttachmentDto(null, "report.txt", "text/plain", new byte[512])))
+                .build();
+    }
+}
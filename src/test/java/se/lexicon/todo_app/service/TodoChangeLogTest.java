@@ -0,0 +1,70 @@
+package se.lexicon.todo_app.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import se.lexicon.todo_app.dto.TodoDto;
+import se.lexicon.todo_app.entity.Todo;
+import se.lexicon.todo_app.repository.TodoRepository;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * An open write does not hold up other writers; each change is numbered once its own transaction commits.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:changelog")
+public class TodoChangeLogTest {
+
+    @Autowired
+    private TodoService todoService;
+
+    @Autowired
+    private TodoRepository todoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void testOpenWriteDoesNotBlockOtherWriters() throws Exception {
+        // Arrange
+        TodoDto slow = todoService.create(TodoDto.builder().title("Slow").completed(false).build());
+        long slowSeq = changeSeqOf(slow.id());
+        CountDownLatch updated = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Act: one writer changes a todo and keeps its transaction open
+        CompletableFuture<Void> slowWriter = CompletableFuture.runAsync(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    todoService.update(slow.id(), TodoDto.builder().title("Slow, renamed").completed(false).build());
+                    updated.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+        assertTrue(updated.await(10, TimeUnit.SECONDS));
+        TodoDto fast = CompletableFuture.supplyAsync(() ->
+                        todoService.create(TodoDto.builder().title("Fast").completed(false).build()))
+                .get(5, TimeUnit.SECONDS);
+        long fastSeq = changeSeqOf(fast.id());
+        release.countDown();
+        slowWriter.get(10, TimeUnit.SECONDS);
+
+        // Assert: the second writer committed and was numbered first, the first one after its own commit
+        assertTrue(fastSeq > slowSeq);
+        assertTrue(changeSeqOf(slow.id()) > fastSeq);
+    }
+
+    private long changeSeqOf(Long id) {
+        Long changeSeq = todoRepository.findById(id).map(Todo::getChangeSeq).orElseThrow();
+        assertNotNull(changeSeq, "Todo " + id + " was not numbered");
+        return changeSeq;
+    }
+}
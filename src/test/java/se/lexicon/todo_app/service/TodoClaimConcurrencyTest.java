@@ -0,0 +1,132 @@
+package se.lexicon.todo_app.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import se.lexicon.todo_app.dto.PersonRegistrationDto;
+import se.lexicon.todo_app.dto.TodoDto;
+import se.lexicon.todo_app.entity.Todo;
+import se.lexicon.todo_app.repository.TodoRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Many workers claim the same pool of unassigned todos at once; every todo must end up with exactly one of them.
+ */
+@Slf4j
+@SpringBootTest
+public class TodoClaimConcurrencyTest {
+
+    private static final int TODOS = 500;
+    private static final int CLAIMERS = 8;
+    private static final int BATCH = 5;
+
+    @Autowired
+    private TodoService todoService;
+
+    @Autowired
+    private PersonService personService;
+
+    @Autowired
+    private TodoRepository todoRepository;
+
+    private final List<Long> seededIds = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        todoRepository.deleteAllById(seededIds);
+    }
+
+    @Test
+    void testConcurrentClaimsNeverDoubleAssign() throws Exception {
+        // Arrange
+        List<Todo> todos = new ArrayList<>();
+        for (int i = 0; i < TODOS; i++) {
+            todos.add(new Todo("Queued todo " + i, "Waiting for a worker", false));
+        }
+        todoRepository.saveAll(todos).forEach(todo -> seededIds.add(todo.getId()));
+
+        List<String> claimers = new ArrayList<>();
+        for (int i = 0; i < CLAIMERS; i++) {
+            String username = "claimer" + i;
+            personService.create(PersonRegistrationDto.builder()
+                    .name("Claimer " + i)
+                    .email(username + "@test.se")
+                    .username(username)
+                    .password("password")
+                    .confirmPassword("password")
+                    .build());
+            claimers.add(username);
+        }
+
+        // Act
+        Set<Long> claimedIds = ConcurrentHashMap.newKeySet();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CLAIMERS);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (String claimer : claimers) {
+            results.add(executor.submit(() -> {
+                start.await();
+                int claimed = 0;
+                while (true) {
+                    long begin = System.nanoTime();
+                    List<TodoDto> batch = todoService.claim(claimer, BATCH);
+                    latencies.add(System.nanoTime() - begin);
+                    if (batch.isEmpty()) {
+                        return claimed;
+                    }
+                    for (TodoDto todo : batch) {
+                        assertTrue(claimedIds.add(todo.id()), "Todo " + todo.id() + " was claimed twice");
+                    }
+                    claimed += batch.size();
+                }
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        int total = 0;
+        Set<Integer> busyClaimers = new HashSet<>();
+        for (int i = 0; i < results.size(); i++) {
+            int claimed = results.get(i).get(60, TimeUnit.SECONDS);
+            total += claimed;
+            if (claimed > 0) {
+                busyClaimers.add(i);
+            }
+        }
+        long elapsedNanos = System.nanoTime() - begin;
+        executor.shutdown();
+
+        // Assert
+        assertEquals(TODOS, total);
+        assertEquals(new HashSet<>(seededIds), claimedIds);
+        assertTrue(todoRepository.findAllById(seededIds).stream().allMatch(todo -> todo.getPerson() != null));
+        assertTrue(busyClaimers.size() > 1, "Claims were serialized on a single worker");
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        log.info("Claimed {} todos with {} workers in {} ms ({} todos/s), {} calls, p50 {} ms, p99 {} ms, max {} ms",
+                total, CLAIMERS, elapsedNanos / 1_000_000, total * 1_000_000_000L / elapsedNanos, sorted.size(),
+                millis(sorted, 0.50), millis(sorted, 0.99), millis(sorted, 1.0));
+    }
+
+    private static double millis(List<Long> sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index)) / 1_000_000.0;
+    }
+}
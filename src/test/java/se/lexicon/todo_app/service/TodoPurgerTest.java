@@ -0,0 +1,133 @@
+package se.lexicon.todo_app.service;
+
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import se.lexicon.todo_app.dto.AttachmentDto;
+import se.lexicon.todo_app.dto.PersonDto;
+import se.lexicon.todo_app.dto.PersonRegistrationDto;
+import se.lexicon.todo_app.dto.TodoDto;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * Deletes only mark rows; the purger removes them (and their attachments, user and roles) afterwards.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class TodoPurgerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TodoService todoService;
+
+    @Autowired
+    private PersonService personService;
+
+    @Autowired
+    private TodoPurger todoPurger;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testDeletedPersonAndTodosArePurged() {
+        // Arrange
+        PersonDto person = personService.create(registration("purged"));
+        TodoDto todo = todoService.create(todoWithAttachment(person.id()));
+
+        // Act
+        personService.delete(person.id());
+
+        // Assert: hidden right away, but the rows are still there
+        assertThrows(RuntimeException.class, () -> todoService.findById(todo.id(), false));
+        assertThrows(RuntimeException.class, () -> personService.findById(person.id()));
+        assertTrue(personService.existsByUsername("purged"));
+        assertEquals(1, count("SELECT COUNT(*) FROM attachments WHERE todo_id = ?", todo.id()));
+
+        todoPurger.purge();
+
+        assertEquals(0, count("SELECT COUNT(*) FROM attachments WHERE todo_id = ?", todo.id()));
+        assertEquals(0, count("SELECT COUNT(*) FROM todos WHERE id = ?", todo.id()));
+        assertEquals(0, count("SELECT COUNT(*) FROM persons WHERE id = ?", person.id()));
+        assertEquals(0, count("SELECT COUNT(*) FROM user_roles WHERE username = ?", "purged"));
+        assertFalse(personService.existsByUsername("purged"));
+    }
+
+    @Test
+    void testPurgeWaitsForQuietPeriod() {
+        // Arrange
+        TodoDto todo = todoService.create(todoWithAttachment(null));
+        todoService.delete(todo.id());
+        LongTaskTimer.Sample request = LongTaskTimer.builder("http.server.requests.active").register(meterRegistry).start();
+
+        // Act & Assert
+        try {
+            todoPurger.purge();
+            assertEquals(1, count("SELECT COUNT(*) FROM todos WHERE id = ?", todo.id()));
+        } finally {
+            request.stop();
+        }
+        todoPurger.purge();
+        assertEquals(0, count("SELECT COUNT(*) FROM todos WHERE id = ?", todo.id()));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void testOpenChangeStreamDoesNotHoldOffPurge() throws Exception {
+        // Arrange
+        TodoDto todo = todoService.create(todoWithAttachment(null));
+        todoService.delete(todo.id());
+        MvcResult stream = mockMvc.perform(get("/api/todo/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Act & Assert: the stream is still in flight, but the purge runs
+        try {
+            assertTrue(meterRegistry.get("http.server.requests.active").longTaskTimer().activeTasks() > 0);
+            todoPurger.purge();
+            assertEquals(0, count("SELECT COUNT(*) FROM todos WHERE id = ?", todo.id()));
+        } finally {
+            stream.getRequest().getAsyncContext().complete();
+        }
+    }
+
+    private int count(String sql, Object arg) {
+        return jdbcTemplate.queryForObject(sql, Integer.class, arg);
+    }
+
+    private static PersonRegistrationDto registration(String username) {
+        return PersonRegistrationDto.builder()
+                .name("Test")
+                .email(username + "@test.se")
+                .username(username)
+                .password("password")
+                .confirmPassword("password")
+                .build();
+    }
+
+    private static TodoDto todoWithAttachment(Long personId) {
+        return TodoDto.builder()
+                .title("Soon gone")
+                .completed(false)
+                .personId(personId)
+                .attachments(List.of(new AttachmentDto(null, "notes.txt", "text/plain", new byte[1024])))
+                .build();
+    }
+}
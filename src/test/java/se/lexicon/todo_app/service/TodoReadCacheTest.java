@@ -0,0 +1,109 @@
+package se.lexicon.todo_app.service;
+
+import org.junit.jupiter.api.Test;
+import se.lexicon.todo_app.dto.TodoDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TodoReadCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger queries = new AtomicInteger();
+
+    private final Supplier<List<TodoDto>> query = () -> {
+        queries.incrementAndGet();
+        return List.of(TodoDto.builder().id(1L).title("Overdue").build());
+    };
+
+    @Test
+    void testThunderingHerdRunsOneQuery() throws Exception {
+        // Arrange
+        TodoReadCache cache = new TodoReadCache(0, clock::get);
+        int callers = 32;
+        CountDownLatch queryStarted = new CountDownLatch(1);
+        CountDownLatch releaseQuery = new CountDownLatch(1);
+        Supplier<List<TodoDto>> slowQuery = () -> {
+            queryStarted.countDown();
+            try {
+                releaseQuery.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return query.get();
+        };
+
+        // Act: the first caller starts the query, everyone else arrives while it is in flight
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        List<Future<List<TodoDto>>> results = new ArrayList<>();
+        results.add(executor.submit(() -> cache.overdue(slowQuery)));
+        assertTrue(queryStarted.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i < callers; i++) {
+            results.add(executor.submit(() -> cache.overdue(slowQuery)));
+        }
+        Thread.sleep(100);
+        releaseQuery.countDown();
+
+        // Assert
+        for (Future<List<TodoDto>> result : results) {
+            assertEquals(1, result.get(5, TimeUnit.SECONDS).size());
+        }
+        executor.shutdown();
+        assertEquals(1, queries.get());
+    }
+
+    @Test
+    void testResultIsCachedForTtl() {
+        // Arrange
+        TodoReadCache cache = new TodoReadCache(1000, clock::get);
+
+        // Act
+        cache.overdue(query);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        cache.overdue(query);
+        cache.byCompleted(false, query);
+
+        // Assert
+        assertEquals(2, queries.get());
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        cache.overdue(query);
+        assertEquals(3, queries.get());
+    }
+
+    @Test
+    void testWriteInvalidates() {
+        // Arrange
+        TodoReadCache cache = new TodoReadCache(60_000, clock::get);
+        cache.overdue(query);
+
+        // Act
+        cache.invalidateAfterCommit();
+        cache.overdue(query);
+
+        // Assert
+        assertEquals(2, queries.get());
+    }
+
+    @Test
+    void testFailedQueryIsNotCached() {
+        // Arrange
+        TodoReadCache cache = new TodoReadCache(60_000, clock::get);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> cache.overdue(() -> {
+            throw new IllegalStateException("Database down");
+        }));
+        assertEquals(1, cache.overdue(query).size());
+        assertEquals(1, queries.get());
+    }
+}
@@ -3,12 +3,24 @@ package se.lexicon.todo_app.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import se.lexicon.todo_app.dto.AttachmentDto;
+import se.lexicon.todo_app.dto.AttachmentInfoDto;
+import se.lexicon.todo_app.dto.TodoChangesDto;
 import se.lexicon.todo_app.dto.TodoDto;
+import se.lexicon.todo_app.entity.Attachment;
 import se.lexicon.todo_app.entity.Person;
 import se.lexicon.todo_app.entity.Todo;
+import se.lexicon.todo_app.entity.TodoTombstone;
+import se.lexicon.todo_app.repository.ArchivedTodoRepository;
+import se.lexicon.todo_app.repository.AttachmentRepository;
 import se.lexicon.todo_app.repository.TodoRepository;
 import se.lexicon.todo_app.repository.PersonRepository;
 
@@ -31,6 +43,30 @@ public class TodoServiceTest {
     @Mock
     private PersonRepository personRepository;
 
+    @Mock
+    private TodoStatsCounter todoStatsCounter;
+
+    @Spy
+    private TodoReadCache todoReadCache = new TodoReadCache(0);
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TodoChangeLog todoChangeLog;
+
+    @Mock
+    private ArchivedTodoRepository archivedTodoRepository;
+
+    @Mock
+    private AttachmentRepository attachmentRepository;
+
+    @Spy
+    private AttachmentCompressor attachmentCompressor = new AttachmentCompressor(true, 1024, 0.2);
+
     @InjectMocks
     private TodoServiceImpl todoService;
 
@@ -45,7 +81,7 @@ public class TodoServiceTest {
 
     @BeforeEach
     void setUp() {
-        person = new Person(TEST_PERSON_ID, "John Doe", "john@example.com", LocalDate.now(), null);
+        person = new Person(TEST_PERSON_ID, "John Doe", "john@example.com", LocalDate.now(), null, false);
         todo = new Todo(TEST_TITLE, TEST_DESCRIPTION, false, TEST_DUE_DATE);
         todo.setId(TEST_TODO_ID);
         todo.setPerson(person);
@@ -74,6 +110,32 @@ public class TodoServiceTest {
         assertEquals(TEST_TITLE, created.title());
         assertEquals(TEST_DESCRIPTION, created.description());
         verify(todoRepository).save(any(Todo.class));
+        verify(todoStatsCounter).recordCreated(todo);
+    }
+
+    @Test
+    void testChangeEventsCarryNoAttachmentData() {
+        // Arrange
+        Attachment attachment = spy(new Attachment("notes.txt", "text/plain", "notes".getBytes()));
+        attachment.setId(5L);
+        todo.addAttachment(attachment);
+        when(todoRepository.findById(TEST_TODO_ID)).thenReturn(Optional.of(todo));
+        when(personRepository.findById(TEST_PERSON_ID)).thenReturn(Optional.of(person));
+        when(todoRepository.save(any(Todo.class))).thenReturn(todo);
+        when(attachmentRepository.findInfoByTodoIds(List.of(TEST_TODO_ID))).thenReturn(List.of(
+                new AttachmentInfoDto(TEST_TODO_ID, 5L, "notes.txt", "text/plain", true)));
+
+        // Act
+        todoService.update(TEST_TODO_ID, todoDto);
+
+        // Assert: the attachment is listed from the projection, the stored data is not part of the event
+        ArgumentCaptor<TodoChangedEvent> event = ArgumentCaptor.forClass(TodoChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        AttachmentDto published = event.getValue().todo().attachments().get(0);
+        assertEquals("notes.txt", published.fileName());
+        assertEquals("/api/todo/1/attachments/5/preview", published.previewUrl());
+        assertNull(published.data());
+        assertEquals(1, event.getValue().todo().numberOfAttachments());
     }
 
     @Test
@@ -82,7 +144,7 @@ public class TodoServiceTest {
         when(todoRepository.findById(TEST_TODO_ID)).thenReturn(Optional.of(todo));
 
         // Act
-        TodoDto found = todoService.findById(TEST_TODO_ID);
+        TodoDto found = todoService.findById(TEST_TODO_ID, false);
 
         // Assert
         assertNotNull(found);
@@ -91,13 +153,35 @@ public class TodoServiceTest {
         verify(todoRepository).findById(TEST_TODO_ID);
     }
 
+    @Test
+    void testFindByIdListsAttachmentsWithoutData() {
+        // Arrange
+        Attachment attachment = spy(new Attachment("notes.txt", "text/plain", "notes".getBytes()));
+        attachment.setId(5L);
+        todo.addAttachment(attachment);
+        when(todoRepository.findById(TEST_TODO_ID)).thenReturn(Optional.of(todo));
+        when(attachmentRepository.findInfoByTodoIds(List.of(TEST_TODO_ID))).thenReturn(List.of(
+                new AttachmentInfoDto(TEST_TODO_ID, 5L, "notes.txt", "text/plain", false)));
+
+        // Act
+        TodoDto found = todoService.findById(TEST_TODO_ID, false);
+
+        // Assert: the attachment links to its download, the stored data is never read
+        AttachmentDto listed = found.attachments().get(0);
+        assertNull(listed.data());
+        assertEquals("/api/todo/1/attachments/5", listed.url());
+        assertNull(listed.previewUrl());
+        assertEquals(1, found.numberOfAttachments());
+        verify(attachment, never()).getData();
+    }
+
     @Test
     void testFindById_NotFound() {
         // Arrange
         when(todoRepository.findById(TEST_TODO_ID)).thenReturn(Optional.empty());
 
         // Act & Assert
-        assertThrows(RuntimeException.class, () -> todoService.findById(TEST_TODO_ID));
+        assertThrows(RuntimeException.class, () -> todoService.findById(TEST_TODO_ID, false));
         verify(todoRepository).findById(TEST_TODO_ID);
     }
 
@@ -109,7 +193,7 @@ public class TodoServiceTest {
         when(todoRepository.findAll()).thenReturn(Arrays.asList(todo, todo2));
 
         // Act
-        List<TodoDto> result = todoService.findAll();
+        List<TodoDto> result = todoService.findAll(false);
 
         // Assert
         assertNotNull(result);
@@ -156,11 +240,17 @@ public class TodoServiceTest {
 
     @Test
     void testDelete() {
+        // Arrange
+        when(todoRepository.findById(TEST_TODO_ID)).thenReturn(Optional.of(todo));
+        when(todoStatsCounter.stateOf(todo)).thenReturn(new TodoStatsCounter.TodoState(TEST_PERSON_ID, false, true));
+
         // Act
         todoService.delete(TEST_TODO_ID);
 
-        // Assert
-        verify(todoRepository).deleteById(TEST_TODO_ID);
+        // Assert: only marked deleted, the purger removes the row later
+        assertTrue(todo.isDeleted());
+        verify(todoRepository, never()).deleteById(any());
+        verify(todoChangeLog).recordDeleted(List.of(todo));
     }
 
     @Test
@@ -169,7 +259,7 @@ public class TodoServiceTest {
         when(todoRepository.findByPerson_Id(TEST_PERSON_ID)).thenReturn(List.of(todo));
 
         // Act
-        List<TodoDto> result = todoService.findByPersonId(TEST_PERSON_ID);
+        List<TodoDto> result = todoService.findByPersonId(TEST_PERSON_ID, false);
 
         // Assert
         assertNotNull(result);
@@ -184,7 +274,7 @@ public class TodoServiceTest {
         when(todoRepository.findByCompleted(false)).thenReturn(List.of(todo));
 
         // Act
-        List<TodoDto> result = todoService.findByCompleted(false);
+        List<TodoDto> result = todoService.findByCompleted(false, false);
 
         // Assert
         assertNotNull(result);
@@ -193,5 +283,72 @@ public class TodoServiceTest {
         verify(todoRepository).findByCompleted(false);
     }
 
+    @Test
+    void testClaim() {
+        // Arrange
+        Todo unassigned = new Todo("Unassigned", TEST_DESCRIPTION, false);
+        unassigned.setId(2L);
+        when(personRepository.findByUserUsername("john")).thenReturn(Optional.of(person));
+        when(todoRepository.lockUnassigned(5)).thenReturn(List.of(unassigned));
 
-}
\ No newline at end of file
+        // Act
+        List<TodoDto> result = todoService.claim("john", 5);
+
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals(TEST_PERSON_ID, result.get(0).personId());
+        assertEquals(person, unassigned.getPerson());
+        verify(todoStatsCounter).recordUpdated(any(), eq(unassigned));
+    }
+
+    @Test
+    void testClaimLooksPastLockedTodos() {
+        // Arrange: the first window is held by other claimers
+        Todo free = new Todo("Free", TEST_DESCRIPTION, false);
+        free.setId(3L);
+        when(personRepository.findByUserUsername("john")).thenReturn(Optional.of(person));
+        when(todoRepository.lockUnassigned(2)).thenReturn(List.of());
+        when(todoRepository.findUnassignedIds(0, Limit.of(2))).thenReturn(List.of(1L, 2L));
+        when(todoRepository.lockUnassignedByIds(List.of(1L, 2L))).thenReturn(List.of());
+        when(todoRepository.findUnassignedIds(2, Limit.of(2))).thenReturn(List.of(3L));
+        when(todoRepository.lockUnassignedByIds(List.of(3L))).thenReturn(List.of(free));
+
+        // Act
+        List<TodoDto> result = todoService.claim("john", 2);
+
+        // Assert
+        assertEquals(List.of(3L), result.stream().map(TodoDto::id).toList());
+        assertEquals(person, free.getPerson());
+    }
+
+    @Test
+    void testFindChangesSince() {
+        // Arrange
+        todo.setChangeSeq(4L);
+        Todo later = new Todo("Later", TEST_DESCRIPTION, false);
+        later.setId(3L);
+        later.setChangeSeq(7L);
+        TodoTombstone tombstone = new TodoTombstone(2L, TEST_PERSON_ID);
+        tombstone.setChangeSeq(5L);
+        when(todoChangeLog.current()).thenReturn(7L);
+        when(todoRepository.findChangedAfter(3, 9, 7, Limit.of(3))).thenReturn(List.of(todo, later));
+        when(todoChangeLog.deletedBetween(3, 7, 3)).thenReturn(List.of(tombstone));
+
+        // Act
+        TodoChangesDto page = todoService.findChangesSince("3_9", 2);
+        TodoChangesDto rest = todoService.findChangesSince(page.watermark(), 2);
+
+        // Assert
+        assertTrue(page.hasMore());
+        assertEquals(List.of(TEST_TODO_ID), page.changed().stream().map(TodoDto::id).toList());
+        assertEquals(2L, page.deleted().get(0).id());
+        assertEquals("5_2", page.watermark());
+        assertFalse(rest.hasMore());
+        assertEquals("7", rest.watermark());
+    }
+
+    @Test
+    void testFindChangesSinceRejectsInvalidWatermark() {
+        assertThrows(IllegalArgumentException.class, () -> todoService.findChangesSince("yesterday", 10));
+    }
+}
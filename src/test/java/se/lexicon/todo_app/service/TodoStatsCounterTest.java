@@ -0,0 +1,94 @@
+package se.lexicon.todo_app.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import se.lexicon.todo_app.datasource.ShardRouter;
+import se.lexicon.todo_app.dto.TodoCountsDto;
+import se.lexicon.todo_app.dto.TodoGroupCountDto;
+import se.lexicon.todo_app.dto.TodoStatsDto;
+import se.lexicon.todo_app.entity.Person;
+import se.lexicon.todo_app.entity.Todo;
+import se.lexicon.todo_app.repository.ArchivedTodoRepository;
+import se.lexicon.todo_app.repository.TodoRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class TodoStatsCounterTest {
+
+    @Mock
+    private TodoRepository todoRepository;
+
+    @Mock
+    private ArchivedTodoRepository archivedTodoRepository;
+
+    @Spy
+    private ShardRouter shardRouter = new ShardRouter(1);
+
+    @InjectMocks
+    private TodoStatsCounter todoStatsCounter;
+
+    private Person person;
+
+    @BeforeEach
+    void setUp() {
+        person = new Person("John Doe", "john@example.com");
+        person.setId(1L);
+    }
+
+    @Test
+    void testReconcile() {
+        // Arrange
+        when(todoRepository.countGroupedByPersonAndCompleted()).thenReturn(List.of(
+                new TodoGroupCountDto(1L, false, 3),
+                new TodoGroupCountDto(1L, true, 2),
+                new TodoGroupCountDto(null, false, 4)));
+        when(todoRepository.countOverdueGroupedByPerson(any(LocalDateTime.class))).thenReturn(List.of(
+                new TodoGroupCountDto(1L, false, 1),
+                new TodoGroupCountDto(null, false, 2)));
+
+        // Act
+        todoStatsCounter.reconcile();
+        TodoStatsDto stats = todoStatsCounter.getStats();
+
+        // Assert
+        assertEquals(new TodoCountsDto(9, 2, 7, 3), stats.global());
+        assertEquals(new TodoCountsDto(5, 2, 3, 1), todoStatsCounter.getStats(1L));
+        assertNotNull(stats.reconciledAt());
+    }
+
+    @Test
+    void testIncrementalUpdates() {
+        // Arrange
+        Todo todo = new Todo("Overdue", "Description", false, LocalDateTime.now().minusDays(1));
+        todo.setPerson(person);
+
+        // Act & Assert
+        todoStatsCounter.recordCreated(todo);
+        assertEquals(new TodoCountsDto(1, 0, 1, 1), todoStatsCounter.getStats(1L));
+
+        TodoStatsCounter.TodoState before = todoStatsCounter.stateOf(todo);
+        todo.setCompleted(true);
+        todoStatsCounter.recordUpdated(before, todo);
+        assertEquals(new TodoCountsDto(1, 1, 0, 0), todoStatsCounter.getStats(1L));
+
+        todoStatsCounter.recordDeleted(todoStatsCounter.stateOf(todo));
+        assertEquals(new TodoCountsDto(0, 0, 0, 0), todoStatsCounter.getStats(1L));
+        assertEquals(new TodoCountsDto(0, 0, 0, 0), todoStatsCounter.getStats().global());
+    }
+
+    @Test
+    void testUnknownPerson() {
+        assertEquals(new TodoCountsDto(0, 0, 0, 0), todoStatsCounter.getStats(42L));
+    }
+}